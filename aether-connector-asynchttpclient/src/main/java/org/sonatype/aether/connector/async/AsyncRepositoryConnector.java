@@ -33,6 +33,7 @@ import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.ArtifactTransfer;
 import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.ChecksumAlgorithms;
 import org.sonatype.aether.spi.connector.MetadataDownload;
 import org.sonatype.aether.spi.connector.MetadataTransfer;
 import org.sonatype.aether.spi.connector.MetadataUpload;
@@ -51,8 +52,12 @@ import org.sonatype.aether.transfer.TransferEvent.EventType;
 import org.sonatype.aether.transfer.TransferEvent.RequestType;
 import org.sonatype.aether.transfer.TransferListener;
 import org.sonatype.aether.transfer.TransferResource;
+import org.sonatype.aether.util.CacheValidators;
+import org.sonatype.aether.util.ChecksumCache;
 import org.sonatype.aether.util.ChecksumUtils;
 import org.sonatype.aether.util.StringUtils;
+import org.sonatype.aether.util.TransferRetryPolicy;
+import org.sonatype.aether.util.concurrency.AdaptiveConcurrencyLimiter;
 import org.sonatype.aether.util.layout.MavenDefaultLayout;
 import org.sonatype.aether.util.layout.RepositoryLayout;
 import org.sonatype.aether.util.listener.DefaultTransferEvent;
@@ -69,15 +74,24 @@ import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Date;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -116,6 +130,16 @@ class AsyncRepositoryConnector
 
     private final int maxIOExceptionRetry;
 
+    private final TransferRetryPolicy retryPolicy;
+
+    private final TransferScheduler scheduler;
+
+    private final boolean conditionalGet;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private ScheduledExecutorService retryExecutor;
+
     /**
      * Create an {@link org.sonatype.aether.connector.async.AsyncRepositoryConnector} instance which connect to the
      * {@link RemoteRepository}
@@ -149,12 +173,14 @@ class AsyncRepositoryConnector
         AsyncHttpClientConfig config = createConfig( session, repository, true );
         httpClient = new AsyncHttpClient( new NettyAsyncHttpProvider( config ) );
 
-        checksumAlgos = new LinkedHashMap<String, String>();
-        checksumAlgos.put( "SHA-1", ".sha1" );
-        checksumAlgos.put( "MD5", ".md5" );
+        checksumAlgos = ChecksumAlgorithms.getAlgorithms( session );
 
         disableResumeSupport = ConfigurationProperties.get( session, "aether.connector.ahc.disableResumable", false );
         maxIOExceptionRetry = ConfigurationProperties.get( session, "aether.connector.ahc.resumeRetry", 3 );
+        retryPolicy = TransferRetryPolicy.newInstance( session );
+        scheduler = TransferScheduler.get( session, repository );
+        conditionalGet = ConfigurationProperties.get( session, "aether.connector.conditionalGet", true );
+        limiter = AdaptiveConcurrencyLimiter.get( session, repository );
     }
 
     private Realm getRealm( RemoteRepository repository )
@@ -250,26 +276,33 @@ class AsyncRepositoryConnector
 
         Collection<GetTask<?>> tasks = new ArrayList<GetTask<?>>();
 
+        TransferScheduler.Batch batch = scheduler.newBatch();
+
         for ( MetadataDownload download : metadataDownloads )
         {
             String resource = layout.getPath( download.getMetadata() ).getPath();
             GetTask<?> task =
                 new GetTask<MetadataTransfer>( resource, download.getFile(), download.getChecksumPolicy(), latch,
-                                               download, METADATA, false );
+                                               TransferScheduler.PRIORITY_METADATA, download, METADATA, false,
+                                               conditionalGet );
             tasks.add( task );
-            task.run();
+            batch.add( task, TransferScheduler.PRIORITY_METADATA, -1 );
         }
 
         for ( ArtifactDownload download : artifactDownloads )
         {
             String resource = layout.getPath( download.getArtifact() ).getPath();
+            int priority = getPriority( download );
             GetTask<?> task =
                 new GetTask<ArtifactTransfer>( resource, download.isExistenceCheck() ? null : download.getFile(),
-                                               download.getChecksumPolicy(), latch, download, ARTIFACT, true );
+                                               download.getChecksumPolicy(), latch, priority, download, ARTIFACT, true,
+                                               false );
             tasks.add( task );
-            task.run();
+            batch.add( task, priority, -1 );
         }
 
+        batch.run();
+
         try
         {
             latch.await();
@@ -310,24 +343,32 @@ class AsyncRepositoryConnector
 
         Collection<PutTask<?>> tasks = new ArrayList<PutTask<?>>();
 
+        TransferScheduler.Batch batch = scheduler.newBatch();
+
         for ( ArtifactUpload upload : artifactUploads )
         {
             String path = layout.getPath( upload.getArtifact() ).getPath();
 
-            PutTask<?> task = new PutTask<ArtifactTransfer>( path, upload.getFile(), latch, upload, ARTIFACT );
+            int priority = getPriority( upload );
+            PutTask<?> task =
+                new PutTask<ArtifactTransfer>( path, upload.getFile(), latch, priority, upload, ARTIFACT );
             tasks.add( task );
-            task.run();
+            batch.add( task, priority, getSize( upload.getFile() ) );
         }
 
         for ( MetadataUpload upload : metadataUploads )
         {
             String path = layout.getPath( upload.getMetadata() ).getPath();
 
-            PutTask<?> task = new PutTask<MetadataTransfer>( path, upload.getFile(), latch, upload, METADATA );
+            PutTask<?> task =
+                new PutTask<MetadataTransfer>( path, upload.getFile(), latch, TransferScheduler.PRIORITY_METADATA,
+                                               upload, METADATA );
             tasks.add( task );
-            task.run();
+            batch.add( task, TransferScheduler.PRIORITY_METADATA, getSize( upload.getFile() ) );
         }
 
+        batch.run();
+
         try
         {
             latch.await();
@@ -346,6 +387,21 @@ class AsyncRepositoryConnector
         }
     }
 
+    private static int getPriority( ArtifactTransfer transfer )
+    {
+        if ( ( transfer instanceof ArtifactDownload && ( (ArtifactDownload) transfer ).isExistenceCheck() )
+            || "pom".equals( transfer.getArtifact().getExtension() ) )
+        {
+            return TransferScheduler.PRIORITY_POM;
+        }
+        return TransferScheduler.PRIORITY_ARTIFACT;
+    }
+
+    private static long getSize( File file )
+    {
+        return ( file != null && file.isFile() ) ? file.length() : -1;
+    }
+
     private void handleResponseCode( String url, int responseCode, String responseMsg )
         throws AuthorizationException, ResourceDoesNotExistException, TransferException
     {
@@ -402,14 +458,17 @@ class AsyncRepositoryConnector
 
         private final boolean allowResumable;
 
-        public GetTask( String path, File file, String checksumPolicy, CountDownLatch latch, T download,
-                        ExceptionWrapper<T> wrapper, boolean allowResumable )
+        private final boolean conditional;
+
+        public GetTask( String path, File file, String checksumPolicy, CountDownLatch latch, int priority,
+                        T download, ExceptionWrapper<T> wrapper, boolean allowResumable, boolean conditional )
         {
             this.path = path;
             this.file = file;
             this.checksumPolicy = checksumPolicy;
             this.allowResumable = allowResumable;
-            this.latch = new LatchGuard( latch );
+            this.conditional = conditional && file != null;
+            this.latch = new LatchGuard( latch, priority );
             this.download = download;
             this.wrapper = wrapper;
         }
@@ -433,12 +492,18 @@ class AsyncRepositoryConnector
             final boolean ignoreChecksum = RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolicy );
             CompletionHandler completionHandler = null;
 
-            final FileLockCompanion fileLockCompanion = ( file != null )
-                ? createOrGetTmpFile( file.getPath(), allowResumable )
-                : new FileLockCompanion( null, null );
+            FileLockCompanion lockedFile = null;
 
             try
             {
+                latch.acquire();
+
+                // the temp file and its lock count against the cap of in-flight transfers as well
+                final FileLockCompanion fileLockCompanion = ( file != null )
+                    ? createOrGetTmpFile( file.getPath(), allowResumable )
+                    : new FileLockCompanion( null, null );
+                lockedFile = fileLockCompanion;
+
                 long length = 0;
                 if ( fileLockCompanion.getFile() != null )
                 {
@@ -461,6 +526,20 @@ class AsyncRepositoryConnector
                 }
                 headers.add( "Accept", "text/html, image/gif, image/jpeg, *; q=.2, */*; q=.2" );
 
+                // Refresh an existing local copy via a conditional request, a 304 leaves the file untouched.
+                final CacheValidators validators = conditional ? CacheValidators.read( file ) : null;
+                if ( validators != null )
+                {
+                    if ( validators.getEtag() != null )
+                    {
+                        headers.add( "If-None-Match", validators.getEtag() );
+                    }
+                    if ( validators.getLastModified() > 0 )
+                    {
+                        headers.add( "If-Modified-Since", formatHttpDate( validators.getLastModified() ) );
+                    }
+                }
+
                 Request request = null;
                 final AtomicInteger maxRequestTry = new AtomicInteger();
                 AsyncHttpClient client = httpClient;
@@ -515,6 +594,7 @@ class AsyncRepositoryConnector
                     @Override
                     public void onThrowable( Throwable t )
                     {
+                        boolean retrying = false;
                         try
                         {
                             logger.debug("onThrowable", t);
@@ -522,16 +602,22 @@ class AsyncRepositoryConnector
                              * If an IOException occurs, let's try to resume the request based on how much bytes has
                              * been so far downloaded. Fail after IOException.
                              */
-                            if ( !disableResumeSupport && !localException.get() && maxRequestTry.get() < maxIOExceptionRetry
+                            int maxRetry = Math.max( disableResumeSupport ? 0 : maxIOExceptionRetry,
+                                                     retryPolicy.getMaxAttempts() - 1 );
+                            if ( !localException.get() && maxRequestTry.get() < maxRetry
                                     && IOException.class.isAssignableFrom( t.getClass() ) )
                             {
                                 logger.debug("Trying to recover from an IOException " + activeRequest);
-                                maxRequestTry.incrementAndGet();
-                                Request newRequest = new RequestBuilder( activeRequest ).setRangeOffset(
-                                    resumableFile.length() ).build();
-                                activeHttpClient.executeRequest( newRequest, this );
-                                deleteFile.set( false );
-                                return;
+                                try
+                                {
+                                    retry( (IOException) t );
+                                    retrying = true;
+                                    return;
+                                }
+                                catch ( Exception e )
+                                {
+                                    logger.debug( "Failed to retry " + activeRequest, e );
+                                }
                             }
                             localException.set(false);
 
@@ -557,21 +643,80 @@ class AsyncRepositoryConnector
                         }
                         finally
                         {
-                            if ( resumableFile != null )
+                            if ( !retrying )
+                            {
+                                if ( resumableFile != null )
+                                {
+                                    try
+                                    {
+                                        resumableFile.close();
+                                    }
+                                    catch ( IOException ex )
+                                    {
+                                    }
+                                }
+                                deleteFile( fileLockCompanion );
+
+                                latch.countDown();
+                                removeListeners();
+                            }
+                        }
+                    }
+
+                    /**
+                     * Issues the request again after the delay mandated by the retry policy. Unless resuming is
+                     * disabled, the new request continues from the bytes downloaded so far.
+                     */
+                    private void retry( Exception cause )
+                        throws Exception
+                    {
+                        final int attempt = maxRequestTry.incrementAndGet();
+                        deleteFile.set( false );
+
+                        RequestBuilder builder = new RequestBuilder( activeRequest );
+                        if ( resumableFile != null )
+                        {
+                            if ( !disableResumeSupport )
+                            {
+                                builder.setRangeOffset( resumableFile.length() );
+                            }
+                            else
+                            {
+                                resumableFile.setLength( 0 );
+                                resumableFile.seek( 0 );
+                            }
+                        }
+                        final Request newRequest = builder.build();
+
+                        if ( listener != null )
+                        {
+                            listener.transferInitiated(
+                                newEvent( transferResource, cause, RequestType.GET, EventType.INITIATED ) );
+                        }
+
+                        // the legacy resume retries are issued immediately unless a retry policy is configured
+                        final long delay = ( retryPolicy.getMaxAttempts() > 1 ) ? retryPolicy.getDelay( attempt ) : 0;
+                        if ( delay <= 0 )
+                        {
+                            activeHttpClient.executeRequest( newRequest, this );
+                            return;
+                        }
+
+                        final CompletionHandler handler = this;
+                        getRetryExecutor().schedule( new Runnable()
+                        {
+                            public void run()
                             {
                                 try
                                 {
-                                    resumableFile.close();
+                                    activeHttpClient.executeRequest( newRequest, handler );
                                 }
-                                catch ( IOException ex )
+                                catch ( Exception e )
                                 {
+                                    handler.onThrowable( e );
                                 }
                             }
-                            deleteFile( fileLockCompanion );
-
-                            latch.countDown();
-                            removeListeners();
-                        }
+                        }, delay, TimeUnit.MILLISECONDS );
                     }
 
                     private void removeListeners()
@@ -614,6 +759,27 @@ class AsyncRepositoryConnector
                     public Response onCompleted( Response r )
                         throws Exception
                     {
+                        if ( retryPolicy.isRetryable( r.getStatusCode() )
+                            && retryPolicy.canRetry( maxRequestTry.get() + 1 ) )
+                        {
+                            logger.debug( "Retrying " + activeRequest + " after status " + r.getStatusCode() );
+                            // let the concurrency limiter see the overload even if the retry succeeds
+                            latch.setStatusCode( r.getStatusCode() );
+                            try
+                            {
+                                retry( new TransferException( String.format( "Failed to transfer %s. Error code %s, %s",
+                                                                             uri, r.getStatusCode(),
+                                                                             r.getStatusText() ) ) );
+                                return r;
+                            }
+                            catch ( Exception ex )
+                            {
+                                exception = ex;
+                                localException.set( true );
+                                throw ex;
+                            }
+                        }
+
                         try
                         {
                             deleteFile.set( true );
@@ -627,8 +793,28 @@ class AsyncRepositoryConnector
 
                             final Response response = super.onCompleted( r );
 
+                            latch.setStatusCode( response.getStatusCode() );
+
+                            if ( validators != null && response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED )
+                            {
+                                deleteFile( fileLockCompanion );
+                                handleTmpFile.set( false );
+                                fireTransferSucceeded( response );
+
+                                latch.countDown();
+                                if ( closeOnComplete.get() )
+                                {
+                                    activeHttpClient.close();
+                                }
+                                removeListeners();
+
+                                return response;
+                            }
+
                             handleResponseCode( uri, response.getStatusCode(), response.getStatusText() );
 
+                            final CacheValidators received = conditional ? getValidators( response ) : null;
+
                             if ( !ignoreChecksum )
                             {
                                 activeHttpClient.getConfig().executorService().execute( new Runnable()
@@ -639,13 +825,7 @@ class AsyncRepositoryConnector
                                         {
                                             try
                                             {
-                                                Map<String, Object> checksums =
-                                                    ChecksumUtils.calc( fileLockCompanion.getFile(),
-                                                                        checksumAlgos.keySet() );
-                                                if ( !verifyChecksum( file, uri, (String) checksums.get( "SHA-1" ),
-                                                                      ".sha1" ) &&
-                                                    !verifyChecksum( file, uri, (String) checksums.get( "MD5" ),
-                                                                     ".md5" ) )
+                                                if ( !verifyChecksums( file, fileLockCompanion.getFile(), uri ) )
                                                 {
                                                     throw new ChecksumFailureException( "Checksum validation failed" +
                                                                                             ", no checksums available from the repository" );
@@ -677,6 +857,7 @@ class AsyncRepositoryConnector
                                                 {
                                                     rename( fileLockCompanion.getFile(), file );
                                                     releaseLock( fileLockCompanion );
+                                                    storeValidators( received );
                                                 }
                                                 catch ( IOException e )
                                                 {
@@ -703,6 +884,7 @@ class AsyncRepositoryConnector
                                 rename( fileLockCompanion.getFile(), file );
                                 releaseLock( fileLockCompanion );
                                 handleTmpFile.set( false );
+                                storeValidators( received );
 
                                 // asyncHttpClient.close may takes time before all connections get closed.
                                 // We unlatch first.
@@ -752,7 +934,7 @@ class AsyncRepositoryConnector
                 {
                     if ( file == null )
                     {
-                        if ( !resourceExist( uri ) )
+                        if ( !resourceExist( uri, latch ) )
                         {
                             throw new ResourceDoesNotExistException(
                                 "Could not find " + uri + " in " + repository.getUrl() );
@@ -790,7 +972,10 @@ class AsyncRepositoryConnector
             }
             catch ( Throwable t )
             {
-                deleteFile( fileLockCompanion );
+                if ( lockedFile != null )
+                {
+                    deleteFile( lockedFile );
+                }
                 try
                 {
                     if ( Exception.class.isAssignableFrom( t.getClass() ) )
@@ -824,7 +1009,20 @@ class AsyncRepositoryConnector
             }
         }
 
-        private boolean verifyChecksum( File file, String path, String actual, String ext )
+        private boolean verifyChecksums( File file, File data, String path )
+            throws ChecksumFailureException
+        {
+            for ( Map.Entry<String, String> entry : checksumAlgos.entrySet() )
+            {
+                if ( verifyChecksum( file, data, path, entry.getKey(), entry.getValue() ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean verifyChecksum( File file, File data, String path, String algo, String ext )
             throws ChecksumFailureException
         {
             File tmp = getTmpFile( file.getPath() + ext );
@@ -873,6 +1071,8 @@ class AsyncRepositoryConnector
                     throw new ChecksumFailureException( e );
                 }
 
+                String actual = getActualChecksum( data, algo );
+
                 if ( expected.equalsIgnoreCase( actual ) )
                 {
                     try
@@ -897,6 +1097,25 @@ class AsyncRepositoryConnector
             return true;
         }
 
+        private String getActualChecksum( File data, String algo )
+            throws ChecksumFailureException
+        {
+            Object checksum;
+            try
+            {
+                checksum = ChecksumUtils.calc( data, Collections.singleton( algo ) ).get( algo );
+            }
+            catch ( IOException e )
+            {
+                throw new ChecksumFailureException( e );
+            }
+            if ( checksum instanceof Throwable )
+            {
+                throw new ChecksumFailureException( (Throwable) checksum );
+            }
+            return String.valueOf( checksum );
+        }
+
         public void flush()
         {
             flush( null );
@@ -914,6 +1133,20 @@ class AsyncRepositoryConnector
         {
             fileProcessor.move( from, to );
         }
+
+        private void storeValidators( CacheValidators validators )
+        {
+            if ( conditional )
+            {
+                CacheValidators.write( file, validators );
+            }
+        }
+
+        private CacheValidators getValidators( Response response )
+        {
+            return new CacheValidators( response.getHeader( "ETag" ),
+                                        parseHttpDate( response.getHeader( "Last-Modified" ) ) );
+        }
     }
 
     class PutTask<T extends Transfer>
@@ -932,13 +1165,14 @@ class AsyncRepositoryConnector
 
         private final LatchGuard latch;
 
-        public PutTask( String path, File file, CountDownLatch latch, T upload, ExceptionWrapper<T> wrapper )
+        public PutTask( String path, File file, CountDownLatch latch, int priority, T upload,
+                        ExceptionWrapper<T> wrapper )
         {
             this.path = path;
             this.file = file;
             this.upload = upload;
             this.wrapper = wrapper;
-            this.latch = new LatchGuard( latch );
+            this.latch = new LatchGuard( latch, priority );
         }
 
         public Exception getException()
@@ -954,6 +1188,8 @@ class AsyncRepositoryConnector
 
             try
             {
+                latch.acquire();
+
                 final String uri = validateUri( path );
 
                 final CompletionHandler completionHandler =
@@ -993,6 +1229,7 @@ class AsyncRepositoryConnector
                             try
                             {
                                 Response response = super.onCompleted( r );
+                                latch.setStatusCode( response.getStatusCode() );
                                 handleResponseCode( uri, response.getStatusCode(), response.getStatusText() );
 
                                 httpClient.getConfig().executorService().execute( new Runnable()
@@ -1077,7 +1314,7 @@ class AsyncRepositoryConnector
         {
             try
             {
-                Map<String, Object> checksums = ChecksumUtils.calc( file, checksumAlgos.keySet() );
+                Map<String, Object> checksums = ChecksumCache.getInstance().calc( file, checksumAlgos.keySet() );
                 for ( Map.Entry<String, Object> entry : checksums.entrySet() )
                 {
                     uploadChecksum( file, path, entry.getKey(), entry.getValue() );
@@ -1138,6 +1375,34 @@ class AsyncRepositoryConnector
         return repoUrl + path;
     }
 
+    private static DateFormat newHttpDateFormat()
+    {
+        DateFormat format = new SimpleDateFormat( "EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US );
+        format.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+        return format;
+    }
+
+    private static String formatHttpDate( long timestamp )
+    {
+        return newHttpDateFormat().format( new Date( timestamp ) );
+    }
+
+    private static long parseHttpDate( String date )
+    {
+        if ( date == null )
+        {
+            return 0;
+        }
+        try
+        {
+            return newHttpDateFormat().parse( date.trim() ).getTime();
+        }
+        catch ( ParseException e )
+        {
+            return 0;
+        }
+    }
+
     private String validateUri( String path )
     {
         String tmpUri = buildUrl( path );
@@ -1158,10 +1423,35 @@ class AsyncRepositoryConnector
         return tmpUri;
     }
 
-    private boolean resourceExist( String url )
+    private boolean resourceExist( String url, LatchGuard latch )
         throws IOException, ExecutionException, InterruptedException, TransferException, AuthorizationException
     {
-        int statusCode = httpClient.prepareHead( url ).execute().get().getStatusCode();
+        int statusCode;
+        for ( int attempt = 1;; attempt++ )
+        {
+            try
+            {
+                statusCode = httpClient.prepareHead( url ).execute().get().getStatusCode();
+            }
+            catch ( ExecutionException e )
+            {
+                if ( !( e.getCause() instanceof IOException ) || !retryPolicy.canRetry( attempt ) )
+                {
+                    throw e;
+                }
+                logger.debug( "Retrying HEAD " + url + " after " + e.getCause() );
+                retryPolicy.await( attempt );
+                continue;
+            }
+
+            latch.setStatusCode( statusCode );
+            if ( !retryPolicy.isRetryable( statusCode ) || !retryPolicy.canRetry( attempt ) )
+            {
+                break;
+            }
+            logger.debug( "Retrying HEAD " + url + " after status " + statusCode );
+            retryPolicy.await( attempt );
+        }
 
         switch ( statusCode )
         {
@@ -1194,6 +1484,34 @@ class AsyncRepositoryConnector
     {
         closed.set( true );
         httpClient.close();
+        synchronized ( this )
+        {
+            if ( retryExecutor != null )
+            {
+                retryExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Gets the executor that issues delayed retries. The I/O threads of the HTTP client must not be blocked while
+     * waiting for the next attempt, so the delay is left to a timer thread that is created on first use.
+     */
+    private synchronized ScheduledExecutorService getRetryExecutor()
+    {
+        if ( retryExecutor == null )
+        {
+            retryExecutor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+            {
+                public Thread newThread( Runnable r )
+                {
+                    Thread thread = new Thread( r, "aether-ahc-retry-" + repository.getId() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+        }
+        return retryExecutor;
     }
 
     private <T> Collection<T> safe( Collection<T> items )
@@ -1434,17 +1752,78 @@ class AsyncRepositoryConnector
 
         private final CountDownLatch latch;
 
+        private final int priority;
+
         private final AtomicBoolean done = new AtomicBoolean( false );
 
-        public LatchGuard( CountDownLatch latch )
+        private volatile boolean scheduled;
+
+        private volatile boolean acquired;
+
+        private volatile long started;
+
+        private volatile boolean overloaded;
+
+        public LatchGuard( CountDownLatch latch, int priority )
         {
             this.latch = latch;
+            this.priority = priority;
+        }
+
+        /**
+         * Waits for the scheduler and the adaptive concurrency limit of the repository (if any) to admit the transfer.
+         */
+        public void acquire()
+            throws InterruptedException
+        {
+            try
+            {
+                scheduled = scheduler.acquire( priority );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            if ( limiter != null )
+            {
+                try
+                {
+                    started = limiter.acquire();
+                    acquired = true;
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Records the status code of a response. An overload signaled by any attempt of the transfer is remembered,
+         * even if a later retry succeeds.
+         */
+        public void setStatusCode( int statusCode )
+        {
+            if ( AdaptiveConcurrencyLimiter.isOverloaded( statusCode ) )
+            {
+                overloaded = true;
+            }
         }
 
         public void countDown()
         {
             if ( !done.getAndSet( true ) )
             {
+                if ( acquired )
+                {
+                    limiter.release( started, overloaded );
+                }
+                if ( scheduled )
+                {
+                    scheduler.release();
+                }
                 latch.countDown();
             }
         }
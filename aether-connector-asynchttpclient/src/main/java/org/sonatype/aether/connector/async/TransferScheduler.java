@@ -0,0 +1,250 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Schedules the transfers of the connectors for a repository. The number of transfers in flight (and hence the number
+ * of open requests and temp files) is capped, and the transfers of a batch are started in order of their priority:
+ * metadata before POMs before other artifacts. Within a priority, transfers can optionally be ordered smallest-first
+ * based on their size hint. A transfer obtains its slot via {@link #acquire(int)} when it starts and must give it back
+ * via {@link #release()} once it completed. The slots are shared by all connectors to the same repository within a
+ * session, and a free slot goes to the waiting transfer with the highest priority, i.e. metadata and POMs requested by
+ * one connector overtake the queued artifacts of another connector.
+ */
+class TransferScheduler
+{
+
+    static final int PRIORITY_METADATA = 0;
+
+    static final int PRIORITY_POM = 1;
+
+    static final int PRIORITY_ARTIFACT = 2;
+
+    private final int maxInFlight;
+
+    private final boolean smallestFirst;
+
+    private final int[] waiting = new int[PRIORITY_ARTIFACT + 1];
+
+    private int inFlight;
+
+    /**
+     * Gets the scheduler for the specified repository, creating it if necessary.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     * @param repository The repository to schedule the transfers for, must not be {@code null}.
+     * @return The scheduler shared by all connectors to the repository within the session, never {@code null}.
+     */
+    public static TransferScheduler get( RepositorySystemSession session, RemoteRepository repository )
+    {
+        SessionData data = session.getData();
+        Object key = TransferScheduler.class.getName() + '/' + repository.getId() + '/' + repository.getUrl();
+
+        synchronized ( data )
+        {
+            TransferScheduler scheduler = (TransferScheduler) data.get( key );
+            if ( scheduler == null )
+            {
+                int max = ConfigurationProperties.get( session, "aether.connector.ahc.maxConcurrentTransfers", 64 );
+                boolean smallest = ConfigurationProperties.get( session, "aether.connector.ahc.smallestFirst", false );
+                scheduler = new TransferScheduler( max, smallest );
+                data.set( key, scheduler );
+            }
+            return scheduler;
+        }
+    }
+
+    public TransferScheduler( int maxInFlight, boolean smallestFirst )
+    {
+        this.maxInFlight = maxInFlight;
+        this.smallestFirst = smallestFirst;
+    }
+
+    /**
+     * Waits until another artifact transfer may be started.
+     *
+     * @return {@code true} if a slot was acquired and needs to be released, {@code false} if the number of transfers is
+     *         not capped.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public boolean acquire()
+        throws InterruptedException
+    {
+        return acquire( PRIORITY_ARTIFACT );
+    }
+
+    /**
+     * Waits until another transfer may be started. A transfer is only started once no transfer with a higher priority
+     * (i.e. a lower value) is waiting.
+     *
+     * @param priority The priority of the transfer, lower values are started first.
+     * @return {@code true} if a slot was acquired and needs to be released, {@code false} if the number of transfers is
+     *         not capped.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public boolean acquire( int priority )
+        throws InterruptedException
+    {
+        if ( maxInFlight <= 0 )
+        {
+            return false;
+        }
+
+        priority = Math.max( 0, Math.min( priority, PRIORITY_ARTIFACT ) );
+
+        synchronized ( this )
+        {
+            boolean acquired = false;
+            waiting[priority]++;
+            try
+            {
+                while ( inFlight >= maxInFlight || isPreceded( priority ) )
+                {
+                    wait();
+                }
+                inFlight++;
+                acquired = true;
+            }
+            finally
+            {
+                waiting[priority]--;
+                if ( !acquired )
+                {
+                    // let transfers of lower priority proceed that were waiting behind us
+                    notifyAll();
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isPreceded( int priority )
+    {
+        for ( int i = 0; i < priority; i++ )
+        {
+            if ( waiting[i] > 0 )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void release()
+    {
+        if ( maxInFlight > 0 )
+        {
+            synchronized ( this )
+            {
+                inFlight--;
+                notifyAll();
+            }
+        }
+    }
+
+    public Batch newBatch()
+    {
+        return new Batch();
+    }
+
+    class Batch
+    {
+
+        private final List<Item> items = new ArrayList<Item>();
+
+        /**
+         * Adds a transfer to the batch.
+         *
+         * @param task The transfer task, must not be {@code null}.
+         * @param priority The priority of the transfer, lower values are started first.
+         * @param size The expected number of bytes to transfer or {@code -1} if unknown.
+         */
+        public void add( Runnable task, int priority, long size )
+        {
+            items.add( new Item( task, priority, size, items.size() ) );
+        }
+
+        /**
+         * Starts the transfers of the batch in order. This method returns as soon as the last transfer has been
+         * started, i.e. the caller still needs to await the completion of the transfers.
+         */
+        public void run()
+        {
+            Collections.sort( items, new Comparator<Item>()
+            {
+                public int compare( Item item1, Item item2 )
+                {
+                    int rel = item1.priority - item2.priority;
+                    if ( rel == 0 && smallestFirst )
+                    {
+                        rel = compareSizes( item1.size, item2.size );
+                    }
+                    if ( rel == 0 )
+                    {
+                        rel = item1.index - item2.index;
+                    }
+                    return rel;
+                }
+            } );
+
+            for ( Item item : items )
+            {
+                item.task.run();
+            }
+        }
+
+        private int compareSizes( long size1, long size2 )
+        {
+            // transfers of unknown size go last
+            if ( size1 < 0 || size2 < 0 )
+            {
+                return ( size1 < 0 ? 1 : 0 ) - ( size2 < 0 ? 1 : 0 );
+            }
+            return ( size1 < size2 ) ? -1 : ( size1 == size2 ? 0 : 1 );
+        }
+
+    }
+
+    static class Item
+    {
+
+        final Runnable task;
+
+        final int priority;
+
+        final long size;
+
+        final int index;
+
+        Item( Runnable task, int priority, long size, int index )
+        {
+            this.task = task;
+            this.priority = priority;
+            this.size = size;
+            this.index = index;
+        }
+
+    }
+
+}
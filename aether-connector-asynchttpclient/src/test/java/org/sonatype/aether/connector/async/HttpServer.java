@@ -45,6 +45,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -99,6 +100,10 @@ public class HttpServer
 
     private Map<String, Map<String, String>> recordedHeaders = new HashMap<String, Map<String, String>>();
 
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private int failureStatus;
+
     protected Connector newHttpConnector()
     {
         SelectChannelConnector connector = new SelectChannelConnector();
@@ -527,6 +532,38 @@ public class HttpServer
         };
     }
 
+    /**
+     * Lets the server answer the next requests with the specified status code instead of processing them.
+     *
+     * @param count The number of requests to fail.
+     * @param statusCode The status code to send for the failed requests.
+     * @return This server, never {@code null}.
+     */
+    public HttpServer setFailures( int count, int statusCode )
+    {
+        this.failures.set( count );
+        this.failureStatus = statusCode;
+        return this;
+    }
+
+    protected Handler newFailureHandler()
+    {
+        return new AbstractHandler()
+        {
+
+            public void handle( String target, HttpServletRequest request, HttpServletResponse response, int dispatch )
+                throws IOException
+            {
+                if ( failures.getAndDecrement() > 0 )
+                {
+                    response.sendError( failureStatus );
+                    ( (Request) request ).setHandled( true );
+                }
+            }
+
+        };
+    }
+
     /**
      * Starts the server. Trying to start an already running server has no effect.
      *
@@ -562,6 +599,7 @@ public class HttpServer
         {
             handlerList.addHandler( newSleepHandler( latency ) );
         }
+        handlerList.addHandler( newFailureHandler() );
         if ( redirectToHttps )
         {
             handlerList.addHandler( newSslRedirectHandler() );
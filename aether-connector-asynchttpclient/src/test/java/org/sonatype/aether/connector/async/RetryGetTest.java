@@ -0,0 +1,146 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.test.impl.SysoutLogger;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.test.util.impl.StubArtifact;
+import org.sonatype.aether.transfer.ArtifactTransferException;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+import org.sonatype.aether.util.TransferRetryPolicy;
+
+public class RetryGetTest
+{
+
+    private File baseDir;
+
+    private HttpServer server;
+
+    private AsyncRepositoryConnector connector;
+
+    private StubArtifact artifact;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        baseDir = TestFileUtils.createTempDir( getClass().getSimpleName() );
+        TestFileUtils.write( "artifact", new File( baseDir, "repo/gid/aid/1.0/aid-1.0.jar" ) );
+
+        server = new HttpServer();
+        server.addResources( "/", baseDir.getAbsolutePath() );
+        server.enableRecording( ".*" );
+        server.start();
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( TransferRetryPolicy.MAX_ATTEMPTS, "3" );
+        config.put( TransferRetryPolicy.INITIAL_DELAY, "10" );
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setConfigProperties( config );
+
+        RemoteRepository repo = new RemoteRepository( "id", "default", server.getHttpUrl() + "/repo" );
+        connector = new AsyncRepositoryConnector( repo, session, new TestFileProcessor(), new SysoutLogger() );
+
+        artifact = new StubArtifact( "gid", "aid", "", "jar", "1.0" );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        try
+        {
+            connector.close();
+            server.stop();
+        }
+        finally
+        {
+            TestFileUtils.delete( baseDir );
+        }
+    }
+
+    @Test
+    public void testDownloadIsRetriedAfterServiceUnavailable()
+        throws Exception
+    {
+        server.setFailures( 2, 503 );
+
+        File file = new File( baseDir, "local/aid-1.0.jar" );
+        ArtifactDownload download =
+            new ArtifactDownload( artifact, "", file, RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        connector.get( Arrays.asList( download ), null );
+
+        assertNull( String.valueOf( download.getException() ), download.getException() );
+        TestFileUtils.assertContent( "artifact", file );
+        assertEquals( server.getRecordedRequests().toString(), 3, count( "GET /repo/gid/aid/1.0/aid-1.0.jar" ) );
+    }
+
+    @Test
+    public void testDownloadFailsOnceRetriesAreExhausted()
+        throws Exception
+    {
+        server.setFailures( 3, 503 );
+
+        File file = new File( baseDir, "local/aid-1.0.jar" );
+        ArtifactDownload download =
+            new ArtifactDownload( artifact, "", file, RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        connector.get( Arrays.asList( download ), null );
+
+        assertTrue( String.valueOf( download.getException() ),
+                    download.getException() instanceof ArtifactTransferException );
+        assertFalse( file.exists() );
+        assertEquals( server.getRecordedRequests().toString(), 3, count( "GET /repo/gid/aid/1.0/aid-1.0.jar" ) );
+    }
+
+    @Test
+    public void testExistenceCheckIsRetriedAfterServiceUnavailable()
+        throws Exception
+    {
+        server.setFailures( 2, 503 );
+
+        ArtifactDownload download = new ArtifactDownload( artifact, "", null, RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        download.setExistenceCheck( true );
+        connector.get( Arrays.asList( download ), null );
+
+        assertNull( String.valueOf( download.getException() ), download.getException() );
+        assertEquals( server.getRecordedRequests().toString(), 3, count( "HEAD /repo/gid/aid/1.0/aid-1.0.jar" ) );
+    }
+
+    private int count( String request )
+    {
+        int count = 0;
+        for ( String recorded : server.getRecordedRequests() )
+        {
+            if ( recorded.equals( request ) )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
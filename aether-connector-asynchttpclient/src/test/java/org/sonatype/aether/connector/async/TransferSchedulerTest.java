@@ -0,0 +1,155 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TransferSchedulerTest
+{
+
+    private Runnable record( final List<String> order, final String name )
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                order.add( name );
+            }
+        };
+    }
+
+    @Test
+    public void testPriorityOrder()
+    {
+        List<String> order = new ArrayList<String>();
+
+        TransferScheduler.Batch batch = new TransferScheduler( 0, false ).newBatch();
+        batch.add( record( order, "jar" ), TransferScheduler.PRIORITY_ARTIFACT, 100 );
+        batch.add( record( order, "pom" ), TransferScheduler.PRIORITY_POM, 10 );
+        batch.add( record( order, "zip" ), TransferScheduler.PRIORITY_ARTIFACT, 1 );
+        batch.add( record( order, "metadata" ), TransferScheduler.PRIORITY_METADATA, -1 );
+        batch.run();
+
+        assertEquals( Arrays.asList( "metadata", "pom", "jar", "zip" ), order );
+    }
+
+    @Test
+    public void testSmallestFirst()
+    {
+        List<String> order = new ArrayList<String>();
+
+        TransferScheduler.Batch batch = new TransferScheduler( 0, true ).newBatch();
+        batch.add( record( order, "unknown" ), TransferScheduler.PRIORITY_ARTIFACT, -1 );
+        batch.add( record( order, "large" ), TransferScheduler.PRIORITY_ARTIFACT, 100 );
+        batch.add( record( order, "small" ), TransferScheduler.PRIORITY_ARTIFACT, 1 );
+        batch.add( record( order, "pom" ), TransferScheduler.PRIORITY_POM, 1000 );
+        batch.run();
+
+        assertEquals( Arrays.asList( "pom", "small", "large", "unknown" ), order );
+    }
+
+    @Test
+    public void testInFlightCap()
+        throws Exception
+    {
+        final TransferScheduler scheduler = new TransferScheduler( 1, false );
+        assertTrue( scheduler.acquire() );
+
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    scheduler.acquire();
+                    scheduler.release();
+                }
+                catch ( InterruptedException e )
+                {
+                    // ignored
+                }
+            }
+        };
+        thread.start();
+        thread.join( 200 );
+        assertTrue( thread.isAlive() );
+
+        scheduler.release();
+        thread.join( 5000 );
+        assertFalse( thread.isAlive() );
+    }
+
+    private Thread acquire( final TransferScheduler scheduler, final List<String> order, final String name,
+                            final int priority )
+        throws InterruptedException
+    {
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    scheduler.acquire( priority );
+                    order.add( name );
+                    scheduler.release();
+                }
+                catch ( InterruptedException e )
+                {
+                    // ignored
+                }
+            }
+        };
+        thread.start();
+        for ( int i = 0; i < 500 && thread.getState() != Thread.State.WAITING; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        return thread;
+    }
+
+    @Test
+    public void testMetadataOvertakesQueuedArtifacts()
+        throws Exception
+    {
+        TransferScheduler scheduler = new TransferScheduler( 1, false );
+        assertTrue( scheduler.acquire( TransferScheduler.PRIORITY_ARTIFACT ) );
+
+        List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+        Thread jar = acquire( scheduler, order, "jar", TransferScheduler.PRIORITY_ARTIFACT );
+        Thread metadata = acquire( scheduler, order, "metadata", TransferScheduler.PRIORITY_METADATA );
+        assertTrue( order.isEmpty() );
+
+        scheduler.release();
+        jar.join( 5000 );
+        metadata.join( 5000 );
+
+        assertEquals( Arrays.asList( "metadata", "jar" ), order );
+    }
+
+    @Test
+    public void testUncapped()
+        throws Exception
+    {
+        assertFalse( new TransferScheduler( 0, false ).acquire() );
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.sonatype.aether.connector.file;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sonatype.aether.spi.io.FileProcessor;
+import org.sonatype.aether.util.ChecksumUtils;
+
+/**
+ * Calculates checksums for the data flowing through a file copy. This saves a second pass over the data to compute the
+ * checksums after the copy.
+ */
+class ChecksumCalculator
+    implements FileProcessor.ProgressListener
+{
+
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<String, MessageDigest>();
+
+    private final Map<String, Object> errors = new LinkedHashMap<String, Object>();
+
+    /**
+     * Creates a new calculator for the specified algorithms.
+     *
+     * @param algos The names of the checksum algorithms (cf. {@link MessageDigest#getInstance(String)}), must not be
+     *            {@code null}.
+     */
+    public ChecksumCalculator( Collection<String> algos )
+    {
+        for ( String algo : algos )
+        {
+            try
+            {
+                digests.put( algo, MessageDigest.getInstance( algo ) );
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                errors.put( algo, e );
+            }
+        }
+    }
+
+    public void progressed( ByteBuffer buffer )
+        throws IOException
+    {
+        for ( MessageDigest digest : digests.values() )
+        {
+            digest.update( buffer.duplicate() );
+        }
+    }
+
+    /**
+     * Gets the checksums of the data seen so far. This method may only be called once, after the copy completed.
+     *
+     * @return The calculated checksums, indexed by algorithm name, or the exception that occured while trying to
+     *         calculate it, never {@code null}.
+     * @see ChecksumUtils#calc(java.io.File, Collection)
+     */
+    public Map<String, Object> get()
+    {
+        Map<String, Object> results = new LinkedHashMap<String, Object>( errors );
+
+        for ( Map.Entry<String, MessageDigest> entry : digests.entrySet() )
+        {
+            results.put( entry.getKey(), ChecksumUtils.toHexString( entry.getValue().digest() ) );
+        }
+
+        return results;
+    }
+
+}
@@ -125,6 +125,18 @@ public class FileRepositoryConnector
         errorForwarder.await();
     }
 
+    @Override
+    public void close()
+    {
+        super.close();
+
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( "Closed connector to " + repository + ", completed transfers: " + getCompletedCount()
+                + ", max. parallel transfers: " + getLargestPoolSize() );
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -17,7 +17,8 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
@@ -30,6 +31,7 @@ import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.ArtifactTransfer;
 import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.ChecksumAlgorithms;
 import org.sonatype.aether.spi.connector.MetadataDownload;
 import org.sonatype.aether.spi.connector.MetadataTransfer;
 import org.sonatype.aether.spi.connector.MetadataUpload;
@@ -82,7 +84,7 @@ class FileRepositoryWorker
         }
     }
 
-    private static LinkedHashMap<String, String> checksumAlgos;
+    private final Map<String, String> checksumAlgos;
 
     private TransferWrapper transfer;
 
@@ -94,13 +96,6 @@ class FileRepositoryWorker
 
     private TransferResource resource;
 
-    static
-    {
-        checksumAlgos = new LinkedHashMap<String, String>( 4 );
-        checksumAlgos.put( "SHA-1", ".sha1" );
-        checksumAlgos.put( "MD5", ".md5" );
-    }
-
     private FileRepositoryWorker( ArtifactTransfer transfer, RemoteRepository repository, Direction direction,
                                   RepositorySystemSession session )
     {
@@ -188,6 +183,7 @@ class FileRepositoryWorker
 
         this.direction = direction;
         this.repository = repository;
+        this.checksumAlgos = ChecksumAlgorithms.getAlgorithms( session );
     }
 
     /**
@@ -232,17 +228,28 @@ class FileRepositoryWorker
             }
             else
             {
+                ChecksumCalculator calculator = null;
+                if ( Direction.UPLOAD.equals( direction ) )
+                {
+                    calculator = new ChecksumCalculator( checksumAlgos.keySet() );
+                }
+                else if ( !RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( transfer.getChecksumPolicy() ) )
+                {
+                    // only the strongest checksum available from the repository gets verified, skip the others
+                    calculator = new ChecksumCalculator( getVerifiableAlgorithms( src ) );
+                }
+
                 File tmp = tmpfile( target );
-                totalTransferred = copy( src, tmp );
+                totalTransferred = copy( src, tmp, calculator );
                 fileProcessor.move( tmp, target );
 
                 switch ( direction )
                 {
                     case UPLOAD:
-                        writeChecksum( src, target.getPath() );
+                        writeChecksum( calculator.get(), target.getPath() );
                         break;
                     case DOWNLOAD:
-                        verifyChecksum( src );
+                        verifyChecksum( src, calculator );
                         break;
                 }
             }
@@ -321,11 +328,10 @@ class FileRepositoryWorker
         }
     }
 
-    private void writeChecksum( File src, String targetPath )
+    private void writeChecksum( Map<String, Object> crcs, String targetPath )
         throws IOException, Throwable
     {
         // write checksum files
-        Map<String, Object> crcs = ChecksumUtils.calc( src, checksumAlgos.keySet() );
         for ( Entry<String, Object> crc : crcs.entrySet() )
         {
             String name = crc.getKey();
@@ -343,26 +349,26 @@ class FileRepositoryWorker
         }
     }
 
-    private void verifyChecksum( File src )
+    private void verifyChecksum( File src, ChecksumCalculator calculator )
         throws ChecksumFailureException, IOException, TransferCancelledException
     {
         if ( RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( transfer.getChecksumPolicy() ) )
         {
             return;
         }
-        Map<String, Object> crcs = ChecksumUtils.calc( src, checksumAlgos.keySet() );
+        Map<String, Object> crcs = calculator.get();
         boolean verified = false;
         try
         {
-            for ( Entry<String, String> entry : checksumAlgos.entrySet() )
+            for ( String algo : crcs.keySet() )
             {
                 try
                 {
-                    String sum = ChecksumUtils.read( new File( src.getPath() + entry.getValue() ) );
-                    verified = sum.equalsIgnoreCase( crcs.get( entry.getKey() ).toString() );
+                    String sum = ChecksumUtils.read( new File( src.getPath() + checksumAlgos.get( algo ) ) );
+                    verified = sum.equalsIgnoreCase( crcs.get( algo ).toString() );
                     if ( !verified )
                     {
-                        throw new ChecksumFailureException( sum, crcs.get( entry.getKey() ).toString() );
+                        throw new ChecksumFailureException( sum, crcs.get( algo ).toString() );
                     }
                     break;
                 }
@@ -392,7 +398,29 @@ class FileRepositoryWorker
         }
     }
 
-    private long copy( File src, File target )
+    /**
+     * Gets the strongest checksum algorithm whose checksum file exists next to the specified source file.
+     * 
+     * @return The name of the algorithm in a singleton collection or an empty collection if the repository offers no
+     *         checksums at all.
+     */
+    private Collection<String> getVerifiableAlgorithms( File src )
+    {
+        for ( Entry<String, String> entry : checksumAlgos.entrySet() )
+        {
+            if ( new File( src.getPath() + entry.getValue() ).isFile() )
+            {
+                return Collections.singleton( entry.getKey() );
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Copies the source to the target file. If a checksum calculator is given, it sees the copied data such that the
+     * checksums need not be computed by reading the file once more.
+     */
+    private long copy( File src, File target, final ChecksumCalculator calculator )
         throws TransferCancelledException, IOException
     {
         if ( src == null )
@@ -411,7 +439,13 @@ class FileRepositoryWorker
         DefaultTransferEvent event = newEvent( transfer );
         catapult.fireStarted( event );
 
-        return fileProcessor.copy( src, target, new FileProcessor.ProgressListener()
+        if ( !catapult.isListening() )
+        {
+            // without progress events, the file processor is free to copy without passing the data through user space
+            return fileProcessor.copy( src, target, calculator );
+        }
+
+        FileProcessor.ProgressListener listener = new FileProcessor.ProgressListener()
         {
 
             int total = 0;
@@ -419,6 +453,10 @@ class FileRepositoryWorker
             public void progressed( ByteBuffer buffer )
                 throws IOException
             {
+                if ( calculator != null )
+                {
+                    calculator.progressed( buffer );
+                }
                 total += buffer.remaining();
                 DefaultTransferEvent event = newEvent( transfer );
                 event.setDataBuffer( buffer ).setTransferredBytes( total );
@@ -431,7 +469,9 @@ class FileRepositoryWorker
                     throw new IOException( "Transfer was cancelled: " + e.getMessage() );
                 }
             }
-        } );
+        };
+
+        return fileProcessor.copy( src, target, listener );
     }
 
     private DefaultTransferEvent newEvent( TransferWrapper transfer )
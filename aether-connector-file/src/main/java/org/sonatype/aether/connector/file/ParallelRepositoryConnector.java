@@ -15,6 +15,7 @@ package org.sonatype.aether.connector.file;
 import static org.sonatype.aether.connector.file.FileRepositoryConnectorFactory.*;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -24,7 +25,9 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Provides methods to configure the used {@link ThreadPoolExecutor}.
+ * Provides methods to configure the used {@link ThreadPoolExecutor}. Each connector owns its executor, i.e. the
+ * transfers of different repositories do not compete for the same threads and the threads are released when the
+ * connector is closed.
  * 
  * @author Benjamin Hanzelmann
  */
@@ -39,16 +42,10 @@ abstract class ParallelRepositoryConnector
 
     private static final int MAX_POOL_SIZE = 5;
 
-    private static final int INITIAL_POOL_SIZE = 2;
-
     private static final long KEEPALIVE = 60L;
 
-    // private static final long SHUTDOWN_TIMEOUT = 5L;
-
     private Map<String, Object> config = Collections.emptyMap();
 
-    // private long shutdownTimeout;
-
     private boolean closed = false;
 
     /**
@@ -56,7 +53,7 @@ abstract class ParallelRepositoryConnector
      * 
      * @see #initExecutor()
      */
-    protected static ThreadPoolExecutor executor;
+    protected ThreadPoolExecutor executor;
 
     public ParallelRepositoryConnector( Map<String, Object> config )
     {
@@ -74,31 +71,48 @@ abstract class ParallelRepositoryConnector
     {
         if ( executor == null || forceInit )
         {
-            Object tgName = config.get( CFG_PREFIX + ".threads.groupname" );
-            Object tName = config.get( CFG_PREFIX + ".threads.name" );
-            Object maximumPoolSize = config.get( CFG_PREFIX + ".threads.max" );
-            Object initialPoolSize = config.get( CFG_PREFIX + ".threads.initial" );
-            Object keepAlive = config.get( CFG_PREFIX + ".threads.keepalive" );
-            // Object timeoutCfg = config.get( FileRepositoryConnectorFactory.CFG_PREFIX + ".shutdownTime" );
-
-            tgName = tgName != null ? tgName : TG_NAME;
-            tName = tName != null ? tName : T_NAME;
-            int mPS = maximumPoolSize != null ? Integer.valueOf( maximumPoolSize.toString() ) : MAX_POOL_SIZE;
-            int iPS = initialPoolSize != null ? Integer.valueOf( initialPoolSize.toString() ) : INITIAL_POOL_SIZE;
-            long kAlive = keepAlive != null ? Long.valueOf( keepAlive.toString() ) : KEEPALIVE;
-            // shutdownTimeout = timeoutCfg != null ? Long.valueOf( timeoutCfg.toString() ) : SHUTDOWN_TIMEOUT;
-
-            ThreadFactory threadFactory = new RepositoryConnectorThreadFactory( tgName.toString(), tName.toString() );
-            BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<Runnable>();
-            TimeUnit timeUnit = TimeUnit.SECONDS;
-
-            executor = new ThreadPoolExecutor( iPS, mPS, kAlive, timeUnit, workQueue, threadFactory );
+            if ( executor != null )
+            {
+                executor.shutdown();
+            }
+            executor = newExecutor( config );
         }
     }
 
+    /**
+     * Creates the executor for the transfers of this connector. Subclasses may override this method to employ a
+     * different execution strategy.
+     * 
+     * @param config The configuration properties of the connector, must not be {@code null}.
+     * @return The executor, never {@code null}.
+     */
+    protected ThreadPoolExecutor newExecutor( Map<String, Object> config )
+    {
+        Object tgName = config.get( CFG_PREFIX + ".threads.groupname" );
+        Object tName = config.get( CFG_PREFIX + ".threads.name" );
+        Object maximumPoolSize = config.get( CFG_PREFIX + ".threads.max" );
+        Object keepAlive = config.get( CFG_PREFIX + ".threads.keepalive" );
+
+        tgName = tgName != null ? tgName : TG_NAME;
+        tName = tName != null ? tName : T_NAME;
+        int mPS = maximumPoolSize != null ? Integer.valueOf( maximumPoolSize.toString() ) : MAX_POOL_SIZE;
+        long kAlive = keepAlive != null ? Long.valueOf( keepAlive.toString() ) : KEEPALIVE;
+
+        ThreadFactory threadFactory = new RepositoryConnectorThreadFactory( tgName.toString(), tName.toString() );
+        BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<Runnable>();
+        TimeUnit timeUnit = TimeUnit.SECONDS;
+
+        /*
+         * NOTE: The work queue is unbounded so the pool never grows beyond its core size, hence core and maximum size
+         * must be equal to actually employ the configured number of threads.
+         */
+        return new ThreadPoolExecutor( mPS, mPS, kAlive, timeUnit, workQueue, threadFactory );
+    }
+
     public void close()
     {
         this.closed = true;
+        executor.shutdown();
     }
 
     protected void checkClosed()
@@ -109,10 +123,44 @@ abstract class ParallelRepositoryConnector
         
     }
 
+    /**
+     * Gets the number of transfers that are currently being executed by this connector.
+     */
+    public int getActiveCount()
+    {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of transfers that are waiting for a thread.
+     */
+    public int getQueuedCount()
+    {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of transfers that have been completed by this connector.
+     */
+    public long getCompletedCount()
+    {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Gets the largest number of threads that were simultaneously used by this connector.
+     */
+    public int getLargestPoolSize()
+    {
+        return executor.getLargestPoolSize();
+    }
+
     protected static class RepositoryConnectorThreadFactory
         implements ThreadFactory
     {
 
+        private static final Map<String, ThreadGroup> THREAD_GROUPS = new HashMap<String, ThreadGroup>();
+
         private final ThreadGroup myTG;
 
         private final AtomicInteger counter = new AtomicInteger( 1 );
@@ -123,10 +171,25 @@ abstract class ParallelRepositoryConnector
         {
             super();
 
-            myTG = new ThreadGroup( Thread.currentThread().getThreadGroup().getParent(), tgName );
+            myTG = getThreadGroup( tgName );
             this.tName = tName;
         }
 
+        private static ThreadGroup getThreadGroup( String tgName )
+        {
+            // connectors are short-lived, share the groups to not accumulate them in the parent group
+            synchronized ( THREAD_GROUPS )
+            {
+                ThreadGroup group = THREAD_GROUPS.get( tgName );
+                if ( group == null )
+                {
+                    group = new ThreadGroup( Thread.currentThread().getThreadGroup().getParent(), tgName );
+                    THREAD_GROUPS.put( tgName, group );
+                }
+                return group;
+            }
+        }
+
         public Thread newThread( Runnable r )
         {
             Thread t = new Thread( myTG, r, tName + "-" + counter.getAndIncrement() );
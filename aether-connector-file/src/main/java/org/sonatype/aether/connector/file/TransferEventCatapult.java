@@ -40,6 +40,16 @@ class TransferEventCatapult
         }
     }
 
+    /**
+     * Indicates whether any listener is interested in the events, in particular in the progress of a transfer.
+     * 
+     * @return {@code true} if a listener has been registered, {@code false} otherwise.
+     */
+    protected boolean isListening()
+    {
+        return !( listener instanceof NoTransferListener );
+    }
+
     protected void fireInitiated( DefaultTransferEvent event )
         throws TransferCancelledException
     {
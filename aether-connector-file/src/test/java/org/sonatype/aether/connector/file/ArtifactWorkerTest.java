@@ -17,6 +17,9 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -27,6 +30,7 @@ import org.sonatype.aether.repository.RemoteRepository;
 import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.ChecksumAlgorithms;
 import org.sonatype.aether.spi.connector.MetadataDownload;
 import org.sonatype.aether.spi.connector.MetadataUpload;
 import org.sonatype.aether.test.impl.TestFileProcessor;
@@ -34,6 +38,7 @@ import org.sonatype.aether.test.impl.TestRepositorySystemSession;
 import org.sonatype.aether.test.util.TestFileUtils;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.ChecksumUtils;
 import org.sonatype.aether.util.artifact.DefaultArtifact;
 import org.sonatype.aether.util.metadata.DefaultMetadata;
 
@@ -78,6 +83,30 @@ public class ArtifactWorkerTest
         assertContentEquals( file, expectedContent );
     }
 
+    @Test
+    public void testConfiguredChecksumAlgorithms()
+        throws Exception
+    {
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( ChecksumAlgorithms.CONFIG_PROP_ALGORITHMS, "SHA-1,SHA-256" );
+        session.setConfigProperties( config );
+
+        DefaultArtifact artifact = new DefaultArtifact( "test", "artId1", "jar", "1" );
+        String expectedContent = "Dies ist ein Test.";
+
+        uploadArtifact( artifact, expectedContent );
+
+        File remote = new File( new File( new URI( repository.getUrl() ) ), layout.getPath( artifact ) );
+        String sha256 = ChecksumUtils.read( new File( remote.getPath() + ".sha256" ) );
+        assertEquals( ChecksumUtils.calc( remote, Collections.singleton( "SHA-256" ) ).get( "SHA-256" ), sha256 );
+        assertTrue( new File( remote.getPath() + ".sha1" ).exists() );
+        assertFalse( new File( remote.getPath() + ".md5" ).exists() );
+
+        TestFileUtils.write( "0000", new File( remote.getPath() + ".sha1" ) );
+        File file = downloadArtifact( artifact );
+        assertContentEquals( file, expectedContent );
+    }
+
     private File downloadArtifact( DefaultArtifact artifact )
         throws IOException, ArtifactTransferException
     {
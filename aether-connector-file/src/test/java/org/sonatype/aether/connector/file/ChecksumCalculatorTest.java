@@ -0,0 +1,50 @@
+package org.sonatype.aether.connector.file;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.util.ChecksumUtils;
+
+public class ChecksumCalculatorTest
+{
+
+    @Test
+    public void testChecksumsOfCopiedData()
+        throws Exception
+    {
+        File src = TestFileUtils.createTempFile( "checksummed content".getBytes( "UTF-8" ), 10000 );
+        File target = TestFileUtils.createTempFile( "" );
+
+        ChecksumCalculator calculator = new ChecksumCalculator( Arrays.asList( "SHA-1", "MD5", "unknown" ) );
+        new TestFileProcessor().copy( src, target, calculator );
+
+        Map<String, Object> expected = ChecksumUtils.calc( src, Arrays.asList( "SHA-1", "MD5" ) );
+        Map<String, Object> actual = calculator.get();
+
+        assertEquals( expected.get( "SHA-1" ), actual.get( "SHA-1" ) );
+        assertEquals( expected.get( "MD5" ), actual.get( "MD5" ) );
+        assertTrue( actual.get( "unknown" ) instanceof Exception );
+
+        src.delete();
+        target.delete();
+    }
+
+}
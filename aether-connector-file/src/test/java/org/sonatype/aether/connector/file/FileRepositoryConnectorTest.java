@@ -0,0 +1,95 @@
+package org.sonatype.aether.connector.file;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+public class FileRepositoryConnectorTest
+{
+
+    private File repoDir;
+
+    private RemoteRepository repository;
+
+    private TestRepositorySystemSession session;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        repoDir = TestFileUtils.createTempDir( "test-remote-repository" );
+        repository = new RemoteRepository( "test", "default", repoDir.toURI().toURL().toString() );
+        session = new TestRepositorySystemSession();
+    }
+
+    @After
+    public void cleanup()
+        throws Exception
+    {
+        TestFileUtils.delete( repoDir );
+    }
+
+    private FileRepositoryConnector newConnector()
+        throws Exception
+    {
+        return new FileRepositoryConnector( session, repository, TestFileProcessor.INSTANCE, NullLogger.INSTANCE );
+    }
+
+    @Test
+    public void testClosingConnectorDoesNotAffectOthers()
+        throws Exception
+    {
+        FileRepositoryConnector first = newConnector();
+        FileRepositoryConnector second = newConnector();
+        assertNotSame( first.executor, second.executor );
+
+        first.close();
+        assertTrue( first.executor.isShutdown() );
+
+        List<ArtifactUpload> uploads = new ArrayList<ArtifactUpload>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            File file = TestFileUtils.createTempFile( "artifact" + i );
+            uploads.add( new ArtifactUpload( new DefaultArtifact( "gid", "aid" + i, "jar", "1" ), file ) );
+        }
+        second.put( uploads, Collections.<MetadataUpload> emptyList() );
+
+        for ( ArtifactUpload upload : uploads )
+        {
+            assertNull( String.valueOf( upload.getException() ), upload.getException() );
+            assertTrue( new File( repoDir, "gid/" + upload.getArtifact().getArtifactId() + "/1" ).isDirectory() );
+        }
+        assertTrue( second.getLargestPoolSize() >= 1 );
+
+        second.close();
+        assertTrue( second.executor.isShutdown() );
+    }
+
+}
@@ -0,0 +1,373 @@
+package org.sonatype.aether.connector.wagon;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.maven.wagon.Wagon;
+
+/**
+ * A pool of connected wagons for a single repository. Wagons stay connected while idle in the pool such that
+ * subsequent transfers can reuse the underlying connections. The most recently used wagon is handed out first. Wagons
+ * that have been idle for longer than the configured timeout are evicted whenever a wagon is borrowed or handed back,
+ * i.e. without any transfers, idle wagons stay connected until the pool is closed. The Wagon API offers no means to
+ * check whether a connection is still alive so idle wagons are handed out as they are. The number of wagons in use
+ * and idle can be capped in which case a borrower waits for another transfer to return its wagon.
+ */
+class WagonPool
+{
+
+    /**
+     * Manages the lifecycle of the pooled wagons.
+     */
+    interface WagonFactory
+    {
+
+        /**
+         * Creates a new, not yet connected wagon.
+         */
+        Wagon create()
+            throws Exception;
+
+        /**
+         * Connects the specified wagon to the repository.
+         */
+        void connect( Wagon wagon )
+            throws Exception;
+
+        /**
+         * Disconnects and releases the specified wagon.
+         */
+        void destroy( Wagon wagon );
+
+    }
+
+    private final WagonFactory factory;
+
+    private final int maxSize;
+
+    private final long idleTimeout;
+
+    private final LinkedList<Entry> idle = new LinkedList<Entry>();
+
+    private int active;
+
+    private boolean closed;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long waitTime;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param factory The factory for the wagons, must not be {@code null}.
+     * @param maxSize The maximum number of wagons in use and idle, non-positive values denote no limit.
+     * @param idleTimeout The time in milliseconds after which an idle wagon is evicted, non-positive values disable
+     *            eviction.
+     */
+    public WagonPool( WagonFactory factory, int maxSize, long idleTimeout )
+    {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Gets a connected wagon from the pool, creating a new one if no idle wagon is available.
+     *
+     * @return The wagon, never {@code null}. The wagon must be handed back via {@link #release(Wagon)}.
+     * @throws Exception If a new wagon could not be created or connected.
+     */
+    public Wagon borrow()
+        throws Exception
+    {
+        Entry entry = null;
+        List<Entry> evicted;
+
+        synchronized ( this )
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "wagon pool closed" );
+            }
+
+            evicted = evictIdle();
+
+            long start = 0;
+            while ( idle.isEmpty() && maxSize > 0 && active >= maxSize )
+            {
+                if ( start == 0 )
+                {
+                    start = System.nanoTime();
+                }
+                wait();
+                if ( closed )
+                {
+                    throw new IllegalStateException( "wagon pool closed" );
+                }
+            }
+            if ( start != 0 )
+            {
+                waitTime += System.nanoTime() - start;
+            }
+
+            if ( !idle.isEmpty() )
+            {
+                entry = idle.removeFirst();
+            }
+            active++;
+        }
+
+        destroy( evicted );
+
+        Wagon wagon = ( entry != null ) ? entry.wagon : null;
+        boolean connected = entry != null && entry.connected;
+
+        synchronized ( this )
+        {
+            if ( connected )
+            {
+                hits++;
+            }
+            else
+            {
+                misses++;
+            }
+        }
+
+        if ( !connected )
+        {
+            try
+            {
+                if ( wagon == null )
+                {
+                    wagon = factory.create();
+                }
+                factory.connect( wagon );
+            }
+            catch ( Exception e )
+            {
+                if ( wagon != null )
+                {
+                    factory.destroy( wagon );
+                }
+                synchronized ( this )
+                {
+                    active--;
+                    notifyAll();
+                }
+                throw e;
+            }
+        }
+
+        return wagon;
+    }
+
+    /**
+     * Hands a wagon back to the pool.
+     *
+     * @param wagon The wagon previously obtained from {@link #borrow()}, must not be {@code null}.
+     */
+    public void release( Wagon wagon )
+    {
+        boolean destroy;
+        List<Entry> evicted = null;
+        synchronized ( this )
+        {
+            active--;
+            destroy = closed;
+            if ( !destroy )
+            {
+                evicted = evictIdle();
+                idle.addFirst( new Entry( wagon, true ) );
+            }
+            notifyAll();
+        }
+        if ( destroy )
+        {
+            factory.destroy( wagon );
+        }
+        destroy( evicted );
+    }
+
+    /**
+     * Adds a wagon that is not (yet) in use to the pool.
+     *
+     * @param wagon The wagon to add, may be disconnected but must not be {@code null}.
+     */
+    public synchronized void add( Wagon wagon )
+    {
+        idle.addLast( new Entry( wagon, false ) );
+    }
+
+    /**
+     * Connects the specified number of wagons in advance such that the first transfers need not wait for a connection.
+     *
+     * @param count The number of wagons to connect.
+     * @throws Exception If a wagon could not be connected.
+     */
+    public void warmUp( int count )
+        throws Exception
+    {
+        if ( maxSize > 0 )
+        {
+            count = Math.min( count, maxSize );
+        }
+
+        List<Wagon> wagons = new ArrayList<Wagon>();
+        try
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                wagons.add( borrow() );
+            }
+        }
+        finally
+        {
+            for ( Wagon wagon : wagons )
+            {
+                release( wagon );
+            }
+        }
+    }
+
+    /**
+     * Disconnects all idle wagons and disables further use of the pool. Wagons that are still in use get disconnected
+     * when they are handed back.
+     */
+    public void close()
+    {
+        List<Entry> entries;
+        synchronized ( this )
+        {
+            closed = true;
+            entries = new ArrayList<Entry>( idle );
+            idle.clear();
+            notifyAll();
+        }
+        destroy( entries );
+    }
+
+    private List<Entry> evictIdle()
+    {
+        List<Entry> evicted = null;
+        if ( idleTimeout > 0 )
+        {
+            long now = System.currentTimeMillis();
+            for ( Iterator<Entry> it = idle.iterator(); it.hasNext(); )
+            {
+                Entry entry = it.next();
+                if ( now - entry.released > idleTimeout )
+                {
+                    it.remove();
+                    if ( evicted == null )
+                    {
+                        evicted = new ArrayList<Entry>();
+                    }
+                    evicted.add( entry );
+                    evictions++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private void destroy( List<Entry> entries )
+    {
+        if ( entries != null )
+        {
+            for ( Entry entry : entries )
+            {
+                factory.destroy( entry.wagon );
+            }
+        }
+    }
+
+    /**
+     * Gets the number of times a connected wagon could be reused.
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Gets the number of times a wagon had to be created or connected.
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Gets the number of idle wagons that were evicted due to the timeout.
+     */
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * Gets the total time in milliseconds that borrowers had to wait for a wagon due to the size limit.
+     */
+    public synchronized long getWaitTime()
+    {
+        return waitTime / ( 1000 * 1000 );
+    }
+
+    public synchronized int getIdleCount()
+    {
+        return idle.size();
+    }
+
+    public synchronized int getActiveCount()
+    {
+        return active;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", waitTime=" + getWaitTime()
+            + "ms, idle=" + idle.size() + ", active=" + active;
+    }
+
+    static class Entry
+    {
+
+        final Wagon wagon;
+
+        /**
+         * Whether the wagon was connected by the pool, wagons added from outside still need to be connected.
+         */
+        final boolean connected;
+
+        final long released = System.currentTimeMillis();
+
+        Entry( Wagon wagon, boolean connected )
+        {
+            this.wagon = wagon;
+            this.connected = connected;
+        }
+
+    }
+
+}
@@ -15,6 +15,7 @@ package org.sonatype.aether.connector.wagon;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,19 +23,21 @@ import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Queue;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.WagonException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
 import org.apache.maven.wagon.observers.ChecksumObserver;
 import org.apache.maven.wagon.proxy.ProxyInfo;
 import org.apache.maven.wagon.proxy.ProxyInfoProvider;
@@ -49,6 +52,7 @@ import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.ArtifactTransfer;
 import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.ChecksumAlgorithms;
 import org.sonatype.aether.spi.connector.MetadataDownload;
 import org.sonatype.aether.spi.connector.MetadataTransfer;
 import org.sonatype.aether.spi.connector.MetadataUpload;
@@ -64,8 +68,12 @@ import org.sonatype.aether.transfer.MetadataTransferException;
 import org.sonatype.aether.transfer.NoRepositoryConnectorException;
 import org.sonatype.aether.transfer.TransferEvent;
 import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.CacheValidators;
+import org.sonatype.aether.util.ChecksumCache;
 import org.sonatype.aether.util.ChecksumUtils;
 import org.sonatype.aether.util.StringUtils;
+import org.sonatype.aether.util.TransferRetryPolicy;
+import org.sonatype.aether.util.concurrency.AdaptiveConcurrencyLimiter;
 import org.sonatype.aether.util.concurrency.RunnableErrorForwarder;
 import org.sonatype.aether.util.layout.MavenDefaultLayout;
 import org.sonatype.aether.util.layout.RepositoryLayout;
@@ -90,6 +98,21 @@ class WagonRepositoryConnector
 
     private static final String PROP_GROUP = "aether.connector.perms.group";
 
+    private static final String PROP_CONDITIONAL_GET = "aether.connector.conditionalGet";
+
+    private static final String PROP_POOL_SIZE = "aether.connector.wagon.poolSize";
+
+    private static final String PROP_WARM_UP = "aether.connector.wagon.warmUp";
+
+    private static final String PROP_IDLE_TIMEOUT = "aether.connector.wagon.idleTimeout";
+
+    /*
+     * NOTE: Wagon does not expose the HTTP status of a failed transfer, the status code is only part of the message.
+     */
+    private static final Pattern OVERLOADED = Pattern.compile( "\\b(429|503)\\b" );
+
+    private static final Pattern STATUS_CODE = Pattern.compile( "(?i)return code is:?\\s*(\\d{3})" );
+
     private final Logger logger;
 
     private final FileProcessor fileProcessor;
@@ -114,7 +137,7 @@ class WagonRepositoryConnector
 
     private final TransferListener listener;
 
-    private final Queue<Wagon> wagons = new ConcurrentLinkedQueue<Wagon>();
+    private final WagonPool wagons;
 
     private final Executor executor;
 
@@ -122,6 +145,12 @@ class WagonRepositoryConnector
 
     private final Map<String, String> checksumAlgos;
 
+    private final boolean conditionalGet;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final TransferRetryPolicy retryPolicy;
+
     public WagonRepositoryConnector( WagonProvider wagonProvider, WagonConfigurator wagonConfigurator,
                                      RemoteRepository repository, RepositorySystemSession session,
                                      FileProcessor fileProcessor, Logger logger )
@@ -149,6 +178,28 @@ class WagonRepositoryConnector
             throw new NoRepositoryConnectorException( repository );
         }
 
+        wagonAuth = getAuthenticationInfo( repository );
+        wagonProxy = getProxy( repository );
+
+        int threads = ConfigurationProperties.get( session, PROP_THREADS, Integer.MIN_VALUE );
+        if ( threads == Integer.MIN_VALUE )
+        {
+            threads = ConfigurationProperties.get( session, "maven.artifact.threads", 5 );
+        }
+        limiter = AdaptiveConcurrencyLimiter.get( session, repository );
+        if ( limiter != null )
+        {
+            // the limiter throttles the transfers, the pool merely needs to be large enough to not constrain it
+            threads = Math.max( threads, limiter.getMaxLimit() );
+        }
+
+        /*
+         * NOTE: Besides the worker threads, the thread calling put() needs a wagon as well.
+         */
+        int poolSize = ConfigurationProperties.get( session, PROP_POOL_SIZE, Math.max( threads, 1 ) + 1 );
+        int idleTimeout = ConfigurationProperties.get( session, PROP_IDLE_TIMEOUT, 60 * 1000 );
+        wagons = new WagonPool( new PooledWagonFactory(), poolSize, idleTimeout );
+
         try
         {
             wagons.add( lookupWagon() );
@@ -159,19 +210,14 @@ class WagonRepositoryConnector
             throw new NoRepositoryConnectorException( repository );
         }
 
-        wagonAuth = getAuthenticationInfo( repository );
-        wagonProxy = getProxy( repository );
-
-        int threads = ConfigurationProperties.get( session, PROP_THREADS, Integer.MIN_VALUE );
-        if ( threads == Integer.MIN_VALUE )
-        {
-            threads = ConfigurationProperties.get( session, "maven.artifact.threads", 5 );
-        }
         executor = getExecutor( threads );
 
-        checksumAlgos = new LinkedHashMap<String, String>();
-        checksumAlgos.put( "SHA-1", ".sha1" );
-        checksumAlgos.put( "MD5", ".md5" );
+        checksumAlgos = ChecksumAlgorithms.getAlgorithms( session );
+
+        conditionalGet = ConfigurationProperties.get( session, PROP_CONDITIONAL_GET, true );
+        retryPolicy = TransferRetryPolicy.newInstance( session );
+
+        warmUp( ConfigurationProperties.get( session, PROP_WARM_UP, 0 ) );
     }
 
     private Executor getExecutor( int threads )
@@ -361,35 +407,95 @@ class WagonRepositoryConnector
     Wagon pollWagon()
         throws Exception
     {
-        Wagon wagon = wagons.poll();
+        return wagons.borrow();
+    }
+
+    class PooledWagonFactory
+        implements WagonPool.WagonFactory
+    {
 
-        if ( wagon == null )
+        public Wagon create()
+            throws Exception
         {
-            try
-            {
-                wagon = lookupWagon();
-                connectWagon( wagon );
-            }
-            catch ( Exception e )
+            return lookupWagon();
+        }
+
+        public void connect( Wagon wagon )
+            throws Exception
+        {
+            connectWagon( wagon );
+        }
+
+        public void destroy( Wagon wagon )
+        {
+            disconnectWagon( wagon );
+            releaseWagon( wagon );
+        }
+
+    }
+
+    private void warmUp( final int count )
+    {
+        if ( count <= 0 )
+        {
+            return;
+        }
+
+        // connect in the background, a transfer that is scheduled meanwhile will simply connect on its own
+        executor.execute( new Runnable()
+        {
+            public void run()
             {
-                releaseWagon( wagon );
-                throw e;
+                try
+                {
+                    wagons.warmUp( count );
+                }
+                catch ( Exception e )
+                {
+                    logger.debug( "Could not pre-connect to " + wagonRepo.getUrl() + ": " + e.getMessage(), e );
+                }
             }
+        } );
+    }
+
+    private long acquirePermit()
+        throws InterruptedException
+    {
+        return ( limiter != null ) ? limiter.acquire() : 0;
+    }
+
+    private void releasePermit( long started, Exception exception )
+    {
+        if ( limiter != null )
+        {
+            limiter.release( started, isOverloaded( exception ) );
         }
-        else if ( wagon.getRepository() == null )
+    }
+
+    private static boolean isOverloaded( Throwable exception )
+    {
+        for ( Throwable t = exception; t != null; t = t.getCause() )
         {
-            try
+            if ( t.getMessage() != null && OVERLOADED.matcher( t.getMessage() ).find() )
             {
-                connectWagon( wagon );
+                return true;
             }
-            catch ( Exception e )
+        }
+        return false;
+    }
+
+    private boolean isRetryable( TransferFailedException exception )
+    {
+        for ( Throwable t = exception; t != null; t = t.getCause() )
+        {
+            Matcher matcher = ( t.getMessage() != null ) ? STATUS_CODE.matcher( t.getMessage() ) : null;
+            if ( matcher != null && matcher.find() )
             {
-                wagons.add( wagon );
-                throw e;
+                return retryPolicy.isRetryable( Integer.parseInt( matcher.group( 1 ) ) );
             }
         }
-
-        return wagon;
+        // no status code, i.e. an I/O error like a connection reset or timeout
+        return true;
     }
 
     private <T> Collection<T> safe( Collection<T> items )
@@ -428,7 +534,7 @@ class WagonRepositoryConnector
             String resource = layout.getPath( download.getMetadata() ).getPath();
             GetTask<?> task =
                 new GetTask<MetadataTransfer>( resource, download.getFile(), download.getChecksumPolicy(), download,
-                                               METADATA );
+                                               METADATA, conditionalGet );
             tasks.add( task );
             executor.execute( errorForwarder.wrap( task ) );
         }
@@ -438,7 +544,7 @@ class WagonRepositoryConnector
             String resource = layout.getPath( download.getArtifact() ).getPath();
             GetTask<?> task =
                 new GetTask<ArtifactTransfer>( resource, download.isExistenceCheck() ? null : download.getFile(),
-                                               download.getChecksumPolicy(), download, ARTIFACT );
+                                               download.getChecksumPolicy(), download, ARTIFACT, false );
             tasks.add( task );
             executor.execute( errorForwarder.wrap( task ) );
         }
@@ -485,10 +591,11 @@ class WagonRepositoryConnector
     {
         closed = true;
 
-        for ( Wagon wagon = wagons.poll(); wagon != null; wagon = wagons.poll() )
+        wagons.close();
+
+        if ( logger.isDebugEnabled() )
         {
-            disconnectWagon( wagon );
-            releaseWagon( wagon );
+            logger.debug( "Wagon pool for " + repository.getId() + ": " + wagons );
         }
 
         shutdown( executor );
@@ -538,13 +645,17 @@ class WagonRepositoryConnector
 
         private final ExceptionWrapper<T> wrapper;
 
-        public GetTask( String path, File file, String checksumPolicy, T download, ExceptionWrapper<T> wrapper )
+        private final boolean conditional;
+
+        public GetTask( String path, File file, String checksumPolicy, T download, ExceptionWrapper<T> wrapper,
+                        boolean conditional )
         {
             this.path = path;
             this.file = file;
             this.checksumPolicy = checksumPolicy;
             this.download = download;
             this.wrapper = wrapper;
+            this.conditional = conditional && file != null;
         }
 
         public T getDownload()
@@ -561,6 +672,30 @@ class WagonRepositoryConnector
         {
             download.setState( Transfer.State.ACTIVE );
 
+            long started;
+            try
+            {
+                started = acquirePermit();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                exception = e;
+                return;
+            }
+
+            try
+            {
+                transfer();
+            }
+            finally
+            {
+                releasePermit( started, exception );
+            }
+        }
+
+        private void transfer()
+        {
             WagonTransferListenerAdapter wagonListener = null;
             if ( listener != null )
             {
@@ -594,15 +729,27 @@ class WagonRepositoryConnector
                     }
                     else
                     {
+                        /*
+                         * NOTE: Wagon only supports the last-modified timestamp as validator, an existing local copy
+                         * that is still up-to-date is left untouched.
+                         */
+                        CacheValidators validators = conditional ? CacheValidators.read( file ) : null;
+                        long ifModifiedSince = ( validators != null ) ? validators.getLastModified() : 0;
+
+                        boolean modified = true;
+                        LastModifiedObserver lastModified = new LastModifiedObserver();
+
                         for ( int trial = 1; trial >= 0; trial-- )
                         {
-                            ChecksumObserver sha1 = new ChecksumObserver( "SHA-1" );
-                            ChecksumObserver md5 = new ChecksumObserver( "MD5" );
+                            Map<String, ChecksumObserver> checksums = newChecksumObservers();
                             try
                             {
                                 wagon.addTransferListener( wagonListener );
-                                wagon.addTransferListener( md5 );
-                                wagon.addTransferListener( sha1 );
+                                for ( ChecksumObserver checksum : checksums.values() )
+                                {
+                                    wagon.addTransferListener( checksum );
+                                }
+                                wagon.addTransferListener( lastModified );
 
                                 /*
                                  * NOTE: AbstractWagon.createParentDirectories() uses File.mkdirs() which is not
@@ -610,16 +757,19 @@ class WagonRepositoryConnector
                                  */
                                 fileProcessor.mkdirs( tmp.getParentFile() );
 
-                                wagon.get( path, tmp );
+                                modified = fetch( wagon, tmp, ifModifiedSince, wagonListener );
                             }
                             finally
                             {
                                 wagon.removeTransferListener( wagonListener );
-                                wagon.removeTransferListener( md5 );
-                                wagon.removeTransferListener( sha1 );
+                                for ( ChecksumObserver checksum : checksums.values() )
+                                {
+                                    wagon.removeTransferListener( checksum );
+                                }
+                                wagon.removeTransferListener( lastModified );
                             }
 
-                            if ( RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolicy ) )
+                            if ( !modified || RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolicy ) )
                             {
                                 break;
                             }
@@ -627,8 +777,7 @@ class WagonRepositoryConnector
                             {
                                 try
                                 {
-                                    if ( !verifyChecksum( wagon, sha1.getActualChecksum(), ".sha1" )
-                                        && !verifyChecksum( wagon, md5.getActualChecksum(), ".md5" ) )
+                                    if ( !verifyChecksums( wagon, checksums, tmp ) )
                                     {
                                         trial = 0;
                                         throw new ChecksumFailureException( "Checksum validation failed"
@@ -654,7 +803,15 @@ class WagonRepositoryConnector
                             }
                         }
 
-                        rename( tmp, file );
+                        if ( modified )
+                        {
+                            rename( tmp, file );
+
+                            if ( conditional )
+                            {
+                                CacheValidators.write( file, new CacheValidators( null, lastModified.get() ) );
+                            }
+                        }
                     }
 
                     if ( listener != null )
@@ -671,7 +828,7 @@ class WagonRepositoryConnector
                     {
                         tmp.delete();
                     }
-                    wagons.add( wagon );
+                    wagons.release( wagon );
                 }
             }
             catch ( Exception e )
@@ -689,6 +846,53 @@ class WagonRepositoryConnector
             }
         }
 
+        private boolean fetch( Wagon wagon, File tmp, long ifModifiedSince,
+                               WagonTransferListenerAdapter wagonListener )
+            throws Exception
+        {
+            for ( int attempt = 1;; attempt++ )
+            {
+                try
+                {
+                    if ( ifModifiedSince > 0 )
+                    {
+                        return wagon.getIfNewer( path, tmp, ifModifiedSince );
+                    }
+                    wagon.get( path, tmp );
+                    return true;
+                }
+                catch ( TransferFailedException e )
+                {
+                    if ( !retryPolicy.canRetry( attempt ) || !isRetryable( e ) )
+                    {
+                        throw e;
+                    }
+
+                    logger.debug( "Retrying download of " + path + " from " + wagonRepo.getUrl() + " after attempt "
+                        + attempt + " failed: " + e.getMessage() );
+
+                    if ( listener != null )
+                    {
+                        DefaultTransferEvent event = wagonListener.newEvent();
+                        event.setRequestType( TransferEvent.RequestType.GET );
+                        event.setType( TransferEvent.EventType.INITIATED );
+                        event.setException( e );
+                        listener.transferInitiated( event );
+                    }
+
+                    try
+                    {
+                        retryPolicy.await( attempt );
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+
         public void flush()
         {
             flush( null );
@@ -701,7 +905,37 @@ class WagonRepositoryConnector
             download.setState( Transfer.State.DONE );
         }
 
-        private boolean verifyChecksum( Wagon wagon, String actual, String ext )
+        /**
+         * Creates the observer for the strongest checksum algorithm only, the repository is expected to offer that
+         * checksum in the common case so the download needs to be hashed only once.
+         */
+        private Map<String, ChecksumObserver> newChecksumObservers()
+            throws NoSuchAlgorithmException
+        {
+            Map<String, ChecksumObserver> checksums = new LinkedHashMap<String, ChecksumObserver>();
+            if ( !checksumAlgos.isEmpty() )
+            {
+                String algo = checksumAlgos.keySet().iterator().next();
+                checksums.put( algo, new ChecksumObserver( algo ) );
+            }
+            return checksums;
+        }
+
+        private boolean verifyChecksums( Wagon wagon, Map<String, ChecksumObserver> checksums, File data )
+            throws ChecksumFailureException
+        {
+            for ( Map.Entry<String, String> entry : checksumAlgos.entrySet() )
+            {
+                if ( verifyChecksum( wagon, entry.getKey(), entry.getValue(), checksums, data ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean verifyChecksum( Wagon wagon, String algo, String ext, Map<String, ChecksumObserver> checksums,
+                                        File data )
             throws ChecksumFailureException
         {
             File tmp = getTmpFile( file.getPath() + ext );
@@ -732,6 +966,8 @@ class WagonRepositoryConnector
                     throw new ChecksumFailureException( e );
                 }
 
+                String actual = getActualChecksum( algo, checksums, data );
+
                 if ( expected.equalsIgnoreCase( actual ) )
                 {
                     try
@@ -756,6 +992,35 @@ class WagonRepositoryConnector
             return true;
         }
 
+        /**
+         * Gets the checksum of the downloaded data, only hashing the file if the checksum was not calculated during
+         * the download.
+         */
+        private String getActualChecksum( String algo, Map<String, ChecksumObserver> checksums, File data )
+            throws ChecksumFailureException
+        {
+            ChecksumObserver observer = checksums.get( algo );
+            if ( observer != null )
+            {
+                return observer.getActualChecksum();
+            }
+
+            Object checksum;
+            try
+            {
+                checksum = ChecksumUtils.calc( data, Collections.singleton( algo ) ).get( algo );
+            }
+            catch ( IOException e )
+            {
+                throw new ChecksumFailureException( e );
+            }
+            if ( checksum instanceof Throwable )
+            {
+                throw new ChecksumFailureException( (Throwable) checksum );
+            }
+            return String.valueOf( checksum );
+        }
+
         private void rename( File from, File to )
             throws IOException
         {
@@ -802,6 +1067,30 @@ class WagonRepositoryConnector
         {
             upload.setState( Transfer.State.ACTIVE );
 
+            long started;
+            try
+            {
+                started = acquirePermit();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                exception = e;
+                return;
+            }
+
+            try
+            {
+                transfer();
+            }
+            finally
+            {
+                releasePermit( started, exception );
+            }
+        }
+
+        private void transfer()
+        {
             WagonTransferListenerAdapter wagonListener = null;
             if ( listener != null )
             {
@@ -846,7 +1135,7 @@ class WagonRepositoryConnector
                 }
                 finally
                 {
-                    wagons.add( wagon );
+                    wagons.release( wagon );
                 }
             }
             catch ( Exception e )
@@ -874,7 +1163,7 @@ class WagonRepositoryConnector
         {
             try
             {
-                Map<String, Object> checksums = ChecksumUtils.calc( file, checksumAlgos.keySet() );
+                Map<String, Object> checksums = ChecksumCache.getInstance().calc( file, checksumAlgos.keySet() );
                 for ( Map.Entry<String, Object> entry : checksums.entrySet() )
                 {
                     uploadChecksum( wagon, file, path, entry.getKey(), entry.getValue() );
@@ -916,6 +1205,28 @@ class WagonRepositoryConnector
 
     }
 
+    /**
+     * Records the last-modified timestamp of the transferred resource as reported by the wagon.
+     */
+    static class LastModifiedObserver
+        extends AbstractTransferListener
+    {
+
+        private long lastModified;
+
+        @Override
+        public void transferStarted( org.apache.maven.wagon.events.TransferEvent event )
+        {
+            lastModified = event.getResource().getLastModified();
+        }
+
+        public long get()
+        {
+            return lastModified;
+        }
+
+    }
+
     static interface ExceptionWrapper<T>
     {
 
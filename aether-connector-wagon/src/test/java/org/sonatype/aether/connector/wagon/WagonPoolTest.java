@@ -0,0 +1,197 @@
+package org.sonatype.aether.connector.wagon;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.Test;
+
+public class WagonPoolTest
+{
+
+    static class RecordingFactory
+        implements WagonPool.WagonFactory
+    {
+
+        final AtomicInteger created = new AtomicInteger();
+
+        final AtomicInteger connected = new AtomicInteger();
+
+        final AtomicInteger destroyed = new AtomicInteger();
+
+        public Wagon create()
+        {
+            created.incrementAndGet();
+            return (Wagon) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { Wagon.class },
+                                                   new InvocationHandler()
+                                                   {
+                                                       private Repository repository;
+
+                                                       public Object invoke( Object proxy, Method method,
+                                                                             Object[] args )
+                                                       {
+                                                           if ( "connect".equals( method.getName() ) )
+                                                           {
+                                                               repository = new Repository( "test", "http://test" );
+                                                           }
+                                                           else if ( "disconnect".equals( method.getName() ) )
+                                                           {
+                                                               repository = null;
+                                                           }
+                                                           else if ( "getRepository".equals( method.getName() ) )
+                                                           {
+                                                               return repository;
+                                                           }
+                                                           return null;
+                                                       }
+                                                   } );
+        }
+
+        public void connect( Wagon wagon )
+            throws Exception
+        {
+            connected.incrementAndGet();
+            wagon.connect( null );
+        }
+
+        public void destroy( Wagon wagon )
+        {
+            destroyed.incrementAndGet();
+        }
+
+    }
+
+    @Test
+    public void testReuseConnectedWagon()
+        throws Exception
+    {
+        RecordingFactory factory = new RecordingFactory();
+        WagonPool pool = new WagonPool( factory, 2, 0 );
+
+        Wagon wagon = pool.borrow();
+        pool.release( wagon );
+        assertSame( wagon, pool.borrow() );
+        pool.release( wagon );
+
+        assertEquals( 1, factory.created.get() );
+        assertEquals( 1, factory.connected.get() );
+        assertEquals( 1, pool.getHits() );
+        assertEquals( 1, pool.getMisses() );
+
+        pool.close();
+        assertEquals( 1, factory.destroyed.get() );
+    }
+
+    @Test
+    public void testConnectAddedWagon()
+        throws Exception
+    {
+        RecordingFactory factory = new RecordingFactory();
+        WagonPool pool = new WagonPool( factory, 2, 0 );
+
+        Wagon wagon = factory.create();
+        pool.add( wagon );
+        assertSame( wagon, pool.borrow() );
+        assertEquals( 1, factory.connected.get() );
+        assertEquals( 1, pool.getMisses() );
+    }
+
+    @Test
+    public void testIdleEviction()
+        throws Exception
+    {
+        RecordingFactory factory = new RecordingFactory();
+        WagonPool pool = new WagonPool( factory, 2, 1 );
+
+        Wagon wagon = pool.borrow();
+        pool.release( wagon );
+        Thread.sleep( 50 );
+
+        assertNotSame( wagon, pool.borrow() );
+        assertEquals( 1, pool.getEvictions() );
+        assertEquals( 1, factory.destroyed.get() );
+    }
+
+    @Test
+    public void testIdleEvictionOnRelease()
+        throws Exception
+    {
+        RecordingFactory factory = new RecordingFactory();
+        WagonPool pool = new WagonPool( factory, 2, 1 );
+
+        Wagon wagon1 = pool.borrow();
+        Wagon wagon2 = pool.borrow();
+        pool.release( wagon1 );
+        Thread.sleep( 50 );
+        pool.release( wagon2 );
+
+        assertEquals( 1, pool.getEvictions() );
+        assertEquals( 1, factory.destroyed.get() );
+        assertEquals( 1, pool.getIdleCount() );
+    }
+
+    @Test
+    public void testWarmUp()
+        throws Exception
+    {
+        RecordingFactory factory = new RecordingFactory();
+        WagonPool pool = new WagonPool( factory, 3, 0 );
+
+        pool.warmUp( 5 );
+        assertEquals( 3, pool.getIdleCount() );
+        assertEquals( 0, pool.getActiveCount() );
+        assertEquals( 3, factory.connected.get() );
+    }
+
+    @Test
+    public void testBorrowWaitsAtMaxSize()
+        throws Exception
+    {
+        RecordingFactory factory = new RecordingFactory();
+        final WagonPool pool = new WagonPool( factory, 1, 0 );
+
+        final Wagon wagon = pool.borrow();
+
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    pool.release( pool.borrow() );
+                }
+                catch ( Exception e )
+                {
+                    // ignored
+                }
+            }
+        };
+        thread.start();
+        thread.join( 200 );
+        assertTrue( thread.isAlive() );
+
+        pool.release( wagon );
+        thread.join( 5000 );
+        assertFalse( thread.isAlive() );
+        assertEquals( 1, factory.created.get() );
+    }
+
+}
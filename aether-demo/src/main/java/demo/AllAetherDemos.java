@@ -27,6 +27,7 @@ public class AllAetherDemos
         GetDependencyTree.main( args );
         ResolveArtifact.main( args );
         ResolveTransitiveDependencies.main( args );
+        BuildOfflineRepository.main( args );
         InstallArtifacts.main( args );
         DeployArtifacts.main( args );
     }
@@ -0,0 +1,70 @@
+package demo;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.aether.RepositorySystem;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.artifact.JavaScopes;
+import org.sonatype.aether.util.repository.OfflineRepositoryBuilder;
+import org.sonatype.aether.util.repository.OfflineRepositoryResult;
+
+import demo.util.Booter;
+
+/**
+ * Copies the dependencies of several artifacts into a directory that can be used as an offline file:// repository.
+ */
+public class BuildOfflineRepository
+{
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        System.out.println( "------------------------------------------------------------" );
+        System.out.println( BuildOfflineRepository.class.getSimpleName() );
+
+        RepositorySystem system = Booter.newRepositorySystem();
+
+        RepositorySystemSession session = Booter.newRepositorySystemSession( system );
+
+        RemoteRepository repo = new RemoteRepository( "central", "default", "http://repo1.maven.org/maven2/" );
+
+        List<CollectRequest> roots = new ArrayList<CollectRequest>();
+        for ( String coords : new String[] { "org.sonatype.aether:aether-impl:1.9", "junit:junit:4.8.2" } )
+        {
+            Dependency root = new Dependency( new DefaultArtifact( coords ), JavaScopes.COMPILE );
+            roots.add( new CollectRequest( root, Collections.singletonList( repo ) ) );
+        }
+
+        OfflineRepositoryBuilder builder = new OfflineRepositoryBuilder( system );
+        builder.setRemoteLayoutDirectory( new File( "target/offline-repo" ) );
+
+        OfflineRepositoryResult result = builder.build( session, roots );
+
+        System.out.println( "Stored " + result.getArtifacts().size() + " artifacts, manifest lists "
+            + result.getManifest().size() + " files" );
+        for ( Exception e : result.getExceptions() )
+        {
+            System.out.println( "Failure: " + e.getMessage() );
+        }
+    }
+
+}
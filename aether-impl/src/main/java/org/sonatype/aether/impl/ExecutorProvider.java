@@ -0,0 +1,49 @@
+package org.sonatype.aether.impl;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the threads that repository system components use to process the parts of a request in parallel. The
+ * threads are owned by the provider and shared among all requests and components such that they can be reused instead
+ * of being created anew for each request.
+ */
+public interface ExecutorProvider
+{
+
+    /**
+     * Gets an executor for the tasks of a single request. The executor runs at most the specified number of tasks
+     * concurrently, additional tasks are queued until a running task completes. The executor needs no shutdown.
+     * 
+     * @param threads The maximum number of tasks to run concurrently, values less than {@code 2} request the tasks to be
+     *            run directly by the calling thread.
+     * @return The executor, never {@code null}.
+     */
+    Executor getExecutor( int threads );
+
+    /**
+     * Gets the number of tasks that are currently being run.
+     * 
+     * @return The number of running tasks.
+     */
+    int getActiveCount();
+
+    /**
+     * Gets the number of tasks that are waiting to be run.
+     * 
+     * @return The number of queued tasks.
+     */
+    int getQueuedCount();
+
+}
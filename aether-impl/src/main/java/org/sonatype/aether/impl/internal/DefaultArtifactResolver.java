@@ -237,6 +237,8 @@ public class DefaultArtifactResolver
 
         List<ResolutionGroup> groups = new ArrayList<ResolutionGroup>();
 
+        SnapshotVersionCache snapshots = SnapshotVersionCache.get( session );
+
         for ( ArtifactRequest request : requests )
         {
             RequestTrace trace = DefaultRequestTrace.newChild( request.getTrace(), request );
@@ -268,26 +270,53 @@ public class DefaultArtifactResolver
                 continue;
             }
 
-            VersionResult versionResult;
-            try
+            SnapshotVersionCache.Entry cached = null;
+            if ( snapshots != null && SnapshotVersionCache.isCacheable( artifact ) )
+            {
+                cached = snapshots.find( artifact, repos, request.getRequestContext() );
+                if ( cached != null && isExpired( session, cached, repos ) )
+                {
+                    cached = null;
+                }
+            }
+
+            String version;
+            ArtifactRepository versionRepository;
+            if ( cached != null )
             {
-                VersionRequest versionRequest = new VersionRequest( artifact, repos, request.getRequestContext() );
-                versionRequest.setTrace( trace );
-                versionResult = versionResolver.resolveVersion( session, versionRequest );
+                version = cached.version;
+                versionRepository = cached.repository;
             }
-            catch ( VersionResolutionException e )
+            else
             {
-                result.addException( e );
-                continue;
+                long generation = ( snapshots != null ) ? snapshots.getGeneration( artifact ) : 0;
+                VersionResult versionResult;
+                try
+                {
+                    VersionRequest versionRequest = new VersionRequest( artifact, repos, request.getRequestContext() );
+                    versionRequest.setTrace( trace );
+                    versionResult = versionResolver.resolveVersion( session, versionRequest );
+                }
+                catch ( VersionResolutionException e )
+                {
+                    result.addException( e );
+                    continue;
+                }
+                if ( snapshots != null && SnapshotVersionCache.isCacheable( artifact ) )
+                {
+                    snapshots.put( artifact, repos, request.getRequestContext(), generation, versionResult );
+                }
+                version = versionResult.getVersion();
+                versionRepository = versionResult.getRepository();
             }
 
-            artifact = artifact.setVersion( versionResult.getVersion() );
+            artifact = artifact.setVersion( version );
 
-            if ( versionResult.getRepository() != null )
+            if ( versionRepository != null )
             {
-                if ( versionResult.getRepository() instanceof RemoteRepository )
+                if ( versionRepository instanceof RemoteRepository )
                 {
-                    repos = Collections.singletonList( (RemoteRepository) versionResult.getRepository() );
+                    repos = Collections.singletonList( (RemoteRepository) versionRepository );
                 }
                 else
                 {
@@ -310,8 +339,12 @@ public class DefaultArtifactResolver
 
             LocalArtifactResult local =
                 lrm.find( session, new LocalArtifactRequest( artifact, repos, request.getRequestContext() ) );
+            // with the update policy "never", an existing local copy is final and its tracking files need no check
+            boolean updateDisabled =
+                local.getFile() != null && !local.isAvailable() && !( versionRepository instanceof LocalRepository )
+                    && isUpdateDisabled( session, repos, artifact );
             if ( local.isAvailable()
-                || ( local.getFile() != null && versionResult.getRepository() instanceof LocalRepository ) )
+                || ( local.getFile() != null && versionRepository instanceof LocalRepository ) || updateDisabled )
             {
                 if ( local.getRepository() != null )
                 {
@@ -331,7 +364,7 @@ public class DefaultArtifactResolver
                 {
                     result.addException( e );
                 }
-                if ( !local.isAvailable() )
+                if ( !local.isAvailable() && !updateDisabled )
                 {
                     /*
                      * NOTE: Interop with Maven 2.x: An artifact installed by Maven 2.x will not show up in the
@@ -387,6 +420,9 @@ public class DefaultArtifactResolver
 
         for ( ResolutionGroup group : groups )
         {
+            // (re)loads the index that the update checks consult to recognize unchanged local copies
+            RepositoryIndex.get( session, group.repository, remoteRepositoryManager, logger );
+
             List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
             for ( ResolutionItem item : group.items )
             {
@@ -573,6 +609,39 @@ public class DefaultArtifactResolver
         return file;
     }
 
+    /**
+     * Determines whether the snapshot update policy of any repository calls for a fresh resolution of a cached version.
+     */
+    private boolean isExpired( RepositorySystemSession session, SnapshotVersionCache.Entry entry,
+                               List<RemoteRepository> repositories )
+    {
+        for ( RemoteRepository repository : repositories )
+        {
+            RepositoryPolicy policy = remoteRepositoryManager.getPolicy( session, repository, false, true );
+            if ( policy.isEnabled()
+                && updateCheckManager.isUpdatedRequired( session, entry.timestamp, policy.getUpdatePolicy() ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isUpdateDisabled( RepositorySystemSession session, List<RemoteRepository> repositories,
+                                      Artifact artifact )
+    {
+        boolean snapshot = artifact.isSnapshot();
+        List<RemoteRepository> enabled = new ArrayList<RemoteRepository>( repositories.size() );
+        for ( RemoteRepository repository : repositories )
+        {
+            if ( repository.getPolicy( snapshot ).isEnabled() )
+            {
+                enabled.add( repository );
+            }
+        }
+        return Utils.isUpdateDisabled( session, remoteRepositoryManager, enabled, !snapshot, snapshot );
+    }
+
     private void artifactResolving( RepositorySystemSession session, RequestTrace trace, Artifact artifact )
     {
         DefaultRepositoryEvent event = new DefaultRepositoryEvent( EventType.ARTIFACT_RESOLVING, session, trace );
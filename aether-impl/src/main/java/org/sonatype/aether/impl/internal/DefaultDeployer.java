@@ -15,13 +15,14 @@ package org.sonatype.aether.impl.internal;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.sonatype.aether.ConfigurationProperties;
 import org.sonatype.aether.RepositoryEvent.EventType;
 import org.sonatype.aether.RepositoryException;
 import org.sonatype.aether.RepositorySystemSession;
@@ -44,6 +45,7 @@ import org.sonatype.aether.metadata.Metadata;
 import org.sonatype.aether.repository.LocalRepositoryManager;
 import org.sonatype.aether.repository.RemoteRepository;
 import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.ArtifactUpload;
 import org.sonatype.aether.spi.connector.MetadataDownload;
 import org.sonatype.aether.spi.connector.MetadataUpload;
@@ -58,7 +60,10 @@ import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataNotFoundException;
 import org.sonatype.aether.transfer.MetadataTransferException;
 import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+import org.sonatype.aether.util.ChecksumCache;
+import org.sonatype.aether.util.ChecksumUtils;
 import org.sonatype.aether.util.DefaultRequestTrace;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
 import org.sonatype.aether.util.listener.DefaultRepositoryEvent;
 
 /**
@@ -69,6 +74,12 @@ public class DefaultDeployer
     implements Deployer, Service
 {
 
+    /**
+     * The configuration property to skip the upload of artifacts whose SHA-1 checksum in the remote repository matches
+     * the local file, e.g. when re-running a partially failed deployment.
+     */
+    static final String CONFIG_PROP_SKIP_IDENTICAL = "aether.deployer.skipIdentical";
+
     @SuppressWarnings( "unused" )
     @Requirement
     private Logger logger = NullLogger.INSTANCE;
@@ -216,6 +227,7 @@ public class DefaultDeployer
         }
         finally
         {
+            SnapshotVersionCache.invalidate( session, request.getArtifacts(), request.getMetadata() );
             syncContext.release();
         }
     }
@@ -255,9 +267,9 @@ public class DefaultDeployer
 
             syncContext.acquire( artifacts, Utils.combine( request.getMetadata(), metadatas ) );
 
+            upload( metadataUploads, session, metadatas, repository, connector, catapult );
             for ( Metadata metadata : metadatas )
             {
-                upload( metadataUploads, session, metadata, repository, connector, catapult );
                 processedMetadata.put( metadata, null );
             }
 
@@ -275,6 +287,19 @@ public class DefaultDeployer
                 artifactUploads.add( new ArtifactUploadEx( artifact, artifact.getFile(), catapult ) );
             }
 
+            if ( ConfigurationProperties.get( session, CONFIG_PROP_SKIP_IDENTICAL, false ) )
+            {
+                for ( ArtifactUpload upload : getIdentical( connector, artifactUploads ) )
+                {
+                    logger.debug( "Skipped deploying " + upload.getArtifact() + " to " + repository
+                        + ", content is identical" );
+                    artifactUploads.remove( upload );
+                    catapult.artifactDeploying( upload.getArtifact(), upload.getFile() );
+                    catapult.artifactDeployed( upload.getArtifact(), upload.getFile(), null );
+                    result.addArtifact( upload.getArtifact() );
+                }
+            }
+
             connector.put( artifactUploads, null );
 
             for ( ArtifactUpload upload : artifactUploads )
@@ -291,9 +316,9 @@ public class DefaultDeployer
 
             syncContext.acquire( null, metadatas );
 
+            metadatas = new ArrayList<Metadata>( metadatas );
             for ( Metadata metadata : metadatas )
             {
-                upload( metadataUploads, session, metadata, repository, connector, catapult );
                 processedMetadata.put( metadata, null );
             }
 
@@ -301,11 +326,13 @@ public class DefaultDeployer
             {
                 if ( !processedMetadata.containsKey( metadata ) )
                 {
-                    upload( metadataUploads, session, metadata, repository, connector, catapult );
+                    metadatas.add( metadata );
                     processedMetadata.put( metadata, null );
                 }
             }
 
+            upload( metadataUploads, session, metadatas, repository, connector, catapult );
+
             connector.put( null, metadataUploads );
 
             for ( MetadataUpload upload : metadataUploads )
@@ -326,6 +353,70 @@ public class DefaultDeployer
         return result;
     }
 
+    /**
+     * Determines the artifacts whose SHA-1 checksum in the remote repository matches the local file.
+     */
+    private List<ArtifactUpload> getIdentical( RepositoryConnector connector, List<ArtifactUpload> uploads )
+    {
+        List<ArtifactUpload> identical = new ArrayList<ArtifactUpload>();
+
+        List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
+        try
+        {
+            for ( ArtifactUpload upload : uploads )
+            {
+                Artifact artifact = upload.getArtifact();
+                if ( upload.getFile() == null || !upload.getFile().isFile() )
+                {
+                    downloads.add( null );
+                    continue;
+                }
+                Artifact checksum =
+                    new DefaultArtifact( artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier(),
+                                         artifact.getExtension() + ".sha1", artifact.getVersion() );
+                File file = File.createTempFile( "checksum", ".sha1" );
+                downloads.add( new ArtifactDownload( checksum, "", file, RepositoryPolicy.CHECKSUM_POLICY_IGNORE ) );
+            }
+
+            List<ArtifactDownload> checks = new ArrayList<ArtifactDownload>( downloads );
+            checks.removeAll( Collections.singleton( null ) );
+            connector.get( checks, null );
+
+            for ( int i = 0; i < uploads.size(); i++ )
+            {
+                ArtifactDownload download = downloads.get( i );
+                if ( download == null || download.getException() != null )
+                {
+                    continue;
+                }
+                ArtifactUpload upload = uploads.get( i );
+                String expected = ChecksumUtils.read( download.getFile() );
+                Collection<String> algos = Collections.singleton( "SHA-1" );
+                Object actual = ChecksumCache.getInstance().calc( upload.getFile(), algos ).get( "SHA-1" );
+                if ( expected.equalsIgnoreCase( String.valueOf( actual ) ) )
+                {
+                    identical.add( upload );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Failed to compare artifacts with remote checksums: " + e.getMessage(), e );
+        }
+        finally
+        {
+            for ( ArtifactDownload download : downloads )
+            {
+                if ( download != null )
+                {
+                    download.getFile().delete();
+                }
+            }
+        }
+
+        return identical;
+    }
+
     private List<MetadataGenerator> getMetadataGenerators( RepositorySystemSession session, DeployRequest request )
     {
         List<MetadataGeneratorFactory> factories = Utils.sortMetadataGeneratorFactories( this.metadataFactories );
@@ -344,104 +435,142 @@ public class DefaultDeployer
         return generators;
     }
 
+    /**
+     * Prepares the upload of the specified metadata. The existing remote copies of mergeable metadata are fetched in a
+     * single batch before being merged with the local changes.
+     */
     private void upload( Collection<MetadataUpload> metadataUploads, RepositorySystemSession session,
-                         Metadata metadata, RemoteRepository repository, RepositoryConnector connector,
+                         List<Metadata> metadatas, RemoteRepository repository, RepositoryConnector connector,
                          EventCatapult catapult )
         throws DeploymentException
     {
         LocalRepositoryManager lrm = session.getLocalRepositoryManager();
         File basedir = lrm.getRepository().getBasedir();
 
-        File dstFile = new File( basedir, lrm.getPathForRemoteMetadata( metadata, repository, "" ) );
+        List<File> dstFiles = new ArrayList<File>( metadatas.size() );
+        List<MetadataDownload> downloads = new ArrayList<MetadataDownload>( metadatas.size() );
 
-        if ( metadata instanceof MergeableMetadata )
+        for ( Metadata metadata : metadatas )
         {
-            if ( !( (MergeableMetadata) metadata ).isMerged() )
+            File dstFile = new File( basedir, lrm.getPathForRemoteMetadata( metadata, repository, "" ) );
+            dstFiles.add( dstFile );
+
+            if ( metadata instanceof MergeableMetadata && !( (MergeableMetadata) metadata ).isMerged() )
             {
-                {
-                    DefaultRepositoryEvent event =
-                        new DefaultRepositoryEvent( EventType.METADATA_RESOLVING, session, catapult.getTrace() );
-                    event.setMetadata( metadata );
-                    event.setRepository( repository );
-                    repositoryEventDispatcher.dispatch( event );
-
-                    event = new DefaultRepositoryEvent( EventType.METADATA_DOWNLOADING, session, catapult.getTrace() );
-                    event.setMetadata( metadata );
-                    event.setRepository( repository );
-                    repositoryEventDispatcher.dispatch( event );
-                }
+                DefaultRepositoryEvent event =
+                    new DefaultRepositoryEvent( EventType.METADATA_RESOLVING, session, catapult.getTrace() );
+                event.setMetadata( metadata );
+                event.setRepository( repository );
+                repositoryEventDispatcher.dispatch( event );
+
+                event = new DefaultRepositoryEvent( EventType.METADATA_DOWNLOADING, session, catapult.getTrace() );
+                event.setMetadata( metadata );
+                event.setRepository( repository );
+                repositoryEventDispatcher.dispatch( event );
 
                 RepositoryPolicy policy = getPolicy( session, repository, metadata.getNature() );
                 MetadataDownload download = new MetadataDownload();
                 download.setMetadata( metadata );
                 download.setFile( dstFile );
                 download.setChecksumPolicy( policy.getChecksumPolicy() );
-                connector.get( null, Arrays.asList( download ) );
-
-                Exception error = download.getException();
+                downloads.add( download );
+            }
+            else
+            {
+                downloads.add( null );
+            }
+        }
 
-                if ( error instanceof MetadataNotFoundException )
-                {
-                    dstFile.delete();
-                }
+        List<MetadataDownload> batch = new ArrayList<MetadataDownload>( downloads );
+        batch.removeAll( Collections.singleton( null ) );
+        if ( !batch.isEmpty() )
+        {
+            connector.get( null, batch );
+        }
 
-                {
-                    DefaultRepositoryEvent event =
-                        new DefaultRepositoryEvent( EventType.METADATA_DOWNLOADED, session, catapult.getTrace() );
-                    event.setMetadata( metadata );
-                    event.setRepository( repository );
-                    event.setException( error );
-                    event.setFile( dstFile );
-                    repositoryEventDispatcher.dispatch( event );
-
-                    event = new DefaultRepositoryEvent( EventType.METADATA_RESOLVED, session, catapult.getTrace() );
-                    event.setMetadata( metadata );
-                    event.setRepository( repository );
-                    event.setException( error );
-                    event.setFile( dstFile );
-                    repositoryEventDispatcher.dispatch( event );
-                }
+        DeploymentException failure = null;
 
-                if ( error != null && !( error instanceof MetadataNotFoundException ) )
-                {
-                    throw new DeploymentException( "Failed to retrieve remote metadata " + metadata + ": "
-                        + error.getMessage(), error );
-                }
-            }
+        for ( MetadataDownload download : batch )
+        {
+            Metadata metadata = download.getMetadata();
+            File dstFile = download.getFile();
+            Exception error = download.getException();
 
-            try
+            if ( error instanceof MetadataNotFoundException )
             {
-                ( (MergeableMetadata) metadata ).merge( dstFile, dstFile );
+                dstFile.delete();
             }
-            catch ( RepositoryException e )
+
+            DefaultRepositoryEvent event =
+                new DefaultRepositoryEvent( EventType.METADATA_DOWNLOADED, session, catapult.getTrace() );
+            event.setMetadata( metadata );
+            event.setRepository( repository );
+            event.setException( error );
+            event.setFile( dstFile );
+            repositoryEventDispatcher.dispatch( event );
+
+            event = new DefaultRepositoryEvent( EventType.METADATA_RESOLVED, session, catapult.getTrace() );
+            event.setMetadata( metadata );
+            event.setRepository( repository );
+            event.setException( error );
+            event.setFile( dstFile );
+            repositoryEventDispatcher.dispatch( event );
+
+            if ( error != null && !( error instanceof MetadataNotFoundException ) && failure == null )
             {
-                throw new DeploymentException( "Failed to update metadata " + metadata + ": " + e.getMessage(), e );
+                failure =
+                    new DeploymentException( "Failed to retrieve remote metadata " + metadata + ": "
+                        + error.getMessage(), error );
             }
         }
-        else
+
+        if ( failure != null )
         {
-            if ( metadata.getFile() == null )
-            {
-                throw new DeploymentException( "Failed to update metadata " + metadata + ": No file attached." );
-            }
-            try
+            throw failure;
+        }
+
+        for ( int i = 0; i < metadatas.size(); i++ )
+        {
+            Metadata metadata = metadatas.get( i );
+            File dstFile = dstFiles.get( i );
+
+            if ( metadata instanceof MergeableMetadata )
             {
-                fileProcessor.copy( metadata.getFile(), dstFile, null );
+                try
+                {
+                    ( (MergeableMetadata) metadata ).merge( dstFile, dstFile );
+                }
+                catch ( RepositoryException e )
+                {
+                    throw new DeploymentException( "Failed to update metadata " + metadata + ": " + e.getMessage(), e );
+                }
             }
-            catch ( IOException e )
+            else
             {
-                throw new DeploymentException( "Failed to update metadata " + metadata + ": " + e.getMessage(), e );
+                if ( metadata.getFile() == null )
+                {
+                    throw new DeploymentException( "Failed to update metadata " + metadata + ": No file attached." );
+                }
+                try
+                {
+                    fileProcessor.copy( metadata.getFile(), dstFile, null );
+                }
+                catch ( IOException e )
+                {
+                    throw new DeploymentException( "Failed to update metadata " + metadata + ": " + e.getMessage(), e );
+                }
             }
-        }
 
-        UpdateCheck<Metadata, MetadataTransferException> check = new UpdateCheck<Metadata, MetadataTransferException>();
-        check.setItem( metadata );
-        check.setFile( dstFile );
-        check.setRepository( repository );
-        check.setAuthoritativeRepository( repository );
-        updateCheckManager.touchMetadata( session, check );
+            UpdateCheck<Metadata, MetadataTransferException> check =
+                new UpdateCheck<Metadata, MetadataTransferException>();
+            check.setItem( metadata );
+            check.setFile( dstFile );
+            check.setRepository( repository );
+            check.setAuthoritativeRepository( repository );
+            updateCheckManager.touchMetadata( session, check );
 
-        metadataUploads.add( new MetadataUploadEx( metadata, dstFile, catapult ) );
+            metadataUploads.add( new MetadataUploadEx( metadata, dstFile, catapult ) );
+        }
     }
 
     private RepositoryPolicy getPolicy( RepositorySystemSession session, RemoteRepository repository,
@@ -0,0 +1,243 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.sonatype.aether.impl.ExecutorProvider;
+
+/**
+ * Runs the tasks of all requests on a single pool of daemon threads. Threads are created on demand and terminate after
+ * they have been idle for the keep-alive time, the concurrency of each request is limited by the executor handed out
+ * for it.
+ */
+@Component( role = ExecutorProvider.class )
+public class DefaultExecutorProvider
+    implements ExecutorProvider
+{
+
+    /**
+     * The system property for the time in seconds that an idle thread is kept alive.
+     */
+    static final String PROP_KEEP_ALIVE = "aether.executor.keepAlive";
+
+    private static final Executor DIRECT = new Executor()
+    {
+        public void execute( Runnable command )
+        {
+            command.run();
+        }
+    };
+
+    private final ThreadPoolExecutor pool;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong completed = new AtomicLong();
+
+    public DefaultExecutorProvider()
+    {
+        this( Long.getLong( PROP_KEEP_ALIVE, 60 ).longValue() );
+    }
+
+    /**
+     * Creates a new provider.
+     * 
+     * @param keepAlive The time in seconds that an idle thread is kept alive.
+     */
+    public DefaultExecutorProvider( long keepAlive )
+    {
+        pool =
+            new ThreadPoolExecutor( 0, Integer.MAX_VALUE, keepAlive, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                    new WorkerThreadFactory() );
+    }
+
+    public Executor getExecutor( int threads )
+    {
+        if ( threads <= 1 )
+        {
+            return DIRECT;
+        }
+        return new BoundedExecutor( threads );
+    }
+
+    public int getActiveCount()
+    {
+        return active.get();
+    }
+
+    public int getQueuedCount()
+    {
+        return queued.get();
+    }
+
+    /**
+     * Gets the number of tasks that have been run so far.
+     * 
+     * @return The number of completed tasks.
+     */
+    public long getCompletedCount()
+    {
+        return completed.get();
+    }
+
+    /**
+     * Gets the number of threads currently in the pool, including idle threads.
+     * 
+     * @return The number of pooled threads.
+     */
+    public int getPoolSize()
+    {
+        return pool.getPoolSize();
+    }
+
+    /**
+     * Gets the largest number of threads that have ever simultaneously been in the pool.
+     * 
+     * @return The largest pool size.
+     */
+    public int getLargestPoolSize()
+    {
+        return pool.getLargestPoolSize();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "active=" + getActiveCount() + ", queued=" + getQueuedCount() + ", completed=" + getCompletedCount()
+            + ", poolSize=" + getPoolSize() + ", largestPoolSize=" + getLargestPoolSize();
+    }
+
+    /**
+     * Feeds the tasks of one request to the shared pool while keeping at most the configured number of them running.
+     * Each pooled thread that is granted a slot keeps pulling queued tasks of the request until the queue is drained.
+     */
+    class BoundedExecutor
+        implements Executor
+    {
+
+        private final int threads;
+
+        private final LinkedList<Runnable> pending = new LinkedList<Runnable>();
+
+        private int running;
+
+        BoundedExecutor( int threads )
+        {
+            this.threads = threads;
+        }
+
+        public void execute( Runnable command )
+        {
+            synchronized ( this )
+            {
+                if ( running >= threads )
+                {
+                    pending.add( command );
+                    queued.incrementAndGet();
+                    return;
+                }
+                running++;
+            }
+            dispatch( command );
+        }
+
+        private void dispatch( final Runnable command )
+        {
+            pool.execute( new Runnable()
+            {
+                public void run()
+                {
+                    Runnable task = command;
+                    try
+                    {
+                        while ( task != null )
+                        {
+                            active.incrementAndGet();
+                            try
+                            {
+                                task.run();
+                            }
+                            finally
+                            {
+                                active.decrementAndGet();
+                                completed.incrementAndGet();
+                            }
+                            task = next();
+                        }
+                    }
+                    finally
+                    {
+                        if ( task != null )
+                        {
+                            // the task failed, hand our slot over to a fresh thread to keep the queue going
+                            Runnable next = next();
+                            if ( next != null )
+                            {
+                                dispatch( next );
+                            }
+                        }
+                    }
+                }
+            } );
+        }
+
+        private synchronized Runnable next()
+        {
+            Runnable task = pending.poll();
+            if ( task == null )
+            {
+                running--;
+            }
+            else
+            {
+                queued.decrementAndGet();
+            }
+            return task;
+        }
+
+    }
+
+    static class WorkerThreadFactory
+        implements ThreadFactory
+    {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final ThreadGroup group = Thread.currentThread().getThreadGroup();
+
+        private final String prefix = "aether-executor-" + POOL_NUMBER.incrementAndGet() + "-thread-";
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        public Thread newThread( Runnable r )
+        {
+            Thread thread = new Thread( group, r, prefix + threadNumber.incrementAndGet() );
+            thread.setDaemon( true );
+            thread.setPriority( Thread.NORM_PRIORITY );
+            return thread;
+        }
+
+    }
+
+}
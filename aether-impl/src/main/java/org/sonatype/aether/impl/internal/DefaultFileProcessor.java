@@ -12,29 +12,48 @@ package org.sonatype.aether.impl.internal;
  * You may elect to redistribute this code under either of these licenses.
  *******************************************************************************/
 
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.codehaus.plexus.component.annotations.Component;
+import org.sonatype.aether.spi.io.DurableFileProcessor;
 import org.sonatype.aether.spi.io.FileProcessor;
 
 /**
- * A utility class helping with file-based operations.
+ * A utility class helping with file-based operations. Files are written to a temporary file next to the target file
+ * and then renamed, i.e. other processes never observe partially written files. Temporary files left behind by a
+ * crashed process are removed by later writes to the same target file.
  * 
  * @author Benjamin Hanzelmann
  * @author Benjamin Bentmann
  */
 @Component( role = FileProcessor.class )
 public class DefaultFileProcessor
-    implements FileProcessor
+    implements DurableFileProcessor
 {
 
+    private static final int BUFFER_SIZE = 1024 * 32;
+
+    /*
+     * NOTE: Some JREs fail to transfer more than 2 GB at once or fall back to mapping the whole file into memory.
+     */
+    private static final long MAX_TRANSFER_SIZE = 1024 * 1024 * 64;
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * The age in milliseconds after which a temporary file is considered abandoned by a crashed process.
+     */
+    private static final long STALE_TEMP_FILE_AGE = 60L * 60 * 1000;
+
     private static void close( Closeable closeable )
     {
         if ( closeable != null )
@@ -91,74 +110,305 @@ public class DefaultFileProcessor
 
     public void write( File file, String data )
         throws IOException
+    {
+        write( file, data, DURABILITY_NONE );
+    }
+
+    public void write( File file, String data, String durability )
+        throws IOException
     {
         mkdirs( file.getParentFile() );
 
-        FileOutputStream fos = null;
+        File tmp = newTempFile( file );
         try
         {
-            fos = new FileOutputStream( file );
+            FileOutputStream fos = null;
+            try
+            {
+                fos = new FileOutputStream( tmp );
 
-            if ( data != null )
+                if ( data != null )
+                {
+                    fos.write( data.getBytes( "UTF-8" ) );
+                }
+
+                force( fos.getChannel(), durability );
+            }
+            finally
             {
-                fos.write( data.getBytes( "UTF-8" ) );
+                close( fos );
             }
+
+            commit( tmp, file );
         }
         finally
         {
-            close( fos );
+            tmp.delete();
         }
     }
 
     public long copy( File source, File target, ProgressListener listener )
         throws IOException
+    {
+        return copy( source, target, listener, DURABILITY_NONE );
+    }
+
+    public long copy( File source, File target, ProgressListener listener, String durability )
+        throws IOException
     {
         long total = 0;
 
         FileInputStream fis = null;
-        OutputStream fos = null;
+        FileOutputStream fos = null;
         try
         {
             fis = new FileInputStream( source );
+            FileChannel in = fis.getChannel();
 
             mkdirs( target.getParentFile() );
 
-            fos = new BufferedOutputStream( new FileOutputStream( target ) );
-
-            ByteBuffer buffer = ByteBuffer.allocate( 1024 * 32 );
-            byte[] array = buffer.array();
-
-            while ( true )
+            File tmp = newTempFile( target );
+            try
             {
-                int bytes = fis.read( array );
-                if ( bytes < 0 )
+                fos = new FileOutputStream( tmp );
+                FileChannel out = fos.getChannel();
+
+                if ( listener == null )
                 {
-                    break;
+                    total = transfer( in, out );
                 }
-
-                fos.write( array, 0, bytes );
-
-                total += bytes;
-
-                if ( listener != null && bytes > 0 )
+                else
                 {
-                    try
-                    {
-                        buffer.rewind();
-                        buffer.limit( bytes );
-                        listener.progressed( buffer );
-                    }
-                    catch ( Exception e )
-                    {
-                        // too bad
-                    }
+                    total = copy( in, out, listener );
                 }
+
+                force( out, durability );
+                fos.close();
+
+                commit( tmp, target );
+            }
+            finally
+            {
+                close( fos );
+                tmp.delete();
             }
         }
         finally
         {
             close( fis );
-            close( fos );
+        }
+
+        return total;
+    }
+
+    /**
+     * Creates an empty temporary file in the directory of the specified target file such that the former can be
+     * renamed to the latter. Stale temporary files of the same target that a crashed process left behind are deleted.
+     */
+    static File newTempFile( File target )
+        throws IOException
+    {
+        File file = target.getAbsoluteFile();
+        String prefix = "." + file.getName() + ".";
+        deleteStaleTempFiles( file.getParentFile(), prefix );
+        return File.createTempFile( prefix, TMP_SUFFIX, file.getParentFile() );
+    }
+
+    private static void deleteStaleTempFiles( File directory, final String prefix )
+    {
+        File[] files = directory.listFiles( new FilenameFilter()
+        {
+            public boolean accept( File dir, String name )
+            {
+                return name.startsWith( prefix ) && name.endsWith( TMP_SUFFIX );
+            }
+        } );
+        if ( files == null )
+        {
+            return;
+        }
+
+        // a temp file that is still being written keeps getting modified, only long abandoned ones are deleted
+        long threshold = System.currentTimeMillis() - STALE_TEMP_FILE_AGE;
+        for ( File file : files )
+        {
+            if ( file.lastModified() < threshold )
+            {
+                file.delete();
+            }
+        }
+    }
+
+    private static void force( FileChannel channel, String durability )
+        throws IOException
+    {
+        if ( DURABILITY_DATA.equals( durability ) )
+        {
+            channel.force( false );
+        }
+        else if ( DURABILITY_ALL.equals( durability ) )
+        {
+            channel.force( true );
+        }
+    }
+
+    /**
+     * Makes the completely written temporary file visible under the name of the target file.
+     */
+    static void commit( File tmp, File target )
+        throws IOException
+    {
+        if ( tmp.renameTo( target ) )
+        {
+            return;
+        }
+
+        /*
+         * NOTE: Some platforms (e.g. Windows) refuse to rename onto an existing file. Java 7+ can still replace the
+         * target atomically, otherwise the target is moved aside and restored if the rename fails. In no case is the
+         * previous file deleted before its replacement is in place.
+         */
+        if ( !replace( tmp, target ) )
+        {
+            File backup = File.createTempFile( "." + target.getName() + ".", TMP_SUFFIX, target.getParentFile() );
+            backup.delete();
+            if ( !target.renameTo( backup ) )
+            {
+                throw new IOException( "Could not rename " + tmp + " to " + target );
+            }
+            if ( !tmp.renameTo( target ) )
+            {
+                backup.renameTo( target );
+                throw new IOException( "Could not rename " + tmp + " to " + target );
+            }
+            backup.delete();
+        }
+    }
+
+    /**
+     * Atomically replaces the target file via {@code java.nio.file.Files.move()} if running on Java 7 or later.
+     * 
+     * @return {@code true} if the file was replaced, {@code false} if the required API is not available or failed.
+     */
+    private static boolean replace( File source, File target )
+    {
+        if ( AtomicMove.MOVE == null )
+        {
+            return false;
+        }
+        try
+        {
+            AtomicMove.MOVE.invoke( null, AtomicMove.TO_PATH.invoke( source ), AtomicMove.TO_PATH.invoke( target ),
+                                    AtomicMove.OPTIONS );
+            return true;
+        }
+        catch ( Exception e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Lazily looks up the Java 7 API to atomically replace files.
+     */
+    static class AtomicMove
+    {
+
+        static final Method MOVE;
+
+        static final Method TO_PATH;
+
+        static final Object OPTIONS;
+
+        static
+        {
+            Method move = null;
+            Method toPath = null;
+            Object options = null;
+            try
+            {
+                Class<?> files = Class.forName( "java.nio.file.Files" );
+                Class<?> path = Class.forName( "java.nio.file.Path" );
+                Class<?> option = Class.forName( "java.nio.file.CopyOption" );
+                Class<?> standardOption = Class.forName( "java.nio.file.StandardCopyOption" );
+                options = Array.newInstance( option, 2 );
+                Array.set( options, 0, standardOption.getField( "ATOMIC_MOVE" ).get( null ) );
+                Array.set( options, 1, standardOption.getField( "REPLACE_EXISTING" ).get( null ) );
+                move = files.getMethod( "move", path, path, options.getClass() );
+                toPath = File.class.getMethod( "toPath" );
+            }
+            catch ( Exception e )
+            {
+                move = null;
+            }
+            MOVE = move;
+            TO_PATH = toPath;
+            OPTIONS = options;
+        }
+
+    }
+
+    /**
+     * Copies the source channel to the target channel without passing the bytes through user space (where supported by
+     * the operating system).
+     */
+    private static long transfer( FileChannel in, FileChannel out )
+        throws IOException
+    {
+        long size = in.size();
+        long total = 0;
+
+        while ( total < size )
+        {
+            long bytes = in.transferTo( total, Math.min( size - total, MAX_TRANSFER_SIZE ), out );
+            if ( bytes <= 0 )
+            {
+                // the source shrunk meanwhile
+                break;
+            }
+            total += bytes;
+        }
+
+        // transferTo() does not advance the source channel, pick up anything appended to the source meanwhile
+        in.position( total );
+        total += copy( in, out, null );
+
+        return total;
+    }
+
+    private static long copy( FileChannel in, FileChannel out, ProgressListener listener )
+        throws IOException
+    {
+        long total = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+
+        while ( in.read( buffer ) >= 0 )
+        {
+            buffer.flip();
+            int bytes = buffer.remaining();
+
+            while ( buffer.hasRemaining() )
+            {
+                out.write( buffer );
+            }
+
+            total += bytes;
+
+            if ( listener != null && bytes > 0 )
+            {
+                try
+                {
+                    buffer.rewind();
+                    listener.progressed( buffer );
+                }
+                catch ( Exception e )
+                {
+                    // too bad
+                }
+            }
+
+            buffer.clear();
         }
 
         return total;
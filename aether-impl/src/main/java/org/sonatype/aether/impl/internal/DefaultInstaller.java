@@ -13,17 +13,24 @@ package org.sonatype.aether.impl.internal;
  *******************************************************************************/
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.sonatype.aether.ConfigurationProperties;
 import org.sonatype.aether.RepositoryEvent.EventType;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.RequestTrace;
 import org.sonatype.aether.SyncContext;
 import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.impl.ExecutorProvider;
 import org.sonatype.aether.impl.Installer;
 import org.sonatype.aether.impl.MetadataGenerator;
 import org.sonatype.aether.impl.MetadataGeneratorFactory;
@@ -37,12 +44,16 @@ import org.sonatype.aether.metadata.Metadata;
 import org.sonatype.aether.repository.LocalArtifactRegistration;
 import org.sonatype.aether.repository.LocalMetadataRegistration;
 import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.spi.io.DurableFileProcessor;
 import org.sonatype.aether.spi.io.FileProcessor;
+import org.sonatype.aether.spi.localrepo.BatchLocalRepositoryManager;
 import org.sonatype.aether.spi.locator.Service;
 import org.sonatype.aether.spi.locator.ServiceLocator;
 import org.sonatype.aether.spi.log.Logger;
 import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.util.ChecksumCache;
 import org.sonatype.aether.util.DefaultRequestTrace;
+import org.sonatype.aether.util.concurrency.RunnableErrorForwarder;
 import org.sonatype.aether.util.listener.DefaultRepositoryEvent;
 
 /**
@@ -53,6 +64,19 @@ public class DefaultInstaller
     implements Installer, Service
 {
 
+    /**
+     * The configuration property for the number of threads used to copy the artifacts of an install request into the
+     * local repository. With more than one thread, the artifacts are registered with the local repository as a batch
+     * once all copies are done. With a single thread (the default), the artifacts are installed one after the other.
+     */
+    static final String CONFIG_PROP_THREADS = "aether.installer.threads";
+
+    /**
+     * The configuration property to skip the installation of artifacts whose content matches the already installed
+     * file even though their timestamps differ.
+     */
+    static final String CONFIG_PROP_SKIP_IDENTICAL = "aether.installer.skipIdentical";
+
     @Requirement
     private Logger logger = NullLogger.INSTANCE;
 
@@ -68,6 +92,9 @@ public class DefaultInstaller
     @Requirement
     private SyncContextFactory syncContextFactory;
 
+    @Requirement
+    private ExecutorProvider executorProvider;
+
     public DefaultInstaller()
     {
         // enables default constructor
@@ -76,12 +103,22 @@ public class DefaultInstaller
     public DefaultInstaller( Logger logger, FileProcessor fileProcessor,
                              RepositoryEventDispatcher repositoryEventDispatcher,
                              List<MetadataGeneratorFactory> metadataFactories, SyncContextFactory syncContextFactory )
+    {
+        this( logger, fileProcessor, repositoryEventDispatcher, metadataFactories, syncContextFactory,
+              new DefaultExecutorProvider() );
+    }
+
+    public DefaultInstaller( Logger logger, FileProcessor fileProcessor,
+                             RepositoryEventDispatcher repositoryEventDispatcher,
+                             List<MetadataGeneratorFactory> metadataFactories, SyncContextFactory syncContextFactory,
+                             ExecutorProvider executorProvider )
     {
         setLogger( logger );
         setFileProcessor( fileProcessor );
         setRepositoryEventDispatcher( repositoryEventDispatcher );
         setMetadataFactories( metadataFactories );
         setSyncContextFactory( syncContextFactory );
+        setExecutorProvider( executorProvider );
     }
 
     public void initService( ServiceLocator locator )
@@ -91,6 +128,7 @@ public class DefaultInstaller
         setRepositoryEventDispatcher( locator.getService( RepositoryEventDispatcher.class ) );
         setMetadataFactories( locator.getServices( MetadataGeneratorFactory.class ) );
         setSyncContextFactory( locator.getService( SyncContextFactory.class ) );
+        setExecutorProvider( locator.getService( ExecutorProvider.class ) );
     }
 
     public DefaultInstaller setLogger( Logger logger )
@@ -152,6 +190,16 @@ public class DefaultInstaller
         return this;
     }
 
+    public DefaultInstaller setExecutorProvider( ExecutorProvider executorProvider )
+    {
+        if ( executorProvider == null )
+        {
+            throw new IllegalArgumentException( "executor provider has not been specified" );
+        }
+        this.executorProvider = executorProvider;
+        return this;
+    }
+
     public InstallResult install( RepositorySystemSession session, InstallRequest request )
         throws InstallationException
     {
@@ -163,6 +211,7 @@ public class DefaultInstaller
         }
         finally
         {
+            SnapshotVersionCache.invalidate( session, request.getArtifacts(), request.getMetadata() );
             syncContext.release();
         }
     }
@@ -201,8 +250,12 @@ public class DefaultInstaller
             }
 
             artifacts.set( i, artifact );
+        }
+
+        install( session, trace, artifacts );
 
-            install( session, trace, artifact );
+        for ( Artifact artifact : artifacts )
+        {
             result.addArtifact( artifact );
         }
 
@@ -247,45 +300,153 @@ public class DefaultInstaller
         return generators;
     }
 
-    private void install( RepositorySystemSession session, RequestTrace trace, Artifact artifact )
+    private void install( RepositorySystemSession session, RequestTrace trace, List<Artifact> artifacts )
         throws InstallationException
     {
-        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+        boolean skipIdentical = ConfigurationProperties.get( session, CONFIG_PROP_SKIP_IDENTICAL, false );
+
+        String durability = getDurability( session );
+
+        int threads = ConfigurationProperties.get( session, CONFIG_PROP_THREADS, 1 );
+
+        if ( threads <= 1 || artifacts.size() <= 1 )
+        {
+            for ( Artifact artifact : artifacts )
+            {
+                install( session, trace, artifact, skipIdentical, durability );
+            }
+        }
+        else
+        {
+            install( session, trace, artifacts, skipIdentical, durability, threads );
+        }
+    }
 
-        File srcFile = artifact.getFile();
+    private void install( RepositorySystemSession session, RequestTrace trace, Artifact artifact,
+                          boolean skipIdentical, String durability )
+        throws InstallationException
+    {
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
 
         File dstFile = new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalArtifact( artifact ) );
 
         artifactInstalling( session, trace, artifact, dstFile );
 
-        Exception exception = null;
+        InstallTask task =
+            new InstallTask( artifact, dstFile, skipIdentical, durability, new AtomicReference<InstallTask>() );
         try
         {
-            boolean copy =
-                "pom".equals( artifact.getExtension() ) || srcFile.lastModified() != dstFile.lastModified()
-                    || srcFile.length() != dstFile.length();
+            task.run();
+            if ( task.exception == null )
+            {
+                lrm.add( session, new LocalArtifactRegistration( artifact ) );
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            task.exception = e;
+        }
+        finally
+        {
+            artifactInstalled( session, trace, artifact, dstFile, task.exception );
+        }
+
+        if ( task.exception != null )
+        {
+            throw newInstallationException( task );
+        }
+    }
+
+    private void install( RepositorySystemSession session, RequestTrace trace, List<Artifact> artifacts,
+                          boolean skipIdentical, String durability, int threads )
+        throws InstallationException
+    {
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+
+        List<InstallTask> tasks = new ArrayList<InstallTask>( artifacts.size() );
+
+        AtomicReference<InstallTask> failure = new AtomicReference<InstallTask>();
+
+        for ( Artifact artifact : artifacts )
+        {
+            File dstFile = new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalArtifact( artifact ) );
+
+            artifactInstalling( session, trace, artifact, dstFile );
+
+            tasks.add( new InstallTask( artifact, dstFile, skipIdentical, durability, failure ) );
+        }
+
+        Executor executor = executorProvider.getExecutor( Math.min( tasks.size(), threads ) );
+        RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+
+        for ( InstallTask task : tasks )
+        {
+            executor.execute( errorForwarder.wrap( task ) );
+        }
+
+        errorForwarder.await();
+
+        // every file that made it into the local repository gets registered, even if it was copied after a failure
+        List<InstallTask> installed = new ArrayList<InstallTask>();
+        List<LocalArtifactRegistration> registrations = new ArrayList<LocalArtifactRegistration>();
+        for ( InstallTask task : tasks )
+        {
+            if ( task.done )
+            {
+                installed.add( task );
+                registrations.add( new LocalArtifactRegistration( task.artifact ) );
+            }
+        }
 
-            if ( copy )
+        try
+        {
+            if ( lrm instanceof BatchLocalRepositoryManager )
             {
-                fileProcessor.copy( srcFile, dstFile, null );
-                dstFile.setLastModified( srcFile.lastModified() );
+                ( (BatchLocalRepositoryManager) lrm ).add( session, registrations );
             }
             else
             {
-                logger.debug( "Skipped re-installing " + srcFile + " to " + dstFile + ", seems unchanged" );
+                for ( LocalArtifactRegistration registration : registrations )
+                {
+                    lrm.add( session, registration );
+                }
             }
-
-            lrm.add( session, new LocalArtifactRegistration( artifact ) );
         }
-        catch ( Exception e )
+        catch ( RuntimeException e )
         {
-            exception = e;
-            throw new InstallationException( "Failed to install artifact " + artifact + ": " + e.getMessage(), e );
+            // don't leave files behind that the local repository does not know about
+            for ( InstallTask task : installed )
+            {
+                task.exception = e;
+                if ( task.copied && !task.dstFile.delete() )
+                {
+                    logger.debug( "Failed to delete unregistered file " + task.dstFile );
+                }
+            }
         }
-        finally
+
+        InstallTask failed = failure.get();
+
+        for ( InstallTask task : tasks )
         {
-            artifactInstalled( session, trace, artifact, dstFile, exception );
+            artifactInstalled( session, trace, task.artifact, task.dstFile, task.exception );
+
+            if ( failed == null && task.exception != null )
+            {
+                failed = task;
+            }
         }
+
+        if ( failed != null )
+        {
+            throw newInstallationException( failed );
+        }
+    }
+
+    private static InstallationException newInstallationException( InstallTask task )
+    {
+        return new InstallationException( "Failed to install artifact " + task.artifact + ": "
+            + task.exception.getMessage(), task.exception );
     }
 
     private void install( RepositorySystemSession session, RequestTrace trace, Metadata metadata )
@@ -306,7 +467,7 @@ public class DefaultInstaller
             }
             else
             {
-                fileProcessor.copy( metadata.getFile(), dstFile, null );
+                copy( metadata.getFile(), dstFile, getDurability( session ) );
             }
 
             lrm.add( session, new LocalMetadataRegistration( metadata ) );
@@ -322,6 +483,116 @@ public class DefaultInstaller
         }
     }
 
+    class InstallTask
+        implements Runnable
+    {
+
+        final Artifact artifact;
+
+        final File dstFile;
+
+        final boolean skipIdentical;
+
+        final String durability;
+
+        final AtomicReference<InstallTask> failure;
+
+        volatile boolean copied;
+
+        volatile boolean done;
+
+        volatile Exception exception;
+
+        InstallTask( Artifact artifact, File dstFile, boolean skipIdentical, String durability,
+                     AtomicReference<InstallTask> failure )
+        {
+            this.artifact = artifact;
+            this.dstFile = dstFile;
+            this.skipIdentical = skipIdentical;
+            this.durability = durability;
+            this.failure = failure;
+        }
+
+        public void run()
+        {
+            InstallTask failed = failure.get();
+            if ( failed != null )
+            {
+                exception =
+                    new InstallationException( "Skipped installation of artifact " + artifact
+                        + " because the installation of " + failed.artifact + " failed", failed.exception );
+                return;
+            }
+
+            File srcFile = artifact.getFile();
+
+            try
+            {
+                boolean copy =
+                    "pom".equals( artifact.getExtension() ) || srcFile.lastModified() != dstFile.lastModified()
+                        || srcFile.length() != dstFile.length();
+
+                if ( copy && skipIdentical && isIdentical( srcFile, dstFile ) )
+                {
+                    logger.debug( "Skipped re-installing " + srcFile + " to " + dstFile + ", content is identical" );
+                    dstFile.setLastModified( srcFile.lastModified() );
+                }
+                else if ( copy )
+                {
+                    copy( srcFile, dstFile, durability );
+                    copied = true;
+                    dstFile.setLastModified( srcFile.lastModified() );
+                }
+                else
+                {
+                    logger.debug( "Skipped re-installing " + srcFile + " to " + dstFile + ", seems unchanged" );
+                }
+
+                done = true;
+            }
+            catch ( Exception e )
+            {
+                exception = e;
+                failure.compareAndSet( null, this );
+            }
+        }
+
+    }
+
+    private static String getDurability( RepositorySystemSession session )
+    {
+        return ConfigurationProperties.get( session, DurableFileProcessor.CONFIG_PROP_DURABILITY,
+                                            DurableFileProcessor.DURABILITY_NONE );
+    }
+
+    private void copy( File srcFile, File dstFile, String durability )
+        throws IOException
+    {
+        if ( fileProcessor instanceof DurableFileProcessor )
+        {
+            ( (DurableFileProcessor) fileProcessor ).copy( srcFile, dstFile, null, durability );
+        }
+        else
+        {
+            fileProcessor.copy( srcFile, dstFile, null );
+        }
+    }
+
+    private static boolean isIdentical( File srcFile, File dstFile )
+        throws IOException
+    {
+        if ( !dstFile.isFile() || srcFile.length() != dstFile.length() )
+        {
+            return false;
+        }
+
+        Collection<String> algos = Collections.singleton( "SHA-1" );
+        Object srcChecksum = ChecksumCache.getInstance().calc( srcFile, algos ).get( "SHA-1" );
+        Object dstChecksum = ChecksumCache.getInstance().calc( dstFile, algos ).get( "SHA-1" );
+
+        return ( srcChecksum instanceof String ) && srcChecksum.equals( dstChecksum );
+    }
+
     private void artifactInstalling( RepositorySystemSession session, RequestTrace trace, Artifact artifact,
                                      File dstFile )
     {
@@ -20,11 +20,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
@@ -33,6 +32,7 @@ import org.sonatype.aether.RequestTrace;
 import org.sonatype.aether.SyncContext;
 import org.sonatype.aether.RepositoryEvent.EventType;
 import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.impl.ExecutorProvider;
 import org.sonatype.aether.impl.MetadataResolver;
 import org.sonatype.aether.impl.RemoteRepositoryManager;
 import org.sonatype.aether.impl.RepositoryEventDispatcher;
@@ -87,6 +87,12 @@ public class DefaultMetadataResolver
     @Requirement
     private SyncContextFactory syncContextFactory;
 
+    @Requirement
+    private ExecutorProvider executorProvider;
+
+    private final ConcurrentMap<ResolveKey, ResolveTask> inflightTasks =
+        new ConcurrentHashMap<ResolveKey, ResolveTask>();
+
     public DefaultMetadataResolver()
     {
         // enables default constructor
@@ -96,12 +102,22 @@ public class DefaultMetadataResolver
                                     UpdateCheckManager updateCheckManager,
                                     RemoteRepositoryManager remoteRepositoryManager,
                                     SyncContextFactory syncContextFactory )
+    {
+        this( logger, repositoryEventDispatcher, updateCheckManager, remoteRepositoryManager, syncContextFactory,
+              new DefaultExecutorProvider() );
+    }
+
+    public DefaultMetadataResolver( Logger logger, RepositoryEventDispatcher repositoryEventDispatcher,
+                                    UpdateCheckManager updateCheckManager,
+                                    RemoteRepositoryManager remoteRepositoryManager,
+                                    SyncContextFactory syncContextFactory, ExecutorProvider executorProvider )
     {
         setLogger( logger );
         setRepositoryEventDispatcher( repositoryEventDispatcher );
         setUpdateCheckManager( updateCheckManager );
         setRemoteRepositoryManager( remoteRepositoryManager );
         setSyncContextFactory( syncContextFactory );
+        setExecutorProvider( executorProvider );
     }
 
     public void initService( ServiceLocator locator )
@@ -111,6 +127,7 @@ public class DefaultMetadataResolver
         setUpdateCheckManager( locator.getService( UpdateCheckManager.class ) );
         setRemoteRepositoryManager( locator.getService( RemoteRepositoryManager.class ) );
         setSyncContextFactory( locator.getService( SyncContextFactory.class ) );
+        setExecutorProvider( locator.getService( ExecutorProvider.class ) );
     }
 
     public DefaultMetadataResolver setLogger( Logger logger )
@@ -159,6 +176,16 @@ public class DefaultMetadataResolver
         return this;
     }
 
+    public DefaultMetadataResolver setExecutorProvider( ExecutorProvider executorProvider )
+    {
+        if ( executorProvider == null )
+        {
+            throw new IllegalArgumentException( "executor provider has not been specified" );
+        }
+        this.executorProvider = executorProvider;
+        return this;
+    }
+
     public List<MetadataResult> resolveMetadata( RepositorySystemSession session,
                                                  Collection<? extends MetadataRequest> requests )
     {
@@ -174,7 +201,23 @@ public class DefaultMetadataResolver
 
             syncContext.acquire( null, metadata );
 
-            return resolve( session, requests );
+            List<MetadataResult> results = resolve( session, requests );
+
+            SnapshotVersionCache snapshots = SnapshotVersionCache.get( session );
+            if ( snapshots != null )
+            {
+                Collection<Metadata> updated = new ArrayList<Metadata>();
+                for ( MetadataResult result : results )
+                {
+                    if ( result.isUpdated() )
+                    {
+                        updated.add( result.getRequest().getMetadata() );
+                    }
+                }
+                snapshots.invalidateMetadata( updated );
+            }
+
+            return results;
         }
         finally
         {
@@ -191,157 +234,189 @@ public class DefaultMetadataResolver
 
         Map<File, Long> localLastUpdates = new HashMap<File, Long>();
 
-        for ( MetadataRequest request : requests )
-        {
-            RequestTrace trace = DefaultRequestTrace.newChild( request.getTrace(), request );
+        Map<ResolveKey, MetadataResult> firstResults = new HashMap<ResolveKey, MetadataResult>();
 
-            MetadataResult result = new MetadataResult( request );
-            results.add( result );
+        List<SharedResolution> sharedResolutions = new ArrayList<SharedResolution>();
 
-            Metadata metadata = request.getMetadata();
-            RemoteRepository repository = request.getRepository();
+        boolean resolved = false;
 
-            if ( repository == null )
+        try
+        {
+            for ( MetadataRequest request : requests )
             {
-                LocalRepository localRepo = session.getLocalRepositoryManager().getRepository();
+                RequestTrace trace = DefaultRequestTrace.newChild( request.getTrace(), request );
+
+                MetadataResult result = new MetadataResult( request );
+                results.add( result );
 
-                metadataResolving( session, trace, metadata, localRepo );
+                ResolveKey key = new ResolveKey( session, request );
+                MetadataResult firstResult = firstResults.get( key );
+                if ( firstResult != null )
+                {
+                    sharedResolutions.add( new SharedResolution( trace, result, firstResult, null, true ) );
+                    continue;
+                }
+                firstResults.put( key, result );
 
-                File localFile = getLocalFile( session, metadata );
+                Metadata metadata = request.getMetadata();
+                RemoteRepository repository = request.getRepository();
 
-                if ( localFile != null )
+                if ( repository == null )
                 {
-                    metadata = metadata.setFile( localFile );
-                    result.setMetadata( metadata );
+                    LocalRepository localRepo = session.getLocalRepositoryManager().getRepository();
+
+                    metadataResolving( session, trace, metadata, localRepo );
+
+                    File localFile = getLocalFile( session, metadata );
+
+                    if ( localFile != null )
+                    {
+                        metadata = metadata.setFile( localFile );
+                        result.setMetadata( metadata );
+                    }
+                    else
+                    {
+                        result.setException( new MetadataNotFoundException( metadata, localRepo ) );
+                    }
+
+                    metadataResolved( session, trace, metadata, localRepo, result.getException() );
+                    continue;
                 }
-                else
+
+                List<RemoteRepository> repositories = getEnabledSourceRepositories( repository, metadata.getNature() );
+
+                if ( repositories.isEmpty() )
                 {
-                    result.setException( new MetadataNotFoundException( metadata, localRepo ) );
+                    continue;
                 }
 
-                metadataResolved( session, trace, metadata, localRepo, result.getException() );
-                continue;
-            }
+                ResolveTask inflightTask = inflightTasks.get( key );
+                if ( inflightTask != null )
+                {
+                    sharedResolutions.add( new SharedResolution( trace, result, null, inflightTask, true ) );
+                    continue;
+                }
 
-            List<RemoteRepository> repositories = getEnabledSourceRepositories( repository, metadata.getNature() );
+                metadataResolving( session, trace, metadata, repository );
+                LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+                LocalMetadataRequest localRequest =
+                    new LocalMetadataRequest( metadata, repository, request.getRequestContext() );
+                LocalMetadataResult lrmResult = lrm.find( session, localRequest );
 
-            if ( repositories.isEmpty() )
-            {
-                continue;
-            }
+                File metadataFile = lrmResult.getFile();
 
-            metadataResolving( session, trace, metadata, repository );
-            LocalRepositoryManager lrm = session.getLocalRepositoryManager();
-            LocalMetadataRequest localRequest =
-                new LocalMetadataRequest( metadata, repository, request.getRequestContext() );
-            LocalMetadataResult lrmResult = lrm.find( session, localRequest );
+                if ( session.isOffline() )
+                {
+                    if ( metadataFile != null )
+                    {
+                        metadata = metadata.setFile( metadataFile );
+                        result.setMetadata( metadata );
+                    }
+                    else
+                    {
+                        String msg =
+                            "The repository system is offline but the metadata " + metadata + " from " + repository
+                                + " is not available in the local repository.";
+                        result.setException( new MetadataNotFoundException( metadata, repository, msg ) );
+                    }
 
-            File metadataFile = lrmResult.getFile();
+                    metadataResolved( session, trace, metadata, repository, result.getException() );
+                    continue;
+                }
 
-            if ( session.isOffline() )
-            {
-                if ( metadataFile != null )
+                if ( metadataFile != null && !lrmResult.isStale()
+                    && isUpdateDisabled( session, repositories, metadata ) )
                 {
+                    // the local copy is final, no need to consult the resolution tracking files
                     metadata = metadata.setFile( metadataFile );
                     result.setMetadata( metadata );
-                }
-                else
-                {
-                    String msg =
-                        "The repository system is offline but the metadata " + metadata + " from " + repository
-                            + " is not available in the local repository.";
-                    result.setException( new MetadataNotFoundException( metadata, repository, msg ) );
+                    metadataResolved( session, trace, metadata, repository, null );
+                    continue;
                 }
 
-                metadataResolved( session, trace, metadata, repository, result.getException() );
-                continue;
-            }
-
-            Long localLastUpdate = null;
-            if ( request.isFavorLocalRepository() )
-            {
-                File localFile = getLocalFile( session, metadata );
-                localLastUpdate = localLastUpdates.get( localFile );
-                if ( localLastUpdate == null )
+                if ( metadataFile != null )
                 {
-                    localLastUpdate = Long.valueOf( localFile != null ? localFile.lastModified() : 0 );
-                    localLastUpdates.put( localFile, localLastUpdate );
+                    // (re)loads the index that the update checks consult to recognize an unchanged local copy
+                    RepositoryIndex.get( session, repository, remoteRepositoryManager, logger );
                 }
-            }
 
-            List<UpdateCheck<Metadata, MetadataTransferException>> checks =
-                new ArrayList<UpdateCheck<Metadata, MetadataTransferException>>();
-            Exception exception = null;
-            for ( RemoteRepository repo : repositories )
-            {
-                UpdateCheck<Metadata, MetadataTransferException> check =
-                    new UpdateCheck<Metadata, MetadataTransferException>();
-                check.setLocalLastUpdated( ( localLastUpdate != null ) ? localLastUpdate.longValue() : 0 );
-                check.setItem( metadata );
-
-                // use 'main' installation file for the check (-> use requested repository)
-                File checkFile =
-                    new File(
-                              session.getLocalRepository().getBasedir(),
-                              session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata, repository,
-                                                                                            request.getRequestContext() ) );
-                check.setFile( checkFile );
-                check.setRepository( repository );
-                check.setAuthoritativeRepository( repo );
-                check.setPolicy( getPolicy( session, repo, metadata.getNature() ).getUpdatePolicy() );
-
-                if ( lrmResult.isStale() )
+                long localLastUpdate = 0;
+                if ( request.isFavorLocalRepository() )
                 {
-                    checks.add( check );
+                    File localFile = getLocalFile( session, metadata );
+                    Long lastModified = localLastUpdates.get( localFile );
+                    if ( lastModified == null )
+                    {
+                        lastModified = Long.valueOf( localFile != null ? localFile.lastModified() : 0 );
+                        localLastUpdates.put( localFile, lastModified );
+                    }
+                    localLastUpdate = lastModified.longValue();
                 }
-                else
+
+                List<UpdateCheck<Metadata, MetadataTransferException>> checks =
+                    new ArrayList<UpdateCheck<Metadata, MetadataTransferException>>();
+                Exception exception = null;
+                for ( RemoteRepository repo : repositories )
                 {
-                    updateCheckManager.checkMetadata( session, check );
-                    if ( check.isRequired() )
+                    UpdateCheck<Metadata, MetadataTransferException> check =
+                        newUpdateCheck( session, request, repo, localLastUpdate );
+
+                    if ( lrmResult.isStale() )
                     {
                         checks.add( check );
                     }
-                    else if ( exception == null )
+                    else
                     {
-                        exception = check.getException();
+                        updateCheckManager.checkMetadata( session, check );
+                        if ( check.isRequired() )
+                        {
+                            checks.add( check );
+                        }
+                        else if ( exception == null )
+                        {
+                            exception = check.getException();
+                        }
                     }
                 }
-            }
 
-            if ( !checks.isEmpty() )
-            {
-                RepositoryPolicy policy = getPolicy( session, repository, metadata.getNature() );
-
-                // install path may be different from lookup path
-                File installFile =
-                    new File(
-                              session.getLocalRepository().getBasedir(),
-                              session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata,
-                                                                                            request.getRepository(),
-                                                                                            request.getRequestContext() ) );
-
-                ResolveTask task =
-                    new ResolveTask( session, trace, result, installFile, checks, policy.getChecksumPolicy() );
-                tasks.add( task );
-            }
-            else
-            {
-                result.setException( exception );
-                if ( metadataFile != null )
+                if ( !checks.isEmpty() )
                 {
-                    metadata = metadata.setFile( metadataFile );
-                    result.setMetadata( metadata );
+                    RepositoryPolicy policy = getPolicy( session, repository, metadata.getNature() );
+
+                    // install path may be different from lookup path
+                    File installFile =
+                        new File( session.getLocalRepository().getBasedir(),
+                                  lrm.getPathForRemoteMetadata( metadata, request.getRepository(),
+                                                                request.getRequestContext() ) );
+
+                    ResolveTask task =
+                        new ResolveTask( session, trace, key, result, installFile, checks, policy.getChecksumPolicy() );
+                    inflightTask = inflightTasks.putIfAbsent( key, task );
+                    if ( inflightTask != null )
+                    {
+                        sharedResolutions.add( new SharedResolution( trace, result, null, inflightTask, false ) );
+                    }
+                    else
+                    {
+                        tasks.add( task );
+                    }
+                }
+                else
+                {
+                    result.setException( exception );
+                    if ( metadataFile != null )
+                    {
+                        metadata = metadata.setFile( metadataFile );
+                        result.setMetadata( metadata );
+                    }
+                    metadataResolved( session, trace, metadata, repository, result.getException() );
                 }
-                metadataResolved( session, trace, metadata, repository, result.getException() );
             }
-        }
 
-        if ( !tasks.isEmpty() )
-        {
-            int threads = ConfigurationProperties.get( session, "aether.metadataResolver.threads", 4 );
-            Executor executor = getExecutor( Math.min( tasks.size(), threads ) );
-            try
+            if ( !tasks.isEmpty() )
             {
+                int threads = ConfigurationProperties.get( session, "aether.metadataResolver.threads", 4 );
+                Executor executor = executorProvider.getExecutor( Math.min( tasks.size(), threads ) );
                 RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
 
                 for ( ResolveTask task : tasks )
@@ -355,35 +430,138 @@ public class DefaultMetadataResolver
                 {
                     task.result.setException( task.exception );
                 }
+
+                for ( ResolveTask task : tasks )
+                {
+                    Metadata metadata = task.request.getMetadata();
+                    // re-lookup metadata for resolve
+                    LocalMetadataRequest localRequest =
+                        new LocalMetadataRequest( metadata, task.request.getRepository(),
+                                                  task.request.getRequestContext() );
+                    File metadataFile = session.getLocalRepositoryManager().find( session, localRequest ).getFile();
+                    if ( metadataFile != null )
+                    {
+                        metadata = metadata.setFile( metadataFile );
+                        task.result.setMetadata( metadata );
+                    }
+                    if ( task.result.getException() == null )
+                    {
+                        task.result.setUpdated( true );
+                    }
+                    metadataResolved( session, task.trace, metadata, task.request.getRepository(),
+                                      task.result.getException() );
+                }
             }
-            finally
-            {
-                shutdown( executor );
-            }
+
+            resolved = true;
+        }
+        finally
+        {
+            // tasks are published before they run, concurrent callers waiting for them must never be left hanging
             for ( ResolveTask task : tasks )
             {
-                Metadata metadata = task.request.getMetadata();
-                // re-lookup metadata for resolve
-                LocalMetadataRequest localRequest =
-                    new LocalMetadataRequest( metadata, task.request.getRepository(), task.request.getRequestContext() );
-                File metadataFile = session.getLocalRepositoryManager().find( session, localRequest ).getFile();
-                if ( metadataFile != null )
-                {
-                    metadata = metadata.setFile( metadataFile );
-                    task.result.setMetadata( metadata );
-                }
-                if ( task.result.getException() == null )
+                if ( !resolved && task.result.getException() == null )
                 {
-                    task.result.setUpdated( true );
+                    task.result.setException( new MetadataTransferException( task.request.getMetadata(),
+                                                                             task.request.getRepository(),
+                                                                             "Resolution was aborted" ) );
                 }
-                metadataResolved( session, task.trace, metadata, task.request.getRepository(),
-                                  task.result.getException() );
+                inflightTasks.remove( task.key, task );
+                task.done.countDown();
             }
         }
 
+        for ( SharedResolution resolution : sharedResolutions )
+        {
+            resolveShared( session, resolution );
+        }
+
         return results;
     }
 
+    private void resolveShared( RepositorySystemSession session, SharedResolution resolution )
+    {
+        MetadataResult source = resolution.source;
+        if ( resolution.task != null )
+        {
+            try
+            {
+                resolution.task.done.await();
+                source = resolution.task.result;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                source = new MetadataResult( resolution.result.getRequest() );
+                source.setException( new MetadataTransferException( source.getRequest().getMetadata(),
+                                                                    source.getRequest().getRepository(),
+                                                                    "Interrupted while waiting for a concurrent "
+                                                                        + "resolution", e ) );
+            }
+        }
+
+        MetadataResult result = resolution.result;
+        Metadata metadata = result.getRequest().getMetadata();
+        ArtifactRepository repository = result.getRequest().getRepository();
+        if ( repository == null )
+        {
+            repository = session.getLocalRepositoryManager().getRepository();
+        }
+        else if ( getEnabledSourceRepositories( (RemoteRepository) repository, metadata.getNature() ).isEmpty() )
+        {
+            return;
+        }
+
+        if ( resolution.resolving )
+        {
+            metadataResolving( session, resolution.trace, metadata, repository );
+        }
+
+        if ( source.getMetadata() != null && source.getMetadata().getFile() != null )
+        {
+            metadata = metadata.setFile( source.getMetadata().getFile() );
+            result.setMetadata( metadata );
+        }
+        result.setException( source.getException() );
+        result.setUpdated( source.isUpdated() );
+
+        metadataResolved( session, resolution.trace, metadata, repository, result.getException() );
+    }
+
+    private UpdateCheck<Metadata, MetadataTransferException> newUpdateCheck( RepositorySystemSession session,
+                                                                             MetadataRequest request,
+                                                                             RemoteRepository repo,
+                                                                             long localLastUpdate )
+    {
+        Metadata metadata = request.getMetadata();
+        RemoteRepository repository = request.getRepository();
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+
+        UpdateCheck<Metadata, MetadataTransferException> check =
+            new UpdateCheck<Metadata, MetadataTransferException>();
+        check.setLocalLastUpdated( localLastUpdate );
+        check.setItem( metadata );
+
+        // use 'main' installation file for the check (-> use requested repository)
+        File checkFile =
+            new File( session.getLocalRepository().getBasedir(),
+                      lrm.getPathForRemoteMetadata( metadata, repository, request.getRequestContext() ) );
+        check.setFile( checkFile );
+        check.setRepository( repository );
+        check.setAuthoritativeRepository( repo );
+        check.setPolicy( getPolicy( session, repo, metadata.getNature() ).getUpdatePolicy() );
+
+        return check;
+    }
+
+    private boolean isUpdateDisabled( RepositorySystemSession session, List<RemoteRepository> repositories,
+                                      Metadata metadata )
+    {
+        boolean releases = !Metadata.Nature.SNAPSHOT.equals( metadata.getNature() );
+        boolean snapshots = !Metadata.Nature.RELEASE.equals( metadata.getNature() );
+        return Utils.isUpdateDisabled( session, remoteRepositoryManager, repositories, releases, snapshots );
+    }
+
     private File getLocalFile( RepositorySystemSession session, Metadata metadata )
     {
         LocalRepositoryManager lrm = session.getLocalRepositoryManager();
@@ -479,32 +657,6 @@ public class DefaultMetadataResolver
         repositoryEventDispatcher.dispatch( event );
     }
 
-    private Executor getExecutor( int threads )
-    {
-        if ( threads <= 1 )
-        {
-            return new Executor()
-            {
-                public void execute( Runnable command )
-                {
-                    command.run();
-                }
-            };
-        }
-        else
-        {
-            return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>() );
-        }
-    }
-
-    private void shutdown( Executor executor )
-    {
-        if ( executor instanceof ExecutorService )
-        {
-            ( (ExecutorService) executor ).shutdown();
-        }
-    }
-
     class ResolveTask
         implements Runnable
     {
@@ -513,6 +665,8 @@ public class DefaultMetadataResolver
 
         final RequestTrace trace;
 
+        final ResolveKey key;
+
         final MetadataResult result;
 
         final MetadataRequest request;
@@ -523,14 +677,17 @@ public class DefaultMetadataResolver
 
         final List<UpdateCheck<Metadata, MetadataTransferException>> checks;
 
+        final CountDownLatch done = new CountDownLatch( 1 );
+
         volatile MetadataTransferException exception;
 
-        public ResolveTask( RepositorySystemSession session, RequestTrace trace, MetadataResult result,
+        public ResolveTask( RepositorySystemSession session, RequestTrace trace, ResolveKey key, MetadataResult result,
                             File metadataFile, List<UpdateCheck<Metadata, MetadataTransferException>> checks,
                             String policy )
         {
             this.session = session;
             this.trace = trace;
+            this.key = key;
             this.result = result;
             this.request = result.getRequest();
             this.metadataFile = metadataFile;
@@ -602,4 +759,124 @@ public class DefaultMetadataResolver
 
     }
 
+    /**
+     * A request whose result is copied from another request for the same metadata, either from the same call or from
+     * the download task of a concurrent call.
+     */
+    static class SharedResolution
+    {
+
+        final RequestTrace trace;
+
+        final MetadataResult result;
+
+        final MetadataResult source;
+
+        final ResolveTask task;
+
+        final boolean resolving;
+
+        SharedResolution( RequestTrace trace, MetadataResult result, MetadataResult source, ResolveTask task,
+                          boolean resolving )
+        {
+            this.trace = trace;
+            this.result = result;
+            this.source = source;
+            this.task = task;
+            this.resolving = resolving;
+        }
+
+    }
+
+    /**
+     * Identifies requests that resolve the same metadata from the same repository into the same local repository.
+     */
+    static final class ResolveKey
+    {
+
+        private final File localRepository;
+
+        private final String groupId;
+
+        private final String artifactId;
+
+        private final String version;
+
+        private final String type;
+
+        private final Metadata.Nature nature;
+
+        private final RemoteRepository repository;
+
+        private final String context;
+
+        private final boolean favorLocalRepository;
+
+        private final boolean deleteLocalCopyIfMissing;
+
+        private final int hashCode;
+
+        ResolveKey( RepositorySystemSession session, MetadataRequest request )
+        {
+            Metadata metadata = request.getMetadata();
+            localRepository = session.getLocalRepository().getBasedir();
+            groupId = metadata.getGroupId();
+            artifactId = metadata.getArtifactId();
+            version = metadata.getVersion();
+            type = metadata.getType();
+            nature = metadata.getNature();
+            repository = request.getRepository();
+            context = request.getRequestContext();
+            favorLocalRepository = request.isFavorLocalRepository();
+            deleteLocalCopyIfMissing = request.isDeleteLocalCopyIfMissing();
+
+            int hash = 17;
+            hash = hash * 31 + hash( localRepository );
+            hash = hash * 31 + hash( groupId );
+            hash = hash * 31 + hash( artifactId );
+            hash = hash * 31 + hash( version );
+            hash = hash * 31 + hash( type );
+            hash = hash * 31 + hash( nature );
+            hash = hash * 31 + hash( repository );
+            hash = hash * 31 + hash( context );
+            hashCode = hash;
+        }
+
+        private static int hash( Object obj )
+        {
+            return ( obj != null ) ? obj.hashCode() : 0;
+        }
+
+        private static boolean eq( Object s1, Object s2 )
+        {
+            return ( s1 != null ) ? s1.equals( s2 ) : s2 == null;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof ResolveKey ) )
+            {
+                return false;
+            }
+            ResolveKey that = (ResolveKey) obj;
+            return eq( localRepository, that.localRepository ) && eq( groupId, that.groupId )
+                && eq( artifactId, that.artifactId ) && eq( version, that.version ) && eq( type, that.type )
+                && eq( nature, that.nature ) && eq( repository, that.repository ) && eq( context, that.context )
+                && favorLocalRepository == that.favorLocalRepository
+                && deleteLocalCopyIfMissing == that.deleteLocalCopyIfMissing;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
 }
@@ -26,6 +26,7 @@ import org.sonatype.aether.RepositorySystem;
 import org.sonatype.aether.impl.ArtifactResolver;
 import org.sonatype.aether.impl.DependencyCollector;
 import org.sonatype.aether.impl.Deployer;
+import org.sonatype.aether.impl.ExecutorProvider;
 import org.sonatype.aether.impl.Installer;
 import org.sonatype.aether.impl.MetadataResolver;
 import org.sonatype.aether.impl.RemoteRepositoryManager;
@@ -70,6 +71,7 @@ public class DefaultServiceLocator
         addService( UpdateCheckManager.class, DefaultUpdateCheckManager.class );
         addService( FileProcessor.class, DefaultFileProcessor.class );
         addService( SyncContextFactory.class, DefaultSyncContextFactory.class );
+        addService( ExecutorProvider.class, DefaultExecutorProvider.class );
         addService( RepositoryEventDispatcher.class, DefaultRepositoryEventDispatcher.class );
         addService( LocalRepositoryManagerFactory.class, SimpleLocalRepositoryManagerFactory.class );
         addService( LocalRepositoryManagerFactory.class, EnhancedLocalRepositoryManagerFactory.class );
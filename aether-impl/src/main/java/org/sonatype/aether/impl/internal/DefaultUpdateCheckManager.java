@@ -13,17 +13,23 @@ package org.sonatype.aether.impl.internal;
  *******************************************************************************/
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositoryCache;
 import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.impl.UpdateCheck;
 import org.sonatype.aether.impl.UpdateCheckManager;
@@ -40,6 +46,7 @@ import org.sonatype.aether.transfer.ArtifactNotFoundException;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataNotFoundException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.ChecksumCache;
 
 /**
  * @author Benjamin Bentmann
@@ -52,12 +59,26 @@ public class DefaultUpdateCheckManager
     @Requirement
     private Logger logger = NullLogger.INSTANCE;
 
+    /**
+     * The configuration property to keep the resolution tracking data of the local repository in a single index file
+     * rather than in properties files next to the artifacts and metadata.
+     */
+    static final String CONFIG_PROP_INDEX = "aether.updateCheckManager.index";
+
     private static final String UPDATED_KEY_SUFFIX = ".lastUpdated";
 
     private static final String ERROR_KEY_SUFFIX = ".error";
 
     private static final String NOT_FOUND = "";
 
+    private static final String KEYS = DefaultUpdateCheckManager.class.getName() + "$Keys";
+
+    private static final long DAILY = -1;
+
+    private static final String SHA1 = "SHA-1";
+
+    private volatile Day today = new Day( 0 );
+
     public DefaultUpdateCheckManager()
     {
         // enables default constructor
@@ -132,9 +153,9 @@ public class DefaultUpdateCheckManager
         boolean fileExists = artifactFile.exists();
 
         File touchFile = getTouchFile( artifact, artifactFile );
-        Properties props = read( touchFile );
+        Properties props = read( session, touchFile );
 
-        String dataKey = getDataKey( artifact, artifactFile, check.getRepository() );
+        String dataKey = getDataKey( session, artifact, artifactFile, check.getRepository() );
 
         String error = getError( props, dataKey );
 
@@ -156,7 +177,7 @@ public class DefaultUpdateCheckManager
         else
         {
             // artifact could not be transferred
-            String transferKey = getTransferKey( artifact, artifactFile, check.getRepository() );
+            String transferKey = getTransferKey( session, artifact, artifactFile, check.getRepository() );
             lastUpdated = getLastUpdated( props, transferKey );
         }
 
@@ -166,7 +187,15 @@ public class DefaultUpdateCheckManager
         }
         else if ( isUpdatedRequired( session, lastUpdated, check.getPolicy() ) )
         {
-            check.setRequired( true );
+            boolean unchanged =
+                fileExists && isUnchanged( session, check.getRepository(), RepositoryIndex.getPath( artifact ),
+                                           artifactFile );
+            if ( unchanged )
+            {
+                // like a download, restart the update interval such that the file is not verified again right away
+                artifactFile.setLastModified( System.currentTimeMillis() );
+            }
+            check.setRequired( !unchanged );
         }
         else if ( fileExists )
         {
@@ -241,7 +270,7 @@ public class DefaultUpdateCheckManager
         boolean fileExists = metadataFile.exists();
 
         File touchFile = getTouchFile( metadata, metadataFile );
-        Properties props = read( touchFile );
+        Properties props = read( session, touchFile );
 
         String dataKey = getDataKey( metadata, metadataFile, check.getAuthoritativeRepository() );
 
@@ -269,7 +298,7 @@ public class DefaultUpdateCheckManager
         else
         {
             // metadata could not be transferred
-            String transferKey = getTransferKey( metadata, metadataFile, check.getRepository() );
+            String transferKey = getTransferKey( session, metadata, metadataFile, check.getRepository() );
             lastUpdated = getLastUpdated( props, transferKey );
         }
 
@@ -279,7 +308,16 @@ public class DefaultUpdateCheckManager
         }
         else if ( isUpdatedRequired( session, lastUpdated, check.getPolicy() ) )
         {
-            check.setRequired( true );
+            boolean unchanged =
+                fileExists && isUnchanged( session, check.getRepository(), RepositoryIndex.getPath( metadata ),
+                                           metadataFile );
+            if ( unchanged )
+            {
+                // like a download, restart the update interval such that the file is not verified again right away
+                String transferKey = getTransferKey( session, metadata, metadataFile, check.getRepository() );
+                write( session, touchFile, dataKey, transferKey, null );
+            }
+            check.setRequired( !unchanged );
         }
         else if ( fileExists )
         {
@@ -340,6 +378,46 @@ public class DefaultUpdateCheckManager
         return props.getProperty( key + ERROR_KEY_SUFFIX );
     }
 
+    /**
+     * Determines whether the index of the repository (if loaded during this session) lists the specified file with the
+     * same checksum as the local copy, in which case the remote update check can be skipped.
+     */
+    private boolean isUnchanged( RepositorySystemSession session, RemoteRepository repository, String path, File file )
+    {
+        RepositoryIndex index = RepositoryIndex.find( session, repository );
+        String checksum = ( index != null ) ? index.getChecksum( path ) : null;
+        if ( checksum == null )
+        {
+            return false;
+        }
+
+        Object actual;
+        try
+        {
+            actual = ChecksumCache.getInstance().calc( file, Collections.singleton( SHA1 ) ).get( SHA1 );
+        }
+        catch ( IOException e )
+        {
+            actual = e;
+        }
+        if ( actual instanceof Exception )
+        {
+            logger.debug( "Could not calculate checksum of " + file + ": " + ( (Exception) actual ).getMessage() );
+            return false;
+        }
+
+        if ( checksum.equalsIgnoreCase( actual.toString() ) )
+        {
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( "Skipped remote update check for " + file + ", unchanged according to index of "
+                    + repository );
+            }
+            return true;
+        }
+        return false;
+    }
+
     private File getTouchFile( Artifact artifact, File artifactFile )
     {
         return new File( artifactFile.getPath() + ".lastUpdated" );
@@ -350,7 +428,21 @@ public class DefaultUpdateCheckManager
         return new File( metadataFile.getParent(), "resolver-status.properties" );
     }
 
-    private String getDataKey( Artifact artifact, File artifactFile, RemoteRepository repository )
+    private String getDataKey( RepositorySystemSession session, Artifact artifact, File artifactFile,
+                               RemoteRepository repository )
+    {
+        Map<String, CachedKey> keys = getKeys( session ).dataKeys;
+        String id = CachedKey.getId( repository );
+        CachedKey key = keys.get( id );
+        if ( key == null || !key.isValid( repository ) )
+        {
+            key = new CachedKey( repository, getDataKey( repository ) );
+            keys.put( id, key );
+        }
+        return key.value;
+    }
+
+    private String getDataKey( RemoteRepository repository )
     {
         Set<String> mirroredUrls = Collections.emptySet();
         if ( repository.isRepositoryManager() )
@@ -373,9 +465,10 @@ public class DefaultUpdateCheckManager
         return buffer.toString();
     }
 
-    private String getTransferKey( Artifact artifact, File artifactFile, RemoteRepository repository )
+    private String getTransferKey( RepositorySystemSession session, Artifact artifact, File artifactFile,
+                                   RemoteRepository repository )
     {
-        return getRepoKey( repository );
+        return getRepoKey( session, repository );
     }
 
     private String getDataKey( Metadata metadata, File metadataFile, RemoteRepository repository )
@@ -383,9 +476,23 @@ public class DefaultUpdateCheckManager
         return metadataFile.getName();
     }
 
-    private String getTransferKey( Metadata metadata, File metadataFile, RemoteRepository repository )
+    private String getTransferKey( RepositorySystemSession session, Metadata metadata, File metadataFile,
+                                   RemoteRepository repository )
     {
-        return metadataFile.getName() + '/' + getRepoKey( repository );
+        return metadataFile.getName() + '/' + getRepoKey( session, repository );
+    }
+
+    private String getRepoKey( RepositorySystemSession session, RemoteRepository repository )
+    {
+        Map<String, CachedKey> keys = getKeys( session ).repoKeys;
+        String id = CachedKey.getId( repository );
+        CachedKey key = keys.get( id );
+        if ( key == null || !key.isValid( repository ) )
+        {
+            key = new CachedKey( repository, getRepoKey( repository ) );
+            keys.put( id, key );
+        }
+        return key.value;
     }
 
     private String getRepoKey( RemoteRepository repository )
@@ -433,66 +540,140 @@ public class DefaultUpdateCheckManager
 
     public boolean isUpdatedRequired( RepositorySystemSession session, long lastModified, String policy )
     {
-        boolean checkForUpdates;
+        long interval = getUpdateInterval( session, policy );
 
+        if ( interval == DAILY )
+        {
+            return getStartOfDay() > lastModified;
+        }
+        else if ( interval == Long.MAX_VALUE )
+        {
+            // "never"
+            return false;
+        }
+        else if ( interval <= 0 )
+        {
+            // "always"
+            return true;
+        }
+
+        return System.currentTimeMillis() - interval > lastModified;
+    }
+
+    private long getUpdateInterval( RepositorySystemSession session, String policy )
+    {
         if ( policy == null )
         {
             policy = "";
         }
 
+        Keys keys = getKeys( session );
+        Long interval = keys.intervals.get( policy );
+        if ( interval == null )
+        {
+            interval = Long.valueOf( parseUpdateInterval( policy ) );
+            keys.intervals.put( policy, interval );
+        }
+        return interval.longValue();
+    }
+
+    private long parseUpdateInterval( String policy )
+    {
         if ( RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( policy ) )
         {
-            checkForUpdates = true;
+            return 0;
         }
         else if ( RepositoryPolicy.UPDATE_POLICY_DAILY.equals( policy ) )
         {
-            Calendar cal = Calendar.getInstance();
-            cal.set( Calendar.HOUR_OF_DAY, 0 );
-            cal.set( Calendar.MINUTE, 0 );
-            cal.set( Calendar.SECOND, 0 );
-            cal.set( Calendar.MILLISECOND, 0 );
-
-            checkForUpdates = cal.getTimeInMillis() > lastModified;
+            return DAILY;
         }
         else if ( policy.startsWith( RepositoryPolicy.UPDATE_POLICY_INTERVAL ) )
         {
             String s = policy.substring( RepositoryPolicy.UPDATE_POLICY_INTERVAL.length() + 1 );
             int minutes = Integer.valueOf( s );
-
-            Calendar cal = Calendar.getInstance();
-            cal.add( Calendar.MINUTE, -minutes );
-
-            checkForUpdates = cal.getTimeInMillis() > lastModified;
+            return minutes * 60L * 1000L;
         }
         else
         {
             // assume "never"
-            checkForUpdates = false;
+            return Long.MAX_VALUE;
         }
+    }
 
-        return checkForUpdates;
+    private long getStartOfDay()
+    {
+        long now = System.currentTimeMillis();
+        Day day = today;
+        if ( !day.contains( now ) )
+        {
+            day = new Day( now );
+            today = day;
+        }
+        return day.start;
     }
 
-    private Properties read( File touchFile )
+    private Properties read( RepositorySystemSession session, File touchFile )
     {
-        Properties props = new TrackingFileManager().setLogger( logger ).read( touchFile );
+        Properties props;
+        UpdateCheckIndex index = getIndex( session );
+        String key = ( index != null ) ? index.getKey( touchFile ) : null;
+        if ( key != null )
+        {
+            props = index.read( key );
+        }
+        else
+        {
+            props = new TrackingFileManager().setLogger( logger ).read( touchFile );
+        }
         return ( props != null ) ? props : new Properties();
     }
 
+    private UpdateCheckIndex getIndex( RepositorySystemSession session )
+    {
+        if ( !ConfigurationProperties.get( session, CONFIG_PROP_INDEX, false ) )
+        {
+            return null;
+        }
+
+        // the session keeps the index alive, it is released once no session uses the local repository anymore
+        File basedir = session.getLocalRepository().getBasedir();
+        SessionData data = session.getData();
+        Object key = UpdateCheckIndex.class.getName() + '/' + basedir.getAbsolutePath();
+        synchronized ( data )
+        {
+            UpdateCheckIndex index = (UpdateCheckIndex) data.get( key );
+            if ( index == null )
+            {
+                index = UpdateCheckIndex.getInstance( basedir, logger );
+                data.set( key, index );
+            }
+            return index;
+        }
+    }
+
     public void touchArtifact( RepositorySystemSession session, UpdateCheck<Artifact, ArtifactTransferException> check )
     {
         Artifact artifact = check.getItem();
         File artifactFile = check.getFile();
         File touchFile = getTouchFile( artifact, artifactFile );
 
-        String dataKey = getDataKey( artifact, artifactFile, check.getAuthoritativeRepository() );
-        String transferKey = getTransferKey( artifact, artifactFile, check.getRepository() );
+        String dataKey = getDataKey( session, artifact, artifactFile, check.getAuthoritativeRepository() );
+        String transferKey = getTransferKey( session, artifact, artifactFile, check.getRepository() );
 
-        Properties props = write( touchFile, dataKey, transferKey, check.getException() );
+        Properties props = write( session, touchFile, dataKey, transferKey, check.getException() );
 
         if ( artifactFile.exists() && !hasErrors( props ) )
         {
-            touchFile.delete();
+            UpdateCheckIndex index = getIndex( session );
+            String key = ( index != null ) ? index.getKey( touchFile ) : null;
+            if ( key != null )
+            {
+                index.delete( key );
+            }
+            else
+            {
+                touchFile.delete();
+            }
         }
     }
 
@@ -515,12 +696,35 @@ public class DefaultUpdateCheckManager
         File touchFile = getTouchFile( metadata, metadataFile );
 
         String dataKey = getDataKey( metadata, metadataFile, check.getAuthoritativeRepository() );
-        String transferKey = getTransferKey( metadata, metadataFile, check.getRepository() );
+        String transferKey = getTransferKey( session, metadata, metadataFile, check.getRepository() );
 
-        write( touchFile, dataKey, transferKey, check.getException() );
+        write( session, touchFile, dataKey, transferKey, check.getException() );
     }
 
-    private Properties write( File touchFile, String dataKey, String transferKey, Exception error )
+    private Keys getKeys( RepositorySystemSession session )
+    {
+        RepositoryCache cache = ( session != null ) ? session.getCache() : null;
+
+        Keys keys = null;
+        if ( cache != null )
+        {
+            keys = (Keys) cache.get( session, KEYS );
+        }
+
+        if ( keys == null )
+        {
+            keys = new Keys();
+            if ( cache != null )
+            {
+                cache.put( session, KEYS, keys );
+            }
+        }
+
+        return keys;
+    }
+
+    private Properties write( RepositorySystemSession session, File touchFile, String dataKey, String transferKey,
+                              Exception error )
     {
         Map<String, String> updates = new HashMap<String, String>();
 
@@ -550,7 +754,141 @@ public class DefaultUpdateCheckManager
             updates.put( transferKey + UPDATED_KEY_SUFFIX, timestamp );
         }
 
+        UpdateCheckIndex index = getIndex( session );
+        String key = ( index != null ) ? index.getKey( touchFile ) : null;
+        if ( key != null )
+        {
+            return index.update( key, updates );
+        }
         return new TrackingFileManager().setLogger( logger ).update( touchFile, updates );
     }
 
+    /**
+     * The keys and parsed update policies of a session. Repository instances are mutable and frequently recreated, so
+     * their keys are looked up by an immutable string derived from the repository identity and validated against the
+     * current repository properties on each lookup.
+     */
+    static class Keys
+    {
+
+        final Map<String, CachedKey> repoKeys = new ConcurrentHashMap<String, CachedKey>();
+
+        final Map<String, CachedKey> dataKeys = new ConcurrentHashMap<String, CachedKey>();
+
+        final Map<String, Long> intervals = new ConcurrentHashMap<String, Long>();
+
+    }
+
+    /**
+     * A key computed for a repository along with the repository properties it was derived from.
+     */
+    static final class CachedKey
+    {
+
+        final String value;
+
+        private final String url;
+
+        private final String contentType;
+
+        private final Proxy proxy;
+
+        private final Authentication auth;
+
+        private final boolean repositoryManager;
+
+        private final String[] mirroredUrls;
+
+        CachedKey( RemoteRepository repository, String value )
+        {
+            this.value = value;
+            url = repository.getUrl();
+            contentType = repository.getContentType();
+            proxy = repository.getProxy();
+            auth = repository.getAuthentication();
+            repositoryManager = repository.isRepositoryManager();
+            List<RemoteRepository> mirroredRepositories = repository.getMirroredRepositories();
+            mirroredUrls = new String[mirroredRepositories.size()];
+            for ( int i = 0; i < mirroredUrls.length; i++ )
+            {
+                mirroredUrls[i] = mirroredRepositories.get( i ).getUrl();
+            }
+        }
+
+        boolean isValid( RemoteRepository repository )
+        {
+            if ( !eq( url, repository.getUrl() ) || !eq( contentType, repository.getContentType() )
+                || !eq( proxy, repository.getProxy() ) || !eq( auth, repository.getAuthentication() )
+                || repositoryManager != repository.isRepositoryManager() )
+            {
+                return false;
+            }
+            List<RemoteRepository> mirroredRepositories = repository.getMirroredRepositories();
+            if ( mirroredUrls.length != mirroredRepositories.size() )
+            {
+                return false;
+            }
+            for ( int i = 0; i < mirroredUrls.length; i++ )
+            {
+                if ( !eq( mirroredUrls[i], mirroredRepositories.get( i ).getUrl() ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the string under which the keys of the specified repository are cached, i.e. its identifier, type, URL
+         * and the identifiers of the repositories it mirrors.
+         */
+        static String getId( RemoteRepository repository )
+        {
+            StringBuilder buffer = new StringBuilder( 128 );
+            buffer.append( repository.getId() ).append( '|' ).append( repository.getContentType() );
+            buffer.append( '|' ).append( repository.getUrl() );
+            for ( RemoteRepository mirroredRepository : repository.getMirroredRepositories() )
+            {
+                buffer.append( '|' ).append( mirroredRepository.getId() );
+            }
+            return buffer.toString();
+        }
+
+        private static boolean eq( Object o1, Object o2 )
+        {
+            return o1 != null ? o1.equals( o2 ) : o2 == null;
+        }
+
+    }
+
+    /**
+     * The local midnights enclosing a point in time, used to evaluate the daily update policy.
+     */
+    static class Day
+    {
+
+        final long start;
+
+        final long end;
+
+        Day( long time )
+        {
+            Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis( time );
+            cal.set( Calendar.HOUR_OF_DAY, 0 );
+            cal.set( Calendar.MINUTE, 0 );
+            cal.set( Calendar.SECOND, 0 );
+            cal.set( Calendar.MILLISECOND, 0 );
+            start = cal.getTimeInMillis();
+            cal.add( Calendar.DAY_OF_MONTH, 1 );
+            end = cal.getTimeInMillis();
+        }
+
+        boolean contains( long time )
+        {
+            return time >= start && time < end;
+        }
+
+    }
+
 }
@@ -17,6 +17,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 
@@ -105,13 +106,33 @@ public class EnhancedLocalRepositoryManager
     @Override
     public void add( RepositorySystemSession session, LocalArtifactRegistration request )
     {
-        if ( request.getRepository() == null )
+        add( session, Collections.singleton( request ) );
+    }
+
+    /**
+     * Registers the specified artifacts, updating the tracking file of each directory only once.
+     */
+    @Override
+    public void add( RepositorySystemSession session, Collection<LocalArtifactRegistration> requests )
+    {
+        Map<File, Map<String, String>> updates = new LinkedHashMap<File, Map<String, String>>();
+
+        for ( LocalArtifactRegistration request : requests )
         {
-            addArtifact( request.getArtifact(), Collections.singleton( LOCAL_REPO_ID ) );
+            if ( request.getRepository() == null )
+            {
+                addArtifact( updates, request.getArtifact(), Collections.singleton( LOCAL_REPO_ID ) );
+            }
+            else
+            {
+                addArtifact( updates, request.getArtifact(),
+                             getRepositoryKeys( request.getRepository(), request.getContexts() ) );
+            }
         }
-        else
+
+        for ( Map.Entry<File, Map<String, String>> entry : updates.entrySet() )
         {
-            addArtifact( request.getArtifact(), getRepositoryKeys( request.getRepository(), request.getContexts() ) );
+            trackingFileManager.update( entry.getKey(), entry.getValue() );
         }
     }
 
@@ -130,7 +151,8 @@ public class EnhancedLocalRepositoryManager
         return keys;
     }
 
-    private void addArtifact( Artifact artifact, Collection<String> repositories )
+    private void addArtifact( Map<File, Map<String, String>> updates, Artifact artifact,
+                              Collection<String> repositories )
     {
         if ( artifact == null )
         {
@@ -138,7 +160,7 @@ public class EnhancedLocalRepositoryManager
         }
         String path = getPathForLocalArtifact( artifact );
         File file = new File( getRepository().getBasedir(), path );
-        addRepo( file, repositories );
+        addRepo( updates, file, repositories );
     }
 
     private Properties readRepos( File artifactFile )
@@ -149,17 +171,21 @@ public class EnhancedLocalRepositoryManager
         return ( props != null ) ? props : new Properties();
     }
 
-    private void addRepo( File artifactFile, Collection<String> repositories )
+    private void addRepo( Map<File, Map<String, String>> updates, File artifactFile, Collection<String> repositories )
     {
-        Map<String, String> updates = new HashMap<String, String>();
-        for ( String repository : repositories )
+        File trackingFile = getTrackingFile( artifactFile );
+
+        Map<String, String> fileUpdates = updates.get( trackingFile );
+        if ( fileUpdates == null )
         {
-            updates.put( getKey( artifactFile, repository ), "" );
+            fileUpdates = new HashMap<String, String>();
+            updates.put( trackingFile, fileUpdates );
         }
 
-        File trackingFile = getTrackingFile( artifactFile );
-
-        trackingFileManager.update( trackingFile, updates );
+        for ( String repository : repositories )
+        {
+            fileUpdates.put( getKey( artifactFile, repository ), "" );
+        }
     }
 
     private File getTrackingFile( File artifactFile )
@@ -0,0 +1,515 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.impl.RemoteRepositoryManager;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.log.Logger;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+import org.sonatype.aether.util.ChecksumUtils;
+import org.sonatype.aether.util.layout.MavenDefaultLayout;
+import org.sonatype.aether.util.layout.RepositoryLayout;
+import org.sonatype.aether.util.metadata.DefaultMetadata;
+
+/**
+ * A listing of the files in a remote repository along with their SHA-1 checksums. The index is a text file named
+ * {@value #NAME} in the root of the repository, either produced by a repository manager or built via
+ * {@link #build(File)} from a local mirror. Each line holds the path of a file relative to the repository root and
+ * optionally its checksum, separated by a tab. When enabled via {@value #CONFIG_PROP_ENABLED}, the index of a
+ * repository is downloaded alongside the other metadata and consulted to skip update checks for local copies that are
+ * unchanged. As files can get published at any time, the index is refreshed at its own interval regardless of the
+ * update policy of the repository and files missing from the index are still requested from the repository. The index
+ * is only used for repositories with the Maven default layout.
+ */
+public final class RepositoryIndex
+{
+
+    /**
+     * The name of the index file in the root of a repository.
+     */
+    public static final String NAME = "aether-index.txt";
+
+    /**
+     * The configuration property to enable the use of repository indexes, defaults to {@code false}.
+     */
+    public static final String CONFIG_PROP_ENABLED = "aether.repositoryIndex";
+
+    /**
+     * The configuration property for the time in milliseconds after which the index of a repository is downloaded
+     * again, defaults to 10 minutes.
+     */
+    public static final String CONFIG_PROP_REFRESH_INTERVAL = "aether.repositoryIndex.refreshInterval";
+
+    private static final int DEFAULT_REFRESH_INTERVAL = 10 * 60 * 1000;
+
+    private static final String HEADER = "# aether repository index";
+
+    private static final String SHA1 = "SHA-1";
+
+    private static final Metadata METADATA = new DefaultMetadata( NAME, Metadata.Nature.RELEASE_OR_SNAPSHOT );
+
+    private static final RepositoryLayout LAYOUT = new MavenDefaultLayout();
+
+    private final String[] paths;
+
+    private final String[] checksums;
+
+    private RepositoryIndex( Map<String, String> entries )
+    {
+        paths = entries.keySet().toArray( new String[entries.size()] );
+        checksums = entries.values().toArray( new String[entries.size()] );
+    }
+
+    /**
+     * Builds the index for the repository in the specified directory, e.g. the base directory of a {@code file:}
+     * repository. Hidden files, checksum files and a previous index are not listed.
+     * 
+     * @param basedir The base directory of the repository, must not be {@code null}.
+     * @return The index, never {@code null}.
+     * @throws IOException If the directory could not be scanned.
+     */
+    public static RepositoryIndex build( File basedir )
+        throws IOException
+    {
+        Map<String, String> entries = new TreeMap<String, String>();
+        scan( basedir, "", entries );
+        return new RepositoryIndex( entries );
+    }
+
+    private static void scan( File dir, String prefix, Map<String, String> entries )
+        throws IOException
+    {
+        File[] files = dir.listFiles();
+        if ( files == null )
+        {
+            throw new IOException( "Could not list " + dir.getAbsolutePath() );
+        }
+        for ( File file : files )
+        {
+            String name = file.getName();
+            if ( name.startsWith( "." ) )
+            {
+                continue;
+            }
+            if ( file.isDirectory() )
+            {
+                scan( file, prefix + name + '/', entries );
+            }
+            else if ( !name.endsWith( ".sha1" ) && !name.endsWith( ".md5" ) && !( prefix + name ).equals( NAME ) )
+            {
+                entries.put( prefix + name, sha1( file ) );
+            }
+        }
+    }
+
+    /**
+     * Reads the index from the specified file.
+     * 
+     * @param file The index file to read, must not be {@code null}.
+     * @return The index, never {@code null}.
+     * @throws IOException If the file could not be read.
+     */
+    public static RepositoryIndex read( File file )
+        throws IOException
+    {
+        Map<String, String> entries = new TreeMap<String, String>();
+
+        BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+        try
+        {
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+            {
+                line = line.trim();
+                if ( line.length() <= 0 || line.startsWith( "#" ) )
+                {
+                    continue;
+                }
+                int separator = getSeparator( line );
+                if ( separator < 0 )
+                {
+                    entries.put( line, null );
+                }
+                else
+                {
+                    entries.put( line.substring( 0, separator ), line.substring( separator + 1 ).trim() );
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return new RepositoryIndex( entries );
+    }
+
+    /**
+     * Gets the position of the character separating the path from the checksum. Paths may contain spaces, so besides a
+     * tab only a space followed by a hex string of the length of a SHA-1 checksum separates the two.
+     */
+    private static int getSeparator( String line )
+    {
+        int tab = line.indexOf( '\t' );
+        if ( tab >= 0 )
+        {
+            return tab;
+        }
+        int space = line.lastIndexOf( ' ' );
+        if ( space < 0 || line.length() - space - 1 != 40 )
+        {
+            return -1;
+        }
+        for ( int i = space + 1; i < line.length(); i++ )
+        {
+            if ( Character.digit( line.charAt( i ), 16 ) < 0 )
+            {
+                return -1;
+            }
+        }
+        return space;
+    }
+
+    /**
+     * Writes this index to the specified file. A checksum file is written next to the index such that it can be
+     * downloaded with a strict checksum policy.
+     * 
+     * @param file The file to write the index to, must not be {@code null}.
+     * @throws IOException If the file could not be written.
+     */
+    public void write( File file )
+        throws IOException
+    {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        try
+        {
+            writer.write( HEADER );
+            writer.write( '\n' );
+            for ( int i = 0; i < paths.length; i++ )
+            {
+                writer.write( paths[i] );
+                if ( checksums[i] != null )
+                {
+                    writer.write( '\t' );
+                    writer.write( checksums[i] );
+                }
+                writer.write( '\n' );
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        String checksum = sha1( file );
+        writer = new OutputStreamWriter( new FileOutputStream( new File( file.getPath() + ".sha1" ) ), "UTF-8" );
+        try
+        {
+            writer.write( checksum );
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Calculates the SHA-1 checksum of the specified file.
+     * 
+     * @param file The file to calculate the checksum of, must not be {@code null}.
+     * @return The checksum as hex string, never {@code null}.
+     * @throws IOException If the file could not be read.
+     */
+    static String sha1( File file )
+        throws IOException
+    {
+        Object checksum = ChecksumUtils.calc( file, Collections.singleton( SHA1 ) ).get( SHA1 );
+        if ( checksum instanceof Exception )
+        {
+            IOException e = new IOException( "Could not calculate checksum of " + file );
+            e.initCause( (Throwable) checksum );
+            throw e;
+        }
+        return checksum.toString();
+    }
+
+    /**
+     * Gets the number of files listed by this index.
+     * 
+     * @return The number of files.
+     */
+    public int size()
+    {
+        return paths.length;
+    }
+
+    /**
+     * Determines whether the specified file is listed by this index.
+     * 
+     * @param path The path of the file relative to the repository root, must not be {@code null}.
+     * @return {@code true} if the file exists in the repository, {@code false} otherwise.
+     */
+    public boolean contains( String path )
+    {
+        return Arrays.binarySearch( paths, path ) >= 0;
+    }
+
+    /**
+     * Gets the SHA-1 checksum of the specified file.
+     * 
+     * @param path The path of the file relative to the repository root, must not be {@code null}.
+     * @return The checksum or {@code null} if the file is not listed or its checksum is unknown.
+     */
+    public String getChecksum( String path )
+    {
+        int index = Arrays.binarySearch( paths, path );
+        return ( index >= 0 ) ? checksums[index] : null;
+    }
+
+    /**
+     * Gets the versions of the specified artifact that are present in the repository.
+     * 
+     * @param groupId The group identifier of the artifact, must not be {@code null}.
+     * @param artifactId The artifact identifier of the artifact, must not be {@code null}.
+     * @return The (unordered) versions, never {@code null}.
+     */
+    public List<String> getVersions( String groupId, String artifactId )
+    {
+        String prefix = groupId.replace( '.', '/' ) + '/' + artifactId + '/';
+
+        int index = Arrays.binarySearch( paths, prefix );
+        if ( index < 0 )
+        {
+            index = -index - 1;
+        }
+
+        Set<String> versions = new LinkedHashSet<String>();
+        for ( ; index < paths.length && paths[index].startsWith( prefix ); index++ )
+        {
+            int slash = paths[index].indexOf( '/', prefix.length() );
+            if ( slash > prefix.length() )
+            {
+                versions.add( paths[index].substring( prefix.length(), slash ) );
+            }
+        }
+
+        return new ArrayList<String>( versions );
+    }
+
+    /**
+     * Gets the path of the specified artifact relative to the repository root.
+     */
+    public static String getPath( Artifact artifact )
+    {
+        return LAYOUT.getPath( artifact ).getPath();
+    }
+
+    /**
+     * Gets the path of the specified metadata relative to the repository root.
+     */
+    public static String getPath( Metadata metadata )
+    {
+        return LAYOUT.getPath( metadata ).getPath();
+    }
+
+    /**
+     * Gets the index of the specified repository, downloading it if the local copy is missing or older than the
+     * {@link #CONFIG_PROP_REFRESH_INTERVAL refresh interval}. Within a session, the index is reloaded once the refresh
+     * interval has elapsed.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param repository The repository whose index should be retrieved, must not be {@code null}.
+     * @param remoteRepositoryManager The remote repository manager used to download the index, must not be
+     *            {@code null}.
+     * @param logger The logger to use, must not be {@code null}.
+     * @return The index or {@code null} if indexes are disabled or the repository has no index.
+     */
+    public static RepositoryIndex get( RepositorySystemSession session, RemoteRepository repository,
+                                       RemoteRepositoryManager remoteRepositoryManager, Logger logger )
+    {
+        Ref ref = getRef( session, repository );
+        if ( ref == null )
+        {
+            return null;
+        }
+
+        long interval = ConfigurationProperties.get( session, CONFIG_PROP_REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL );
+
+        synchronized ( ref )
+        {
+            long now = System.currentTimeMillis();
+            if ( !ref.loaded || now - ref.timestamp >= interval )
+            {
+                ref.index = load( session, repository, remoteRepositoryManager, interval, logger );
+                ref.loaded = true;
+                ref.timestamp = now;
+            }
+            return ref.index;
+        }
+    }
+
+    /**
+     * Gets the index of the specified repository if it has already been loaded during the session.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param repository The repository whose index should be retrieved, must not be {@code null}.
+     * @return The index or {@code null} if the index is not available.
+     */
+    public static RepositoryIndex find( RepositorySystemSession session, RemoteRepository repository )
+    {
+        Ref ref = getRef( session, repository );
+        if ( ref == null )
+        {
+            return null;
+        }
+
+        synchronized ( ref )
+        {
+            return ref.index;
+        }
+    }
+
+    private static Ref getRef( RepositorySystemSession session, RemoteRepository repository )
+    {
+        if ( repository == null || !"default".equals( repository.getContentType() )
+            || !ConfigurationProperties.get( session, CONFIG_PROP_ENABLED, false ) )
+        {
+            return null;
+        }
+
+        SessionData data = session.getData();
+        Object key = RepositoryIndex.class.getName() + '/' + repository.getId() + '/' + repository.getUrl();
+
+        synchronized ( data )
+        {
+            Ref ref = (Ref) data.get( key );
+            if ( ref == null )
+            {
+                ref = new Ref();
+                data.set( key, ref );
+            }
+            return ref;
+        }
+    }
+
+    private static RepositoryIndex load( RepositorySystemSession session, RemoteRepository repository,
+                                         RemoteRepositoryManager remoteRepositoryManager, long interval,
+                                         Logger logger )
+    {
+        File file =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( METADATA, repository, "" ) );
+
+        RepositoryPolicy policy = remoteRepositoryManager.getPolicy( session, repository, true, true );
+
+        if ( !session.isOffline()
+            && ( !file.isFile() || System.currentTimeMillis() - file.lastModified() >= interval ) )
+        {
+            MetadataDownload download = new MetadataDownload( METADATA, "", file, policy.getChecksumPolicy() );
+            try
+            {
+                RepositoryConnector connector = remoteRepositoryManager.getRepositoryConnector( session, repository );
+                try
+                {
+                    connector.get( null, Collections.singletonList( download ) );
+                }
+                finally
+                {
+                    connector.close();
+                }
+            }
+            catch ( NoRepositoryConnectorException e )
+            {
+                download.setException( new MetadataTransferException( METADATA, repository, e ) );
+            }
+
+            if ( download.getException() instanceof MetadataNotFoundException )
+            {
+                logger.debug( "No index available for " + repository );
+                file.delete();
+                return null;
+            }
+            else if ( download.getException() != null )
+            {
+                // a stale index would report anything published since as absent, better go without an index
+                logger.debug( "Could not update index for " + repository + ", ignoring the index: "
+                    + download.getException().getMessage() );
+                return null;
+            }
+            else
+            {
+                file.setLastModified( System.currentTimeMillis() );
+            }
+        }
+
+        if ( !file.isFile() )
+        {
+            return null;
+        }
+
+        try
+        {
+            RepositoryIndex index = read( file );
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( "Using index of " + repository + " with " + index.size() + " files" );
+            }
+            return index;
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Could not read index " + file + ": " + e.getMessage() );
+            return null;
+        }
+    }
+
+    static class Ref
+    {
+
+        RepositoryIndex index;
+
+        boolean loaded;
+
+        long timestamp;
+
+    }
+
+}
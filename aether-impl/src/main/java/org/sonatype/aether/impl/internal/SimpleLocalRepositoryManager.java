@@ -13,6 +13,7 @@ package org.sonatype.aether.impl.internal;
  *******************************************************************************/
 
 import java.io.File;
+import java.util.Collection;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -26,8 +27,8 @@ import org.sonatype.aether.repository.LocalMetadataRegistration;
 import org.sonatype.aether.repository.LocalMetadataRequest;
 import org.sonatype.aether.repository.LocalMetadataResult;
 import org.sonatype.aether.repository.LocalRepository;
-import org.sonatype.aether.repository.LocalRepositoryManager;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.localrepo.BatchLocalRepositoryManager;
 import org.sonatype.aether.spi.log.Logger;
 
 /**
@@ -36,7 +37,7 @@ import org.sonatype.aether.spi.log.Logger;
  * @author Benjamin Bentmann
  */
 public class SimpleLocalRepositoryManager
-    implements LocalRepositoryManager
+    implements BatchLocalRepositoryManager
 {
 
     private final LocalRepository repository;
@@ -206,6 +207,22 @@ public class SimpleLocalRepositoryManager
         // noop
     }
 
+    /**
+     * Registers the specified artifacts with the local repository.
+     * 
+     * @param session The repository system session during which the artifacts were installed or downloaded, must not
+     *            be {@code null}.
+     * @param requests The registration requests, must not be {@code null}.
+     * @see #add(RepositorySystemSession, LocalArtifactRegistration)
+     */
+    public void add( RepositorySystemSession session, Collection<LocalArtifactRegistration> requests )
+    {
+        for ( LocalArtifactRegistration request : requests )
+        {
+            add( session, request );
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,249 @@
+package org.sonatype.aether.impl.internal;
+
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositoryCache;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.ArtifactRepository;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.VersionResult;
+
+/**
+ * Remembers the timestamped versions that snapshot artifacts were resolved to during a session such that repeated
+ * resolutions of the same snapshot need not consult the version resolver (and hence the maven-metadata.xml) again. The
+ * cached versions of a snapshot are invalidated whenever it is installed or deployed or its metadata got updated from a
+ * remote repository. Invalidation bumps a per-snapshot generation which is recorded with each cached version, so a
+ * version resolved concurrently to an invalidation is never served afterwards. Besides, a cached version is only
+ * served as long as the snapshot update policies of the repositories would not check for updates, see
+ * {@link Entry#timestamp}. As snapshots deployed by other processes are only noticed once an entry expired, the cache
+ * is disabled by default.
+ */
+final class SnapshotVersionCache
+{
+
+    /**
+     * The configuration property to enable the cache, defaults to {@code false}.
+     */
+    static final String CONFIG_PROP_ENABLED = "aether.artifactResolver.snapshotVersionCache";
+
+    private static final String KEY = SnapshotVersionCache.class.getName();
+
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+
+    private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Gets the cache of the specified session.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @return The cache or {@code null} if the session has no repository cache or the cache is disabled.
+     */
+    public static SnapshotVersionCache get( RepositorySystemSession session )
+    {
+        RepositoryCache cache = session.getCache();
+        if ( cache == null || !ConfigurationProperties.get( session, CONFIG_PROP_ENABLED, false ) )
+        {
+            return null;
+        }
+
+        synchronized ( cache )
+        {
+            SnapshotVersionCache versions = (SnapshotVersionCache) cache.get( session, KEY );
+            if ( versions == null )
+            {
+                versions = new SnapshotVersionCache();
+                cache.put( session, KEY, versions );
+            }
+            return versions;
+        }
+    }
+
+    /**
+     * Invalidates the cached resolutions of the snapshots among the specified artifacts and metadata, e.g. after they
+     * have been installed or deployed.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param artifacts The artifacts that have changed, must not be {@code null}.
+     * @param metadata The metadata that has changed, must not be {@code null}.
+     */
+    public static void invalidate( RepositorySystemSession session, Collection<? extends Artifact> artifacts,
+                                   Collection<? extends Metadata> metadata )
+    {
+        SnapshotVersionCache versions = get( session );
+        if ( versions != null )
+        {
+            versions.invalidateArtifacts( artifacts );
+            versions.invalidateMetadata( metadata );
+        }
+    }
+
+    /**
+     * Determines whether the version of the specified artifact is a snapshot that is subject to caching.
+     */
+    public static boolean isCacheable( Artifact artifact )
+    {
+        return artifact.isSnapshot() && artifact.getVersion().equals( artifact.getBaseVersion() );
+    }
+
+    /**
+     * Gets the current generation of the specified artifact's snapshot. The generation must be obtained before the
+     * version is resolved and passed to {@link #put(Artifact, List, String, long, VersionResult)}.
+     */
+    public long getGeneration( Artifact artifact )
+    {
+        Long generation = generations.get( getId( artifact ) );
+        return ( generation != null ) ? generation.longValue() : 0;
+    }
+
+    /**
+     * Gets the cached resolution of the specified snapshot.
+     * 
+     * @return The cached resolution or {@code null} if none.
+     */
+    public Entry find( Artifact artifact, List<RemoteRepository> repositories, String context )
+    {
+        Entry entry = entries.get( getKey( artifact, repositories, context ) );
+        if ( entry != null && entry.generation != getGeneration( artifact ) )
+        {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the resolution of the specified snapshot, unless the snapshot was invalidated since the given generation.
+     */
+    public void put( Artifact artifact, List<RemoteRepository> repositories, String context, long generation,
+                     VersionResult result )
+    {
+        if ( result.getVersion() == null || generation != getGeneration( artifact ) )
+        {
+            return;
+        }
+        Entry entry = new Entry( result.getVersion(), result.getRepository(), generation, System.currentTimeMillis() );
+        entries.put( getKey( artifact, repositories, context ), entry );
+    }
+
+    /**
+     * Invalidates the cached resolutions of the snapshots of the specified artifacts.
+     */
+    public void invalidateArtifacts( Collection<? extends Artifact> artifacts )
+    {
+        for ( Artifact artifact : artifacts )
+        {
+            if ( artifact.isSnapshot() )
+            {
+                invalidate( getId( artifact ) );
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cached resolutions of the snapshots described by the specified version-level metadata.
+     */
+    public void invalidateMetadata( Collection<? extends Metadata> metadata )
+    {
+        for ( Metadata md : metadata )
+        {
+            if ( md.getVersion().endsWith( "SNAPSHOT" ) )
+            {
+                invalidate( md.getGroupId() + ':' + md.getArtifactId() + ':' + md.getVersion() );
+            }
+        }
+    }
+
+    private void invalidate( String id )
+    {
+        while ( true )
+        {
+            Long generation = generations.get( id );
+            if ( generation == null )
+            {
+                if ( generations.putIfAbsent( id, Long.valueOf( 1 ) ) == null )
+                {
+                    return;
+                }
+            }
+            else if ( generations.replace( id, generation, Long.valueOf( generation.longValue() + 1 ) ) )
+            {
+                return;
+            }
+        }
+    }
+
+    private static String getId( Artifact artifact )
+    {
+        return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getBaseVersion();
+    }
+
+    /**
+     * Creates an immutable summary of the lookup. Repositories are identified by id and URL, the mirrored repositories
+     * of a repository manager are included as they determine the metadata that gets merged.
+     */
+    private static Object getKey( Artifact artifact, List<RemoteRepository> repositories, String context )
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+        buffer.append( artifact.getGroupId() ).append( ':' ).append( artifact.getArtifactId() );
+        buffer.append( ':' ).append( artifact.getBaseVersion() ).append( ':' ).append( artifact.getClassifier() );
+        buffer.append( ':' ).append( artifact.getExtension() );
+        buffer.append( '|' ).append( ( context != null ) ? context : "" );
+        for ( RemoteRepository repository : repositories )
+        {
+            append( buffer.append( '|' ), repository );
+            for ( RemoteRepository mirrored : repository.getMirroredRepositories() )
+            {
+                append( buffer.append( '>' ), mirrored );
+            }
+        }
+        return buffer.toString();
+    }
+
+    private static void append( StringBuilder buffer, RemoteRepository repository )
+    {
+        buffer.append( repository.getId() ).append( '@' ).append( repository.getUrl() );
+    }
+
+    static final class Entry
+    {
+
+        final String version;
+
+        final ArtifactRepository repository;
+
+        final long generation;
+
+        /**
+         * The time when the version was resolved, to be checked against the update policies of the repositories.
+         */
+        final long timestamp;
+
+        Entry( String version, ArtifactRepository repository, long generation, long timestamp )
+        {
+            this.version = version;
+            this.repository = repository;
+            this.generation = generation;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,600 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import org.sonatype.aether.spi.log.Logger;
+import org.sonatype.aether.spi.log.NullLogger;
+
+/**
+ * Keeps the resolution tracking data of an entire local repository in a single append-only log file instead of one
+ * properties file per directory. The log is replayed into memory such that lookups need no file access as long as the
+ * log has not grown since it was last read. Each change is appended as a record while holding an exclusive lock on the
+ * log, which makes the index safe to share among processes. Once most records are obsolete, the live data is written
+ * to a new log with a new generation number that atomically replaces the old log. The old log is marked as obsolete
+ * such that processes which opened it before the replacement reopen the file. A record that cannot be decoded ends the
+ * log, i.e. it is dropped together with all subsequent records by the next writer.
+ */
+class UpdateCheckIndex
+{
+
+    static final String FILE_NAME = "resolver-status.index";
+
+    private static final int MAGIC = 0x41455449;
+
+    private static final int MAGIC_OBSOLETE = 0x4145544F;
+
+    private static final int MAX_REOPENS = 8;
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int COMPACT_THRESHOLD = 10000;
+
+    private static final int MAX_VALUE_LENGTH = 16 * 1024;
+
+    private static final byte OP_PUT = 1;
+
+    private static final byte OP_REMOVE = 2;
+
+    private static final byte OP_CLEAR = 3;
+
+    private static final Map<File, Reference<UpdateCheckIndex>> INDEXES =
+        new HashMap<File, Reference<UpdateCheckIndex>>();
+
+    private final String basedir;
+
+    private final File file;
+
+    private final int compactThreshold;
+
+    private Logger logger = NullLogger.INSTANCE;
+
+    private final Map<String, Properties> entries = new HashMap<String, Properties>();
+
+    private long generation = -1;
+
+    private long offset = HEADER_SIZE;
+
+    private int records;
+
+    private long lastLength = -1;
+
+    private long lastModified = -1;
+
+    /**
+     * Gets the index for the specified local repository. All users within this JVM share one instance per repository
+     * such that they do not compete for the file lock held by the JVM. The instance is only weakly referenced, callers
+     * are expected to hold on to it for as long as they use the repository.
+     * 
+     * @param basedir The base directory of the local repository, must not be {@code null}.
+     * @param logger The logger to use, may be {@code null}.
+     * @return The index, never {@code null}.
+     */
+    public static UpdateCheckIndex getInstance( File basedir, Logger logger )
+    {
+        File key = basedir.getAbsoluteFile();
+        synchronized ( INDEXES )
+        {
+            Reference<UpdateCheckIndex> ref = INDEXES.get( key );
+            UpdateCheckIndex index = ( ref != null ) ? ref.get() : null;
+            if ( index == null )
+            {
+                for ( Iterator<Reference<UpdateCheckIndex>> it = INDEXES.values().iterator(); it.hasNext(); )
+                {
+                    if ( it.next().get() == null )
+                    {
+                        it.remove();
+                    }
+                }
+                index = new UpdateCheckIndex( key, COMPACT_THRESHOLD );
+                INDEXES.put( key, new WeakReference<UpdateCheckIndex>( index ) );
+            }
+            return index.setLogger( logger );
+        }
+    }
+
+    UpdateCheckIndex( File basedir, int compactThreshold )
+    {
+        this.basedir = basedir.getAbsolutePath() + File.separatorChar;
+        this.file = new File( basedir, FILE_NAME );
+        this.compactThreshold = compactThreshold;
+    }
+
+    public synchronized UpdateCheckIndex setLogger( Logger logger )
+    {
+        if ( logger != null )
+        {
+            this.logger = logger;
+        }
+        return this;
+    }
+
+    /**
+     * Gets the key under which the data of the specified tracking file is stored.
+     * 
+     * @param trackingFile The tracking file, must not be {@code null}.
+     * @return The key or {@code null} if the tracking file is not located within the local repository.
+     */
+    public String getKey( File trackingFile )
+    {
+        String path = trackingFile.getAbsolutePath();
+        if ( !path.startsWith( basedir ) )
+        {
+            return null;
+        }
+        return path.substring( basedir.length() ).replace( File.separatorChar, '/' );
+    }
+
+    /**
+     * Reads the data stored for the specified key.
+     * 
+     * @param key The key as returned by {@link #getKey(File)}, must not be {@code null}.
+     * @return A copy of the stored data or {@code null} if none.
+     */
+    public synchronized Properties read( String key )
+    {
+        if ( file.length() != lastLength || file.lastModified() != lastModified )
+        {
+            access( null, null );
+        }
+
+        Properties props = entries.get( key );
+        return ( props != null ) ? copy( props ) : null;
+    }
+
+    /**
+     * Applies the specified updates to the data stored for the given key.
+     * 
+     * @param key The key as returned by {@link #getKey(File)}, must not be {@code null}.
+     * @param updates The properties to set, properties with a {@code null} value are removed, must not be {@code null}.
+     * @return A copy of the updated data, never {@code null}.
+     */
+    public synchronized Properties update( String key, Map<String, String> updates )
+    {
+        access( key, updates );
+
+        Properties props = entries.get( key );
+        return ( props != null ) ? copy( props ) : new Properties();
+    }
+
+    /**
+     * Removes all data stored for the specified key.
+     * 
+     * @param key The key as returned by {@link #getKey(File)}, must not be {@code null}.
+     */
+    public synchronized void delete( String key )
+    {
+        if ( entries.containsKey( key ) )
+        {
+            access( key, null );
+        }
+    }
+
+    private void access( String key, Map<String, String> updates )
+    {
+        boolean write = key != null;
+
+        if ( write )
+        {
+            File directory = file.getParentFile();
+            if ( !directory.exists() && !directory.mkdirs() )
+            {
+                logger.warn( "Failed to create parent directories for resolution tracking index " + file );
+                return;
+            }
+        }
+        else if ( !file.exists() )
+        {
+            reset( -1 );
+            lastLength = lastModified = -1;
+            return;
+        }
+
+        try
+        {
+            for ( int reopens = 0;; reopens++ )
+            {
+                RandomAccessFile raf = new RandomAccessFile( file, write ? "rw" : "r" );
+                FileLock lock = null;
+                try
+                {
+                    lock = lock( raf.getChannel(), !write );
+                    if ( reopens < MAX_REOPENS && isObsolete( raf ) )
+                    {
+                        // the log got replaced by a compaction while we were waiting for the lock
+                        continue;
+                    }
+                    process( raf, key, updates );
+                    break;
+                }
+                finally
+                {
+                    release( lock );
+                    close( raf );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Failed to " + ( write ? "write" : "read" ) + " resolution tracking index " + file, e );
+        }
+
+        lastLength = file.length();
+        lastModified = file.lastModified();
+    }
+
+    private void process( RandomAccessFile raf, String key, Map<String, String> updates )
+        throws IOException
+    {
+        boolean write = key != null;
+
+        boolean valid = replay( raf );
+
+        if ( write )
+        {
+            if ( !valid )
+            {
+                logger.debug( "Creating resolution tracking index " + file );
+                long gen = nextGeneration();
+                writeHeader( raf, gen );
+                reset( gen );
+            }
+            else if ( raf.length() > offset )
+            {
+                // drop the incomplete record of an interrupted writer
+                raf.setLength( offset );
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream( 256 );
+            if ( updates == null )
+            {
+                writeRecord( buffer, OP_CLEAR, key, null, null );
+            }
+            else
+            {
+                for ( Map.Entry<String, String> update : updates.entrySet() )
+                {
+                    if ( update.getValue() == null )
+                    {
+                        writeRecord( buffer, OP_REMOVE, key, update.getKey(), null );
+                    }
+                    else
+                    {
+                        writeRecord( buffer, OP_PUT, key, update.getKey(), update.getValue() );
+                    }
+                }
+            }
+
+            byte[] bytes = buffer.toByteArray();
+            raf.seek( offset );
+            raf.write( bytes );
+            replay( raf );
+
+            if ( records > compactThreshold && records > getLiveCount() * 2 )
+            {
+                compact( raf );
+            }
+        }
+    }
+
+    private static boolean isObsolete( RandomAccessFile raf )
+        throws IOException
+    {
+        if ( raf.length() < 4 )
+        {
+            return false;
+        }
+        raf.seek( 0 );
+        return raf.readInt() == MAGIC_OBSOLETE;
+    }
+
+    private boolean replay( RandomAccessFile raf )
+        throws IOException
+    {
+        long length = raf.length();
+        if ( length < HEADER_SIZE )
+        {
+            reset( -1 );
+            return false;
+        }
+
+        raf.seek( 0 );
+        if ( raf.readInt() != MAGIC )
+        {
+            logger.warn( "Ignoring corrupt resolution tracking index " + file );
+            reset( -1 );
+            return false;
+        }
+
+        long gen = raf.readLong();
+        if ( gen != generation || length < offset )
+        {
+            reset( gen );
+        }
+
+        byte[] buffer = new byte[(int) ( length - offset )];
+        raf.seek( offset );
+        raf.readFully( buffer );
+
+        int pos = 0;
+        while ( pos + 4 <= buffer.length )
+        {
+            int size =
+                ( ( buffer[pos] & 0xFF ) << 24 ) | ( ( buffer[pos + 1] & 0xFF ) << 16 )
+                    | ( ( buffer[pos + 2] & 0xFF ) << 8 ) | ( buffer[pos + 3] & 0xFF );
+            if ( size < 0 || pos + 4 + size > buffer.length )
+            {
+                break;
+            }
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream( buffer, pos + 4, size ) );
+            byte op;
+            String key, name, value;
+            try
+            {
+                op = in.readByte();
+                key = in.readUTF();
+                name = in.readUTF();
+                value = in.readUTF();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Ignoring undecodable record at offset " + ( offset + pos )
+                    + " and all subsequent records of resolution tracking index " + file );
+                break;
+            }
+            apply( op, key, name, value );
+            pos += 4 + size;
+            records++;
+        }
+        offset += pos;
+
+        return true;
+    }
+
+    private void apply( byte op, String key, String name, String value )
+    {
+        if ( op == OP_PUT )
+        {
+            Properties props = entries.get( key );
+            if ( props == null )
+            {
+                props = new Properties();
+                entries.put( key, props );
+            }
+            props.setProperty( name, value );
+        }
+        else if ( op == OP_REMOVE )
+        {
+            Properties props = entries.get( key );
+            if ( props != null )
+            {
+                props.remove( name );
+                if ( props.isEmpty() )
+                {
+                    entries.remove( key );
+                }
+            }
+        }
+        else if ( op == OP_CLEAR )
+        {
+            entries.remove( key );
+        }
+    }
+
+    private void compact( RandomAccessFile raf )
+        throws IOException
+    {
+        logger.debug( "Compacting resolution tracking index " + file );
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( 64 * 1024 );
+        for ( Map.Entry<String, Properties> entry : entries.entrySet() )
+        {
+            for ( Map.Entry<Object, Object> prop : entry.getValue().entrySet() )
+            {
+                writeRecord( buffer, OP_PUT, entry.getKey(), prop.getKey().toString(), prop.getValue().toString() );
+            }
+        }
+
+        long gen = nextGeneration();
+        long length;
+
+        byte[] bytes = buffer.toByteArray();
+
+        File tmp = DefaultFileProcessor.newTempFile( file );
+        RandomAccessFile out = new RandomAccessFile( tmp, "rw" );
+        boolean written = false;
+        try
+        {
+            writeHeader( out, gen );
+            out.write( bytes );
+            out.getFD().sync();
+            length = out.getFilePointer();
+            written = true;
+        }
+        finally
+        {
+            close( out );
+            if ( !written )
+            {
+                tmp.delete();
+            }
+        }
+
+        try
+        {
+            DefaultFileProcessor.commit( tmp, file );
+
+            // the old log stays reachable for processes that already opened it
+            raf.seek( 0 );
+            raf.writeInt( MAGIC_OBSOLETE );
+        }
+        catch ( IOException e )
+        {
+            /*
+             * NOTE: Some platforms (e.g. Windows) refuse to replace a file that is open. The exclusive lock keeps all
+             * other processes out of the log, so it is rewritten in place instead. Should this process die midway, the
+             * log is merely truncated, i.e. some resolution tracking data gets lost and is recreated by remote checks.
+             */
+            logger.debug( "Could not replace resolution tracking index " + file + ", rewriting it in place" );
+            tmp.delete();
+            writeHeader( raf, gen );
+            raf.write( bytes );
+            raf.getFD().sync();
+        }
+
+        generation = gen;
+        offset = length;
+        records = getLiveCount();
+    }
+
+    private void writeHeader( RandomAccessFile raf, long gen )
+        throws IOException
+    {
+        raf.setLength( 0 );
+        raf.seek( 0 );
+        raf.writeInt( MAGIC );
+        raf.writeLong( gen );
+    }
+
+    private void writeRecord( ByteArrayOutputStream buffer, byte op, String key, String name, String value )
+        throws IOException
+    {
+        ByteArrayOutputStream record = new ByteArrayOutputStream( 128 );
+        DataOutputStream out = new DataOutputStream( record );
+        out.writeByte( op );
+        out.writeUTF( key );
+        out.writeUTF( ( name != null ) ? name : "" );
+        if ( value == null )
+        {
+            value = "";
+        }
+        else if ( value.length() > MAX_VALUE_LENGTH )
+        {
+            // keep within the limit of the modified UTF-8 encoding
+            value = value.substring( 0, MAX_VALUE_LENGTH );
+        }
+        out.writeUTF( value );
+        out.flush();
+
+        DataOutputStream header = new DataOutputStream( buffer );
+        header.writeInt( record.size() );
+        header.flush();
+        record.writeTo( buffer );
+    }
+
+    private void reset( long gen )
+    {
+        entries.clear();
+        generation = gen;
+        offset = HEADER_SIZE;
+        records = 0;
+    }
+
+    private long nextGeneration()
+    {
+        return Math.max( generation + 1, System.currentTimeMillis() );
+    }
+
+    private int getLiveCount()
+    {
+        int count = 0;
+        for ( Properties props : entries.values() )
+        {
+            count += props.size();
+        }
+        return count;
+    }
+
+    private static Properties copy( Properties props )
+    {
+        Properties copy = new Properties();
+        copy.putAll( props );
+        return copy;
+    }
+
+    private FileLock lock( FileChannel channel, boolean shared )
+        throws IOException
+    {
+        for ( int attempts = 8; attempts >= 0; attempts-- )
+        {
+            try
+            {
+                return channel.lock( 0, Long.MAX_VALUE, shared );
+            }
+            catch ( OverlappingFileLockException e )
+            {
+                if ( attempts <= 0 )
+                {
+                    throw (IOException) new IOException().initCause( e );
+                }
+                try
+                {
+                    Thread.sleep( 50 );
+                }
+                catch ( InterruptedException e1 )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        throw new IOException( "Could not lock file" );
+    }
+
+    private void release( FileLock lock )
+    {
+        if ( lock != null )
+        {
+            try
+            {
+                lock.release();
+            }
+            catch ( IOException e )
+            {
+                logger.debug( "Error releasing lock for resolution tracking index " + file, e );
+            }
+        }
+    }
+
+    private void close( RandomAccessFile raf )
+    {
+        if ( raf != null )
+        {
+            try
+            {
+                raf.close();
+            }
+            catch ( IOException e )
+            {
+                logger.debug( "Error closing resolution tracking index " + file, e );
+            }
+        }
+    }
+
+}
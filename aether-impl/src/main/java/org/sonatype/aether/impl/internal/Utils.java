@@ -17,11 +17,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.impl.MetadataGenerator;
 import org.sonatype.aether.impl.MetadataGeneratorFactory;
+import org.sonatype.aether.impl.RemoteRepositoryManager;
 import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 
 /**
  */
@@ -77,4 +84,67 @@ class Utils
         return result;
     }
 
+    /**
+     * Determines whether the effective update policy of all the specified repositories is "never", i.e. whether an
+     * existing local copy of an artifact or metadata is final. The decision is remembered per repository in the
+     * session data.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param remoteRepositoryManager The manager used to calculate the effective policies, must not be {@code null}.
+     * @param repositories The repositories to check, must not be {@code null}.
+     * @param releases {@code true} to check the policy for releases, {@code false} otherwise.
+     * @param snapshots {@code true} to check the policy for snapshots, {@code false} otherwise.
+     * @return {@code true} if there is at least one repository and none of them is ever updated, {@code false}
+     *         otherwise.
+     */
+    public static boolean isUpdateDisabled( RepositorySystemSession session,
+                                            RemoteRepositoryManager remoteRepositoryManager,
+                                            Collection<RemoteRepository> repositories, boolean releases,
+                                            boolean snapshots )
+    {
+        if ( repositories.isEmpty() )
+        {
+            return false;
+        }
+
+        Map<RemoteRepository, Boolean> decisions = getUpdateDecisions( session, releases, snapshots );
+        for ( RemoteRepository repository : repositories )
+        {
+            Boolean decision = decisions.get( repository );
+            if ( decision == null )
+            {
+                String policy = remoteRepositoryManager.getPolicy( session, repository, releases, snapshots )
+                    .getUpdatePolicy();
+                decision = Boolean.valueOf( RepositoryPolicy.UPDATE_POLICY_NEVER.equals( policy ) );
+                decisions.put( repository, decision );
+            }
+            if ( !decision.booleanValue() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<RemoteRepository, Boolean> getUpdateDecisions( RepositorySystemSession session,
+                                                                      boolean releases, boolean snapshots )
+    {
+        // the global update policy of the session overrides those of the repositories
+        SessionData data = session.getData();
+        Object key =
+            Utils.class.getName() + "/updatesDisabled/" + releases + '/' + snapshots + '/' + session.getUpdatePolicy();
+
+        synchronized ( data )
+        {
+            @SuppressWarnings( "unchecked" )
+            Map<RemoteRepository, Boolean> decisions = (Map<RemoteRepository, Boolean>) data.get( key );
+            if ( decisions == null )
+            {
+                decisions = new ConcurrentHashMap<RemoteRepository, Boolean>();
+                data.set( key, decisions );
+            }
+            return decisions;
+        }
+    }
+
 }
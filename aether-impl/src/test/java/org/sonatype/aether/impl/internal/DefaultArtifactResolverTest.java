@@ -18,15 +18,18 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.impl.UpdateCheck;
 import org.sonatype.aether.impl.UpdateCheckManager;
 import org.sonatype.aether.impl.VersionResolver;
 import org.sonatype.aether.metadata.Metadata;
@@ -39,6 +42,7 @@ import org.sonatype.aether.repository.LocalMetadataResult;
 import org.sonatype.aether.repository.LocalRepository;
 import org.sonatype.aether.repository.LocalRepositoryManager;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.repository.WorkspaceReader;
 import org.sonatype.aether.repository.WorkspaceRepository;
 import org.sonatype.aether.resolution.ArtifactRequest;
@@ -59,6 +63,9 @@ import org.sonatype.aether.test.util.TestFileUtils;
 import org.sonatype.aether.test.util.impl.StubArtifact;
 import org.sonatype.aether.transfer.ArtifactNotFoundException;
 import org.sonatype.aether.transfer.ArtifactTransferException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.util.DefaultRepositoryCache;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
 import org.sonatype.aether.util.artifact.ArtifactProperties;
 
 /**
@@ -725,4 +732,146 @@ public class DefaultArtifactResolverTest
         resolved = resolved.setFile( null );
         assertEquals( artifact, resolved );
     }
+
+    @Test
+    public void testRepositoryIndexDoesNotHideUnlistedArtifacts()
+        throws IOException, ArtifactResolutionException
+    {
+        final File mirror = TestFileUtils.createTempDir();
+        Artifact present = new StubArtifact( "gid", "present", "", "jar", "1.0" );
+        Artifact unlisted = new StubArtifact( "gid", "unlisted", "", "jar", "1.0" );
+        TestFileUtils.write( "present", new File( mirror, RepositoryIndex.getPath( present ) ) );
+        RepositoryIndex.build( mirror ).write( new File( mirror, RepositoryIndex.NAME ) );
+
+        RecordingRepositoryConnector connector = new RecordingRepositoryConnector()
+        {
+
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                if ( metadataDownloads != null )
+                {
+                    for ( MetadataDownload download : metadataDownloads )
+                    {
+                        try
+                        {
+                            TestFileUtils.copy( new File( mirror, RepositoryIndex.getPath( download.getMetadata() ) ),
+                                                download.getFile() );
+                        }
+                        catch ( IOException e )
+                        {
+                            download.setException( new MetadataNotFoundException( download.getMetadata(), (RemoteRepository) null ) );
+                        }
+                    }
+                }
+                super.get( artifactDownloads, null );
+            }
+
+        };
+        connector.setExpectGet( present, unlisted );
+        remoteRepositoryManager.setConnector( connector );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( RepositoryIndex.CONFIG_PROP_ENABLED, Boolean.TRUE );
+        session.setConfigProperties( config );
+
+        List<RemoteRepository> repos =
+            Arrays.asList( new RemoteRepository( "mirror", "default", mirror.toURI().toString() ) );
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( present, repos, "" ), new ArtifactRequest( unlisted, repos, "" ) );
+
+        // the artifact might have been published after the index was generated
+        List<ArtifactResult> results = resolver.resolveArtifacts( session, requests );
+        assertTrue( results.get( 0 ).isResolved() );
+        assertTrue( results.get( 1 ).isResolved() );
+
+        connector.assertSeenExpected();
+        TestFileUtils.delete( mirror );
+    }
+
+    @Test
+    public void testCachedSnapshotVersionIsReusedUntilUpdatePolicyExpires()
+        throws ArtifactResolutionException
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        resolver.setVersionResolver( new VersionResolver()
+        {
+            public VersionResult resolveVersion( RepositorySystemSession session, VersionRequest request )
+            {
+                calls.incrementAndGet();
+                return new VersionResult( request ).setVersion( "1.0-20110101.000000-1" );
+            }
+        } );
+
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession( this.session );
+        session.setCache( new DefaultRepositoryCache() );
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( SnapshotVersionCache.CONFIG_PROP_ENABLED, Boolean.TRUE );
+        session.setConfigProperties( config );
+
+        artifact = new StubArtifact( "gid", "aid", "", "ext", "1.0-SNAPSHOT" );
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        request.addRepository( new RemoteRepository( "id", "default", "file:///" ) );
+
+        resolver.resolveArtifact( session, request );
+        assertEquals( 1, calls.get() );
+
+        // the update policy does not call for a check, so the cached version is used
+        resolver.setUpdateCheckManager( new StaticUpdateCheckManager( false ) );
+        ArtifactResult result = resolver.resolveArtifact( session, request );
+        assertEquals( "1.0-20110101.000000-1", result.getArtifact().getVersion() );
+        assertEquals( 1, calls.get() );
+
+        SnapshotVersionCache.invalidate( session, Collections.singleton( artifact ),
+                                         Collections.<Metadata> emptyList() );
+        resolver.resolveArtifact( session, request );
+        assertEquals( 2, calls.get() );
+
+        // the update policy calls for a check, so the cached version is not trusted anymore
+        resolver.setUpdateCheckManager( new StaticUpdateCheckManager( true ) );
+        resolver.resolveArtifact( session, request );
+        assertEquals( 3, calls.get() );
+    }
+
+    @Test
+    public void testUpdatePolicyNeverUsesExistingLocalCopy()
+        throws IOException, ArtifactResolutionException
+    {
+        File file =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForLocalArtifact( artifact ) );
+        TestFileUtils.write( "artifact", file );
+
+        remoteRepositoryManager = new StubRemoteRepositoryManager()
+        {
+            @Override
+            public RepositoryPolicy getPolicy( RepositorySystemSession session, RemoteRepository repository,
+                                               boolean releases, boolean snapshots )
+            {
+                return new RepositoryPolicy( true, RepositoryPolicy.UPDATE_POLICY_NEVER,
+                                             RepositoryPolicy.CHECKSUM_POLICY_FAIL );
+            }
+        };
+        remoteRepositoryManager.setConnector( connector );
+        resolver.setRemoteRepositoryManager( remoteRepositoryManager );
+        resolver.setUpdateCheckManager( new StaticUpdateCheckManager( true )
+        {
+            @Override
+            public void checkArtifact( RepositorySystemSession session,
+                                       UpdateCheck<Artifact, ArtifactTransferException> check )
+            {
+                fail( "unexpected update check" );
+            }
+        } );
+
+        ArtifactRequest request = new ArtifactRequest( artifact, null, "" );
+        request.addRepository( new RemoteRepository( "id", "default", "file:///" ) );
+        ArtifactResult result = resolver.resolveArtifact( session, request );
+
+        assertTrue( result.getExceptions().isEmpty() );
+        assertEquals( file, result.getArtifact().getFile() );
+        connector.assertSeenExpected();
+    }
+
 }
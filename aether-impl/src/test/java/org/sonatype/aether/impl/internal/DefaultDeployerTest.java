@@ -17,9 +17,13 @@ import static org.sonatype.aether.test.impl.RecordingRepositoryListener.Type.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.junit.After;
@@ -29,6 +33,7 @@ import org.sonatype.aether.RepositoryEvent;
 import org.sonatype.aether.RepositoryException;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.deployment.DeployRequest;
+import org.sonatype.aether.deployment.DeployResult;
 import org.sonatype.aether.deployment.DeploymentException;
 import org.sonatype.aether.impl.UpdateCheckManager;
 import org.sonatype.aether.metadata.MergeableMetadata;
@@ -48,6 +53,7 @@ import org.sonatype.aether.test.util.TestFileUtils;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataNotFoundException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.ChecksumUtils;
 import org.sonatype.aether.util.artifact.DefaultArtifact;
 import org.sonatype.aether.util.metadata.DefaultMetadata;
 
@@ -470,4 +476,158 @@ public class DefaultDeployerTest
         assertNull( props.toString(), props.get( "old" ) );
     }
 
+    @Test
+    public void testSkipIdenticalArtifact()
+        throws Exception
+    {
+        Artifact other = new DefaultArtifact( "gid", "aid", "sources", "jar", "ver" );
+        other = other.setFile( artifact.getFile() );
+
+        connector = new RecordingRepositoryConnector()
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                for ( ArtifactDownload download : artifactDownloads )
+                {
+                    Artifact checksum = download.getArtifact();
+                    assertEquals( "jar.sha1", checksum.getExtension() );
+                    try
+                    {
+                        if ( "".equals( checksum.getClassifier() ) )
+                        {
+                            Map<String, Object> sums =
+                                ChecksumUtils.calc( artifact.getFile(), Arrays.asList( "SHA-1" ) );
+                            TestFileUtils.write( sums.get( "SHA-1" ).toString(), download.getFile() );
+                        }
+                        else
+                        {
+                            TestFileUtils.write( "0000", download.getFile() );
+                        }
+                    }
+                    catch ( IOException e )
+                    {
+                        download.setException( new ArtifactTransferException( checksum, null, e ) );
+                    }
+                }
+            }
+        };
+        manager.setConnector( connector );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( DefaultDeployer.CONFIG_PROP_SKIP_IDENTICAL, Boolean.TRUE );
+        session.setConfigProperties( config );
+
+        request.addArtifact( artifact ).addArtifact( other );
+        DeployResult result = deployer.deploy( session, request );
+
+        assertEquals( Arrays.asList( other ), connector.getActualArtifactPutRequests() );
+        assertEquals( 2, result.getArtifacts().size() );
+
+        List<EventWrapper> events = listener.getEvents();
+        assertEquals( 4, events.size() );
+        assertEquals( ARTIFACT_DEPLOYING, events.get( 0 ).getType() );
+        assertEquals( ARTIFACT_DEPLOYED, events.get( 1 ).getType() );
+        assertEquals( artifact, events.get( 1 ).getEvent().getArtifact() );
+        assertNull( events.get( 1 ).getEvent().getException() );
+    }
+
+    static class TestMergeableMetadata
+        implements MergeableMetadata
+    {
+
+        private final String artifactId;
+
+        TestMergeableMetadata( String artifactId )
+        {
+            this.artifactId = artifactId;
+        }
+
+        public String getGroupId()
+        {
+            return "org";
+        }
+
+        public String getArtifactId()
+        {
+            return artifactId;
+        }
+
+        public String getVersion()
+        {
+            return "";
+        }
+
+        public String getType()
+        {
+            return "test.properties";
+        }
+
+        public Nature getNature()
+        {
+            return Nature.RELEASE;
+        }
+
+        public File getFile()
+        {
+            return null;
+        }
+
+        public Metadata setFile( File file )
+        {
+            return this;
+        }
+
+        public void merge( File current, File result )
+            throws RepositoryException
+        {
+            try
+            {
+                TestFileUtils.write( artifactId, result );
+            }
+            catch ( IOException e )
+            {
+                throw new RepositoryException( e.getMessage(), e );
+            }
+        }
+
+        public boolean isMerged()
+        {
+            return false;
+        }
+
+    }
+
+    @Test
+    public void testMetadataDownloadsAreBatched()
+        throws Exception
+    {
+        final List<Integer> gets = new ArrayList<Integer>();
+        connector = new RecordingRepositoryConnector()
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                gets.add( metadataDownloads.size() );
+                for ( MetadataDownload download : metadataDownloads )
+                {
+                    download.setException( new MetadataNotFoundException( download.getMetadata(), null, null ) );
+                }
+            }
+        };
+        manager.setConnector( connector );
+
+        Metadata first = new TestMergeableMetadata( "first" );
+        Metadata second = new TestMergeableMetadata( "second" );
+        request.addMetadata( first ).addMetadata( second );
+
+        DeployResult result = deployer.deploy( session, request );
+
+        assertEquals( Arrays.asList( 2 ), gets );
+        assertEquals( Arrays.asList( first, second ), connector.getActualMetadataPutRequests() );
+        assertEquals( 2, result.getMetadata().size() );
+    }
+
 }
@@ -0,0 +1,130 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.sonatype.aether.util.concurrency.RunnableErrorForwarder;
+
+public class DefaultExecutorProviderTest
+{
+
+    @Test
+    public void testDirectExecutionForSingleThread()
+    {
+        DefaultExecutorProvider provider = new DefaultExecutorProvider();
+
+        final Thread[] thread = new Thread[1];
+        provider.getExecutor( 1 ).execute( new Runnable()
+        {
+            public void run()
+            {
+                thread[0] = Thread.currentThread();
+            }
+        } );
+
+        assertSame( Thread.currentThread(), thread[0] );
+        assertEquals( 0, provider.getPoolSize() );
+    }
+
+    @Test
+    public void testConcurrencyLimit()
+        throws Exception
+    {
+        DefaultExecutorProvider provider = new DefaultExecutorProvider();
+        Executor executor = provider.getExecutor( 2 );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+        for ( int i = 0; i < 6; i++ )
+        {
+            executor.execute( errorForwarder.wrap( new Runnable()
+            {
+                public void run()
+                {
+                    int now = running.incrementAndGet();
+                    synchronized ( maxRunning )
+                    {
+                        maxRunning.set( Math.max( maxRunning.get(), now ) );
+                    }
+                    try
+                    {
+                        release.await( 10, TimeUnit.SECONDS );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IllegalStateException( e.getMessage() );
+                    }
+                    running.decrementAndGet();
+                }
+            } ) );
+        }
+
+        assertEquals( 4, provider.getQueuedCount() );
+        for ( int i = 0; i < 500 && running.get() < 2; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( 2, provider.getActiveCount() );
+        release.countDown();
+        errorForwarder.await();
+        // the error forwarder is notified before the worker accounts for the completed task
+        for ( int i = 0; i < 500 && provider.getCompletedCount() < 6; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+
+        assertEquals( 2, maxRunning.get() );
+        assertEquals( 0, provider.getQueuedCount() );
+        assertEquals( 6, provider.getCompletedCount() );
+        assertTrue( provider.getLargestPoolSize() <= 2 );
+    }
+
+    @Test
+    public void testThreadsAreReusedAcrossRequests()
+        throws Exception
+    {
+        DefaultExecutorProvider provider = new DefaultExecutorProvider();
+
+        final Set<Thread> threads = Collections.synchronizedSet( new HashSet<Thread>() );
+        for ( int i = 0; i < 5; i++ )
+        {
+            RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+            provider.getExecutor( 2 ).execute( errorForwarder.wrap( new Runnable()
+            {
+                public void run()
+                {
+                    threads.add( Thread.currentThread() );
+                }
+            } ) );
+            errorForwarder.await();
+            Thread.sleep( 20 );
+        }
+
+        assertTrue( threads.toString(), threads.size() < 5 );
+        assertTrue( threads.iterator().next().isDaemon() );
+    }
+
+}
@@ -17,11 +17,13 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonatype.aether.spi.io.DurableFileProcessor;
 import org.sonatype.aether.spi.io.FileProcessor.ProgressListener;
 import org.sonatype.aether.test.util.TestFileUtils;
 
@@ -93,6 +95,35 @@ public class DefaultFileProcessorTest
         target.delete();
     }
 
+    @Test
+    public void testCopyLargeFile()
+        throws IOException
+    {
+        byte[] data = new byte[1024 * 1024 + 13];
+        new Random( 0 ).nextBytes( data );
+        File file = TestFileUtils.createTempFile( data, 1 );
+        File target = new File( targetDir, "testCopyLargeFile" );
+
+        assertEquals( data.length, fileProcessor.copy( file, target, null ) );
+        TestFileUtils.assertContent( data, target );
+
+        final AtomicInteger progressed = new AtomicInteger();
+        ProgressListener listener = new ProgressListener()
+        {
+            public void progressed( ByteBuffer buffer )
+                throws IOException
+            {
+                progressed.addAndGet( buffer.remaining() );
+            }
+        };
+        target.delete();
+        assertEquals( data.length, fileProcessor.copy( file, target, listener ) );
+        TestFileUtils.assertContent( data, target );
+        assertEquals( data.length, progressed.intValue() );
+
+        file.delete();
+    }
+
     @Test
     public void testProgressingChannel()
         throws IOException
@@ -116,4 +147,55 @@ public class DefaultFileProcessorTest
         target.delete();
     }
 
+    @Test
+    public void testStagedWrite()
+        throws IOException
+    {
+        File target = new File( targetDir, "testStagedWrite" );
+        fileProcessor.write( target, "old" );
+        fileProcessor.write( target, "new" );
+
+        TestFileUtils.assertContent( "new".getBytes( "UTF-8" ), target );
+        assertEquals( "temporary files left behind", 1, targetDir.list().length );
+    }
+
+    @Test
+    public void testStagedCopyWithDurability()
+        throws IOException
+    {
+        File file = TestFileUtils.createTempFile( "testCopy" );
+        File target = new File( targetDir, "testStagedCopy" );
+        fileProcessor.write( target, "old" );
+
+        assertEquals( 8, fileProcessor.copy( file, target, null, DurableFileProcessor.DURABILITY_ALL ) );
+
+        TestFileUtils.assertContent( "testCopy".getBytes( "UTF-8" ), target );
+        assertEquals( "temporary files left behind", 1, targetDir.list().length );
+
+        file.delete();
+    }
+
+    @Test
+    public void testStaleTempFilesAreDeleted()
+        throws IOException
+    {
+        File target = new File( targetDir, "testStale" );
+        File stale = new File( targetDir, ".testStale.123.tmp" );
+        File recent = new File( targetDir, ".testStale.456.tmp" );
+        File other = new File( targetDir, ".other.789.tmp" );
+        for ( File file : new File[] { stale, recent, other } )
+        {
+            TestFileUtils.write( "crashed", file );
+        }
+        stale.setLastModified( System.currentTimeMillis() - 2 * 60 * 60 * 1000 );
+        other.setLastModified( System.currentTimeMillis() - 2 * 60 * 60 * 1000 );
+
+        fileProcessor.write( target, "data" );
+
+        assertFalse( "stale temporary file not deleted", stale.exists() );
+        assertTrue( "temporary file of concurrent write deleted", recent.exists() );
+        assertTrue( "temporary file of other target deleted", other.exists() );
+        TestFileUtils.assertContent( "data".getBytes( "UTF-8" ), target );
+    }
+
 }
@@ -18,7 +18,11 @@ import static org.sonatype.aether.test.impl.RecordingRepositoryListener.Type.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -82,6 +86,7 @@ public class DefaultInstallerTest
         installer.setFileProcessor( TestFileProcessor.INSTANCE );
         installer.setRepositoryEventDispatcher( new StubRepositoryEventDispatcher() );
         installer.setSyncContextFactory( new StubSyncContextFactory() );
+        installer.setExecutorProvider( new DefaultExecutorProvider() );
         request = new InstallRequest();
         listener = new RecordingRepositoryListener();
         session.setRepositoryListener( listener );
@@ -170,6 +175,29 @@ public class DefaultInstallerTest
         installer.install( session, request );
     }
 
+    @Test
+    public void testNothingInstalledAfterFirstFailure()
+        throws IOException
+    {
+        Artifact other = new DefaultArtifact( "gid", "other", "jar", "ver" );
+        other = other.setFile( TestFileUtils.createTempFile( "other" ) );
+        File otherFile = new File( session.getLocalRepository().getBasedir(), lrm.getPathForLocalArtifact( other ) );
+        assertTrue( localArtifactFile.mkdirs() );
+
+        request.addArtifact( artifact );
+        request.addArtifact( other );
+        try
+        {
+            installer.install( session, request );
+            fail( "expected exception" );
+        }
+        catch ( InstallationException e )
+        {
+            assertFalse( otherFile.exists() );
+            assertTrue( lrm.getArtifactRegistration().isEmpty() );
+        }
+    }
+
     @Test( expected = InstallationException.class )
     public void testMetadataExistsAsDir()
         throws InstallationException
@@ -363,4 +391,148 @@ public class DefaultInstallerTest
         assertEquals( "artifact timestamp was not set to src file", artifact.getFile().lastModified(),
                       localArtifactFile.lastModified() );
     }
+
+    @Test
+    public void testParallelInstall()
+        throws Exception
+    {
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( DefaultInstaller.CONFIG_PROP_THREADS, "4" );
+        session.setConfigProperties( config );
+
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            Artifact a = new DefaultArtifact( "gid", "aid", "c" + i, "jar", "ver" );
+            a = a.setFile( TestFileUtils.createTempFile( "artifact" + i ) );
+            artifacts.add( a );
+            request.addArtifact( a );
+        }
+
+        InstallResult result = installer.install( session, request );
+
+        assertEquals( artifacts, new ArrayList<Artifact>( result.getArtifacts() ) );
+        assertEquals( new HashSet<Artifact>( artifacts ), lrm.getArtifactRegistration() );
+
+        List<EventWrapper> events = listener.getEvents();
+        assertEquals( 20, events.size() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            Artifact a = artifacts.get( i );
+            File file = new File( session.getLocalRepository().getBasedir(), lrm.getPathForLocalArtifact( a ) );
+            TestFileUtils.assertContent( ( "artifact" + i ).getBytes( "UTF-8" ), file );
+
+            assertEquals( ARTIFACT_INSTALLING, events.get( i ).getType() );
+            assertEquals( ARTIFACT_INSTALLED, events.get( 10 + i ).getType() );
+            assertEquals( a, events.get( 10 + i ).getEvent().getArtifact() );
+            assertNull( events.get( 10 + i ).getEvent().getException() );
+        }
+    }
+
+    @Test
+    public void testSequentialInstallEventsPerArtifact()
+        throws Exception
+    {
+        Artifact other = new DefaultArtifact( "gid", "other", "jar", "ver" );
+        other = other.setFile( TestFileUtils.createTempFile( "other" ) );
+
+        request.addArtifact( artifact );
+        request.addArtifact( other );
+        installer.install( session, request );
+
+        List<EventWrapper> events = listener.getEvents();
+        assertEquals( 4, events.size() );
+        assertEquals( ARTIFACT_INSTALLING, events.get( 0 ).getType() );
+        assertEquals( artifact, events.get( 0 ).getEvent().getArtifact() );
+        assertEquals( ARTIFACT_INSTALLED, events.get( 1 ).getType() );
+        assertEquals( artifact, events.get( 1 ).getEvent().getArtifact() );
+        assertEquals( ARTIFACT_INSTALLING, events.get( 2 ).getType() );
+        assertEquals( other, events.get( 2 ).getEvent().getArtifact() );
+        assertEquals( ARTIFACT_INSTALLED, events.get( 3 ).getType() );
+        assertEquals( other, events.get( 3 ).getEvent().getArtifact() );
+    }
+
+    @Test
+    public void testParallelInstallReportsActualFailure()
+        throws Exception
+    {
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( DefaultInstaller.CONFIG_PROP_THREADS, "4" );
+        session.setConfigProperties( config );
+
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            Artifact a = new DefaultArtifact( "gid", "aid", "c" + i, "jar", "ver" );
+            a = a.setFile( TestFileUtils.createTempFile( "artifact" + i ) );
+            artifacts.add( a );
+            request.addArtifact( a );
+        }
+        Artifact broken = artifacts.get( 9 );
+        File brokenFile = new File( session.getLocalRepository().getBasedir(), lrm.getPathForLocalArtifact( broken ) );
+        assertTrue( brokenFile.mkdirs() );
+
+        try
+        {
+            installer.install( session, request );
+            fail( "expected exception" );
+        }
+        catch ( InstallationException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( broken.toString() ) );
+        }
+
+        List<EventWrapper> events = listener.getEvents();
+        assertEquals( 20, events.size() );
+        Exception failure = events.get( 19 ).getEvent().getException();
+        assertNotNull( failure );
+        for ( int i = 0; i < 9; i++ )
+        {
+            Artifact a = artifacts.get( i );
+            File file = new File( session.getLocalRepository().getBasedir(), lrm.getPathForLocalArtifact( a ) );
+            Exception exception = events.get( 10 + i ).getEvent().getException();
+            if ( exception == null )
+            {
+                // copied before the failure was noticed, so it must have been registered as well
+                assertTrue( file.isFile() );
+                assertTrue( lrm.getArtifactRegistration().contains( a ) );
+            }
+            else
+            {
+                assertSame( failure, exception.getCause() );
+                assertFalse( file.exists() );
+            }
+        }
+        assertFalse( lrm.getArtifactRegistration().contains( broken ) );
+    }
+
+    @Test
+    public void testSkipIdenticalArtifact()
+        throws Exception
+    {
+        request.addArtifact( artifact );
+        installer.install( session, request );
+
+        installer.setFileProcessor( new DefaultFileProcessor()
+        {
+            @Override
+            public long copy( File src, File target, ProgressListener listener )
+                throws IOException
+            {
+                throw new IOException( "copy called" );
+            }
+        } );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( DefaultInstaller.CONFIG_PROP_SKIP_IDENTICAL, "true" );
+        session.setConfigProperties( config );
+
+        artifact.getFile().setLastModified( artifact.getFile().lastModified() - 60000 );
+
+        request = new InstallRequest();
+        request.addArtifact( artifact );
+        installer.install( session, request );
+
+        assertEquals( artifact.getFile().lastModified(), localArtifactFile.lastModified() );
+    }
 }
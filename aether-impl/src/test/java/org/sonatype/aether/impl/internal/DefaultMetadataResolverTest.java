@@ -21,14 +21,19 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonatype.aether.RepositoryEvent;
 import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.impl.UpdateCheck;
 import org.sonatype.aether.metadata.Metadata;
 import org.sonatype.aether.repository.LocalMetadataRegistration;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.resolution.MetadataRequest;
 import org.sonatype.aether.resolution.MetadataResult;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
@@ -38,6 +43,7 @@ import org.sonatype.aether.test.impl.TestRepositorySystemSession;
 import org.sonatype.aether.test.util.TestFileUtils;
 import org.sonatype.aether.test.util.impl.StubMetadata;
 import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.transfer.MetadataTransferException;
 
 /**
  * @author Benjamin Hanzelmann
@@ -72,6 +78,7 @@ public class DefaultMetadataResolverTest
         resolver.setRepositoryEventDispatcher( new StubRepositoryEventDispatcher() );
         resolver.setRemoteRepositoryManager( manager );
         resolver.setSyncContextFactory( new StubSyncContextFactory() );
+        resolver.setExecutorProvider( new DefaultExecutorProvider() );
         repository =
             new RemoteRepository( "test-DMRT", "default", TestFileUtils.createTempDir().toURI().toURL().toString() );
         metadata = new StubMetadata( "gid", "aid", "ver", "maven-metadata.xml", Metadata.Nature.RELEASE_OR_SNAPSHOT );
@@ -255,4 +262,221 @@ public class DefaultMetadataResolverTest
 
         connector.assertSeenExpected();
     }
+
+    @Test
+    public void testDuplicateRequestsShareDownload()
+        throws IOException
+    {
+        connector.setExpectGet( metadata );
+
+        File file =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata, repository, "" ) );
+        TestFileUtils.write( file.getAbsolutePath(), file );
+
+        MetadataRequest request1 = new MetadataRequest( metadata, repository, "" );
+        MetadataRequest request2 = new MetadataRequest( metadata, repository, "" );
+        List<MetadataResult> results = resolver.resolveMetadata( session, Arrays.asList( request1, request2 ) );
+
+        assertEquals( 2, results.size() );
+        connector.assertSeenExpected();
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            MetadataResult result = results.get( i );
+            assertSame( ( i == 0 ) ? request1 : request2, result.getRequest() );
+            assertNull( result.getException() );
+            assertTrue( result.isUpdated() );
+            assertEquals( file, result.getMetadata().getFile() );
+        }
+    }
+
+    @Test
+    public void testConcurrentCallsShareInflightDownload()
+        throws Exception
+    {
+        final CountDownLatch downloading = new CountDownLatch( 1 );
+        final CountDownLatch proceed = new CountDownLatch( 1 );
+        final AtomicInteger downloads = new AtomicInteger();
+        manager.setConnector( new RecordingRepositoryConnector()
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                downloads.incrementAndGet();
+                downloading.countDown();
+                try
+                {
+                    proceed.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+            }
+        } );
+
+        File file =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata, repository, "" ) );
+        TestFileUtils.write( file.getAbsolutePath(), file );
+
+        final MetadataResult[] results = new MetadataResult[2];
+        Thread[] threads = new Thread[2];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    MetadataRequest request = new MetadataRequest( metadata, repository, "" );
+                    results[index] = resolver.resolveMetadata( session, Arrays.asList( request ) ).get( 0 );
+                }
+            };
+        }
+
+        threads[0].start();
+        downloading.await();
+        threads[1].start();
+        for ( int i = 0; i < 500 && threads[1].getState() != Thread.State.WAITING; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( Thread.State.WAITING, threads[1].getState() );
+        proceed.countDown();
+        threads[0].join( 10000 );
+        threads[1].join( 10000 );
+
+        assertEquals( 1, downloads.get() );
+        for ( MetadataResult result : results )
+        {
+            assertNull( result.getException() );
+            assertTrue( result.isUpdated() );
+            assertEquals( file, result.getMetadata().getFile() );
+        }
+    }
+
+    @Test( timeout = 10000 )
+    public void testFailedCallReleasesInflightDownloads()
+        throws IOException
+    {
+        final Metadata failing =
+            new StubMetadata( "gid", "failing", "ver", "maven-metadata.xml", Metadata.Nature.RELEASE_OR_SNAPSHOT );
+        resolver.setRepositoryEventDispatcher( new StubRepositoryEventDispatcher()
+        {
+            @Override
+            public void dispatch( RepositoryEvent event )
+            {
+                if ( failing.equals( event.getMetadata() ) )
+                {
+                    throw new IllegalStateException( "listener failure" );
+                }
+            }
+        } );
+
+        MetadataRequest request = new MetadataRequest( metadata, repository, "" );
+        try
+        {
+            resolver.resolveMetadata( session,
+                                      Arrays.asList( request, new MetadataRequest( failing, repository, "" ) ) );
+            fail( "expected listener failure" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( "listener failure", e.getMessage() );
+        }
+        assertTrue( connector.getActualMetadataGetRequests().isEmpty() );
+
+        // a later call must neither hang on the abandoned task nor reuse its result
+        List<MetadataResult> results = resolver.resolveMetadata( session, Arrays.asList( request ) );
+        assertEquals( 1, results.size() );
+        assertNull( results.get( 0 ).getException() );
+        assertEquals( Arrays.asList( metadata ), connector.getActualMetadataGetRequests() );
+    }
+
+    @Test
+    public void testUpdatePolicyNeverSkipsUpdateCheck()
+        throws IOException
+    {
+        File file =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata, repository, "" ) );
+        TestFileUtils.write( file.getAbsolutePath(), file );
+        lrm.add( session, new LocalMetadataRegistration( metadata ) );
+
+        repository.setRepositoryManager( true );
+        repository.setMirroredRepositories( Arrays.asList( new RemoteRepository( "a", "default", "file:a" ),
+                                                           new RemoteRepository( "b", "default", "file:b" ) ) );
+        final AtomicInteger policies = setUpdatePolicyNever();
+        resolver.setUpdateCheckManager( new StaticUpdateCheckManager( true )
+        {
+            @Override
+            public void checkMetadata( RepositorySystemSession session,
+                                       UpdateCheck<Metadata, MetadataTransferException> check )
+            {
+                fail( "unexpected update check" );
+            }
+        } );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            MetadataRequest request = new MetadataRequest( metadata, repository, "" );
+            List<MetadataResult> results = resolver.resolveMetadata( session, Arrays.asList( request ) );
+
+            MetadataResult result = results.get( 0 );
+            assertNull( result.getException() );
+            assertEquals( file, result.getMetadata().getFile() );
+            assertFalse( result.isUpdated() );
+        }
+        // the decision is remembered per source repository for the whole session
+        assertEquals( 2, policies.get() );
+        connector.assertSeenExpected();
+    }
+
+    @Test
+    public void testUpdatePolicyNeverDoesNotReadTrackingFiles()
+        throws IOException
+    {
+        File file =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata, repository, "" ) );
+        TestFileUtils.write( file.getAbsolutePath(), file );
+        lrm.add( session, new LocalMetadataRegistration( metadata ) );
+
+        setUpdatePolicyNever();
+        resolver.setUpdateCheckManager( new DefaultUpdateCheckManager() );
+
+        MetadataRequest request = new MetadataRequest( metadata, repository, "" );
+        List<MetadataResult> results = resolver.resolveMetadata( session, Arrays.asList( request ) );
+
+        MetadataResult result = results.get( 0 );
+        assertNull( result.getException() );
+        assertEquals( file, result.getMetadata().getFile() );
+        assertFalse( result.isUpdated() );
+        assertFalse( new File( file.getParentFile(), "resolver-status.properties" ).exists() );
+        connector.assertSeenExpected();
+    }
+
+    private AtomicInteger setUpdatePolicyNever()
+    {
+        final AtomicInteger policies = new AtomicInteger();
+        manager = new StubRemoteRepositoryManager()
+        {
+            @Override
+            public RepositoryPolicy getPolicy( RepositorySystemSession session, RemoteRepository repository,
+                                               boolean releases, boolean snapshots )
+            {
+                policies.incrementAndGet();
+                return new RepositoryPolicy( true, RepositoryPolicy.UPDATE_POLICY_NEVER,
+                                             RepositoryPolicy.CHECKSUM_POLICY_FAIL );
+            }
+        };
+        manager.setConnector( connector );
+        resolver.setRemoteRepositoryManager( manager );
+        return policies;
+    }
+
 }
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -40,6 +41,8 @@ import org.sonatype.aether.transfer.ArtifactNotFoundException;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataNotFoundException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.DefaultRepositoryCache;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
 
 /**
  * @author Benjamin Hanzelmann
@@ -516,6 +519,84 @@ public class DefaultUpdateCheckManagerTest
         assertNull( check.getException() );
     }
 
+    @Test
+    public void testCachedKeysFollowRepositoryChanges()
+        throws IOException
+    {
+        artifact.getFile().delete();
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession( this.session );
+        session.setCache( new DefaultRepositoryCache() );
+        session.setNotFoundCachingEnabled( true );
+
+        UpdateCheck<Artifact, ArtifactTransferException> check = newArtifactCheck();
+        check.setException( new ArtifactNotFoundException( artifact, repository ) );
+        manager.touchArtifact( session, check );
+
+        check = newArtifactCheck().setPolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+        manager.checkArtifact( session, check );
+        assertEquals( false, check.isRequired() );
+
+        repository.setUrl( repository.getUrl() + "moved/" );
+        check = newArtifactCheck().setPolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+        manager.checkArtifact( session, check );
+        assertEquals( true, check.isRequired() );
+    }
+
+    @Test
+    public void testCachedKeysSharedByEqualRepositories()
+    {
+        artifact.getFile().delete();
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession( this.session );
+        session.setCache( new DefaultRepositoryCache() );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            repository = new RemoteRepository( repository );
+            UpdateCheck<Artifact, ArtifactTransferException> check = newArtifactCheck();
+            check.setException( new ArtifactTransferException( artifact, repository, "some error" ) );
+            manager.touchArtifact( session, check );
+        }
+
+        String name = DefaultUpdateCheckManager.Keys.class.getName();
+        DefaultUpdateCheckManager.Keys keys = (DefaultUpdateCheckManager.Keys) session.getCache().get( session, name );
+        assertEquals( 1, keys.repoKeys.size() );
+        assertEquals( 1, keys.dataKeys.size() );
+    }
+
+    @Test
+    public void testConsolidatedIndex()
+        throws IOException
+    {
+        File basedir = session.getLocalRepository().getBasedir();
+        artifact = artifact.setFile( new File( basedir, "gid/aid/ver/aid-ver.ext" ) );
+        session.setNotFoundCachingEnabled( true );
+        String key = DefaultUpdateCheckManager.CONFIG_PROP_INDEX;
+        session.setConfigProperties( Collections.<String, Object> singletonMap( key, "true" ) );
+
+        UpdateCheck<Artifact, ArtifactTransferException> check = newArtifactCheck();
+        check.setException( new ArtifactNotFoundException( artifact, repository ) );
+        manager.touchArtifact( session, check );
+
+        assertFalse( new File( artifact.getFile().getPath() + ".lastUpdated" ).exists() );
+        assertTrue( new File( basedir, UpdateCheckIndex.FILE_NAME ).isFile() );
+
+        check = newArtifactCheck().setPolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+        manager.checkArtifact( session, check );
+        assertEquals( false, check.isRequired() );
+        assertNotNull( check.getException() );
+    }
+
+    @Test
+    public void testIntervalPolicy()
+    {
+        String policy = RepositoryPolicy.UPDATE_POLICY_INTERVAL + ":60";
+        long now = System.currentTimeMillis();
+        assertEquals( false, manager.isUpdatedRequired( session, now - 59 * 60 * 1000, policy ) );
+        assertEquals( true, manager.isUpdatedRequired( session, now - 61 * 60 * 1000, policy ) );
+        assertEquals( false, manager.isUpdatedRequired( session, 0, RepositoryPolicy.UPDATE_POLICY_NEVER ) );
+        assertEquals( true, manager.isUpdatedRequired( session, now, RepositoryPolicy.UPDATE_POLICY_ALWAYS ) );
+    }
+
     @Test
     public void testTouchMetadata()
         throws IOException
@@ -20,6 +20,7 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Properties;
 
 import org.junit.After;
 import org.junit.Before;
@@ -265,4 +266,29 @@ public class EnhancedLocalRepositoryManagerTest
         result = manager.find( session, request );
         assertNull( result.getFile() );
     }
+
+    @Test
+    public void testBatchRegistration()
+        throws Exception
+    {
+        Artifact sources = new DefaultArtifact( "gid", "aid", "sources", "jar", "1-test" );
+        sources = sources.setFile( TestFileUtils.createTempFile( "sources" ) );
+
+        copy( artifact, manager.getPathForLocalArtifact( artifact ) );
+        copy( sources, manager.getPathForLocalArtifact( sources ) );
+
+        manager.add( session, Arrays.asList( new LocalArtifactRegistration( artifact ),
+                                             new LocalArtifactRegistration( sources ) ) );
+
+        for ( Artifact a : Arrays.asList( artifact, sources ) )
+        {
+            LocalArtifactResult result = manager.find( session, new LocalArtifactRequest( a, null, null ) );
+            assertTrue( a.toString(), result.isAvailable() );
+        }
+
+        Properties props = new Properties();
+        TestFileUtils.read( props, new File( artifactFile.getParentFile(), "_maven.repositories" ) );
+        assertEquals( 2, props.size() );
+    }
+
 }
@@ -0,0 +1,231 @@
+package org.sonatype.aether.impl.internal;
+
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.impl.UpdateCheck;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.test.util.impl.StubMetadata;
+import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.metadata.DefaultMetadata;
+
+public class RepositoryIndexTest
+{
+
+    private File mirror;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        mirror = TestFileUtils.createTempDir();
+        TestFileUtils.write( "jar", new File( mirror, "gid/aid/1.0/aid-1.0.jar" ) );
+        TestFileUtils.write( "sha1", new File( mirror, "gid/aid/1.0/aid-1.0.jar.sha1" ) );
+        TestFileUtils.write( "pom", new File( mirror, "gid/aid/2.0-beta/aid-2.0-beta.pom" ) );
+        TestFileUtils.write( "metadata", new File( mirror, "gid/aid/maven-metadata.xml" ) );
+        TestFileUtils.write( "hidden", new File( mirror, ".hidden/file.txt" ) );
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.delete( mirror );
+    }
+
+    @Test
+    public void testBuildWriteRead()
+        throws IOException
+    {
+        RepositoryIndex index = RepositoryIndex.build( mirror );
+        assertEquals( 3, index.size() );
+
+        File file = new File( mirror, RepositoryIndex.NAME );
+        index.write( file );
+        assertTrue( new File( mirror, RepositoryIndex.NAME + ".sha1" ).isFile() );
+        assertEquals( 3, RepositoryIndex.build( mirror ).size() );
+
+        index = RepositoryIndex.read( file );
+        assertEquals( 3, index.size() );
+        assertTrue( index.contains( "gid/aid/1.0/aid-1.0.jar" ) );
+        assertFalse( index.contains( "gid/aid/1.0/aid-1.0.jar.sha1" ) );
+        assertFalse( index.contains( "gid/aid/1.0/aid-1.0-sources.jar" ) );
+        assertEquals( RepositoryIndex.sha1( new File( mirror, "gid/aid/1.0/aid-1.0.jar" ) ),
+                      index.getChecksum( "gid/aid/1.0/aid-1.0.jar" ) );
+        assertNull( index.getChecksum( "gid/aid/3.0/aid-3.0.jar" ) );
+    }
+
+    @Test
+    public void testPathsWithSpaces()
+        throws IOException
+    {
+        TestFileUtils.write( "spaces", new File( mirror, "gid/aid/1.0/aid 1.0 final.jar" ) );
+        File file = new File( mirror, RepositoryIndex.NAME );
+        RepositoryIndex.build( mirror ).write( file );
+
+        RepositoryIndex index = RepositoryIndex.read( file );
+        assertTrue( index.contains( "gid/aid/1.0/aid 1.0 final.jar" ) );
+        assertEquals( RepositoryIndex.sha1( new File( mirror, "gid/aid/1.0/aid 1.0 final.jar" ) ),
+                      index.getChecksum( "gid/aid/1.0/aid 1.0 final.jar" ) );
+
+        TestFileUtils.write( "# aether repository index\ngid/aid/1.0/aid 1.0.jar\ngid/aid/1.0/aid-1.0.pom "
+            + "0123456789abcdef0123456789abcdef01234567\n", file );
+        index = RepositoryIndex.read( file );
+        assertTrue( index.contains( "gid/aid/1.0/aid 1.0.jar" ) );
+        assertNull( index.getChecksum( "gid/aid/1.0/aid 1.0.jar" ) );
+        assertEquals( "0123456789abcdef0123456789abcdef01234567", index.getChecksum( "gid/aid/1.0/aid-1.0.pom" ) );
+    }
+
+    @Test
+    public void testGetVersions()
+        throws IOException
+    {
+        RepositoryIndex index = RepositoryIndex.build( mirror );
+
+        List<String> versions = index.getVersions( "gid", "aid" );
+        Collections.sort( versions );
+        assertEquals( Arrays.asList( "1.0", "2.0-beta" ), versions );
+        assertEquals( Collections.emptyList(), index.getVersions( "gid", "other" ) );
+    }
+
+    @Test
+    public void testUnchangedMetadataSkipsUpdateCheck()
+        throws IOException
+    {
+        TestRepositorySystemSession session = new TestRepositorySystemSession();
+        session.setOffline( true );
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( RepositoryIndex.CONFIG_PROP_ENABLED, Boolean.TRUE );
+        session.setConfigProperties( config );
+
+        RemoteRepository repository = new RemoteRepository( "mirror", "default", mirror.toURI().toString() );
+        Metadata indexMetadata = new DefaultMetadata( RepositoryIndex.NAME, Metadata.Nature.RELEASE_OR_SNAPSHOT );
+        File localIndex =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( indexMetadata, repository, "" ) );
+        RepositoryIndex.build( mirror ).write( localIndex );
+
+        DefaultUpdateCheckManager manager = new DefaultUpdateCheckManager();
+        StubRemoteRepositoryManager remoteRepositoryManager = new StubRemoteRepositoryManager();
+        assertNotNull( RepositoryIndex.get( session, repository, remoteRepositoryManager, NullLogger.INSTANCE ) );
+
+        File metadataFile = TestFileUtils.createTempFile( "metadata" );
+        UpdateCheck<Metadata, MetadataTransferException> check =
+            new UpdateCheck<Metadata, MetadataTransferException>();
+        check.setItem( new StubMetadata( "gid", "aid", "", "maven-metadata.xml", Metadata.Nature.RELEASE_OR_SNAPSHOT,
+                                         metadataFile ) );
+        check.setFile( metadataFile );
+        check.setRepository( repository );
+        check.setAuthoritativeRepository( repository );
+        check.setPolicy( RepositoryPolicy.UPDATE_POLICY_ALWAYS );
+        manager.touchMetadata( session, check );
+
+        manager.checkMetadata( session, check );
+        assertFalse( check.isRequired() );
+
+        TestFileUtils.write( "changed", metadataFile );
+        manager.checkMetadata( session, check );
+        assertTrue( check.isRequired() );
+
+        TestFileUtils.delete( session.getLocalRepository().getBasedir() );
+    }
+
+    @Test
+    public void testFailedRefreshIgnoresStaleIndex()
+        throws IOException
+    {
+        TestRepositorySystemSession session = new TestRepositorySystemSession();
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( RepositoryIndex.CONFIG_PROP_ENABLED, Boolean.TRUE );
+        session.setConfigProperties( config );
+
+        RemoteRepository repository = new RemoteRepository( "mirror", "default", mirror.toURI().toString() );
+        Metadata indexMetadata = new DefaultMetadata( RepositoryIndex.NAME, Metadata.Nature.RELEASE_OR_SNAPSHOT );
+        File localIndex =
+            new File( session.getLocalRepository().getBasedir(),
+                      session.getLocalRepositoryManager().getPathForRemoteMetadata( indexMetadata, repository, "" ) );
+        RepositoryIndex.build( mirror ).write( localIndex );
+        localIndex.setLastModified( System.currentTimeMillis() - 60 * 60 * 1000 );
+
+        StubRemoteRepositoryManager manager = new StubRemoteRepositoryManager( new RecordingRepositoryConnector()
+        {
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                for ( MetadataDownload download : metadataDownloads )
+                {
+                    download.setException( new MetadataTransferException( download.getMetadata(), null, "failure" ) );
+                }
+            }
+        } );
+
+        assertNull( RepositoryIndex.get( session, repository, manager, NullLogger.INSTANCE ) );
+        assertTrue( localIndex.isFile() );
+
+        TestFileUtils.delete( session.getLocalRepository().getBasedir() );
+    }
+
+    @Test
+    public void testIndexIsRefreshedRegardlessOfUpdatePolicy()
+        throws IOException
+    {
+        TestRepositorySystemSession session = new TestRepositorySystemSession();
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( RepositoryIndex.CONFIG_PROP_ENABLED, Boolean.TRUE );
+        config.put( RepositoryIndex.CONFIG_PROP_REFRESH_INTERVAL, "0" );
+        session.setConfigProperties( config );
+
+        RemoteRepository repository = new RemoteRepository( "mirror", "default", mirror.toURI().toString() );
+        RecordingRepositoryConnector connector = new RecordingRepositoryConnector();
+        StubRemoteRepositoryManager manager = new StubRemoteRepositoryManager( connector )
+        {
+            @Override
+            public RepositoryPolicy getPolicy( RepositorySystemSession session, RemoteRepository repository,
+                                               boolean releases, boolean snapshots )
+            {
+                return new RepositoryPolicy( true, RepositoryPolicy.UPDATE_POLICY_NEVER,
+                                             RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+            }
+        };
+
+        RepositoryIndex.get( session, repository, manager, NullLogger.INSTANCE );
+        RepositoryIndex.get( session, repository, manager, NullLogger.INSTANCE );
+        assertEquals( 2, connector.getActualMetadataGetRequests().size() );
+
+        TestFileUtils.delete( session.getLocalRepository().getBasedir() );
+    }
+
+}
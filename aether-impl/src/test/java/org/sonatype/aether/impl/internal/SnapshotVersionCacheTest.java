@@ -0,0 +1,123 @@
+package org.sonatype.aether.impl.internal;
+
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.VersionRequest;
+import org.sonatype.aether.resolution.VersionResult;
+import org.sonatype.aether.test.util.impl.StubMetadata;
+import org.sonatype.aether.util.DefaultRepositoryCache;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+public class SnapshotVersionCacheTest
+{
+
+    private static final String TIMESTAMPED = "1.0-20110101.000000-1";
+
+    private DefaultRepositorySystemSession session;
+
+    private Artifact artifact;
+
+    private List<RemoteRepository> repos;
+
+    @Before
+    public void setup()
+    {
+        session = new DefaultRepositorySystemSession();
+        session.setCache( new DefaultRepositoryCache() );
+        session.setConfigProperty( SnapshotVersionCache.CONFIG_PROP_ENABLED, Boolean.TRUE );
+        artifact = new DefaultArtifact( "gid:aid:jar:1.0-SNAPSHOT" );
+        repos = Collections.singletonList( new RemoteRepository( "id", "default", "file:///" ) );
+    }
+
+    private VersionResult newResult( String version )
+    {
+        VersionResult result = new VersionResult( new VersionRequest( artifact, repos, "" ) ).setVersion( version );
+        return result.setRepository( repos.get( 0 ) );
+    }
+
+    @Test
+    public void testFind()
+    {
+        SnapshotVersionCache cache = SnapshotVersionCache.get( session );
+        assertSame( cache, SnapshotVersionCache.get( session ) );
+        assertTrue( SnapshotVersionCache.isCacheable( artifact ) );
+        assertFalse( SnapshotVersionCache.isCacheable( artifact.setVersion( TIMESTAMPED ) ) );
+
+        assertNull( cache.find( artifact, repos, "" ) );
+        cache.put( artifact, repos, "", cache.getGeneration( artifact ), newResult( TIMESTAMPED ) );
+
+        SnapshotVersionCache.Entry entry = cache.find( artifact, repos, "" );
+        assertNotNull( entry );
+        assertEquals( TIMESTAMPED, entry.version );
+        assertEquals( repos.get( 0 ), entry.repository );
+        assertNull( cache.find( artifact, repos, "other" ) );
+        assertNull( cache.find( artifact, Collections.<RemoteRepository> emptyList(), "" ) );
+
+        List<RemoteRepository> others =
+            Collections.singletonList( new RemoteRepository( "id", "default", "file:///other" ) );
+        assertNull( cache.find( artifact, others, "" ) );
+    }
+
+    @Test
+    public void testInvalidateByInstallOrDeploy()
+    {
+        SnapshotVersionCache cache = SnapshotVersionCache.get( session );
+        cache.put( artifact, repos, "", cache.getGeneration( artifact ), newResult( TIMESTAMPED ) );
+
+        SnapshotVersionCache.invalidate( session, Collections.singleton( artifact.setVersion( TIMESTAMPED ) ),
+                                         Collections.<Metadata> emptyList() );
+        assertNull( cache.find( artifact, repos, "" ) );
+
+        cache.put( artifact, repos, "", cache.getGeneration( artifact ), newResult( TIMESTAMPED ) );
+        assertNotNull( cache.find( artifact, repos, "" ) );
+
+        Metadata metadata =
+            new StubMetadata( "gid", "aid", "1.0-SNAPSHOT", "maven-metadata.xml", Metadata.Nature.SNAPSHOT );
+        cache.invalidateMetadata( Collections.singleton( metadata ) );
+        assertNull( cache.find( artifact, repos, "" ) );
+    }
+
+    @Test
+    public void testResultOfInvalidatedGenerationIsNotCached()
+    {
+        SnapshotVersionCache cache = SnapshotVersionCache.get( session );
+
+        long generation = cache.getGeneration( artifact );
+        cache.invalidateArtifacts( Collections.singleton( artifact ) );
+        cache.put( artifact, repos, "", generation, newResult( TIMESTAMPED ) );
+
+        assertNull( cache.find( artifact, repos, "" ) );
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        assertNull( SnapshotVersionCache.get( new DefaultRepositorySystemSession() ) );
+
+        session.setConfigProperty( SnapshotVersionCache.CONFIG_PROP_ENABLED, null );
+        assertNull( SnapshotVersionCache.get( session ) );
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.test.util.TestFileUtils;
+
+public class UpdateCheckIndexTest
+{
+
+    private File basedir;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        basedir = TestFileUtils.createTempDir();
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.delete( basedir );
+    }
+
+    private static Map<String, String> updates( String... keysAndValues )
+    {
+        Map<String, String> updates = new HashMap<String, String>();
+        for ( int i = 0; i < keysAndValues.length; i += 2 )
+        {
+            updates.put( keysAndValues[i], keysAndValues[i + 1] );
+        }
+        return updates;
+    }
+
+    @Test
+    public void testGetKey()
+    {
+        UpdateCheckIndex index = new UpdateCheckIndex( basedir, 100 );
+        assertEquals( "gid/aid/resolver-status.properties",
+                      index.getKey( new File( basedir, "gid/aid/resolver-status.properties" ) ) );
+        assertNull( index.getKey( new File( basedir.getParentFile(), "other/resolver-status.properties" ) ) );
+    }
+
+    @Test
+    public void testUpdateAndReadAcrossInstances()
+    {
+        UpdateCheckIndex index = new UpdateCheckIndex( basedir, 100 );
+        assertNull( index.read( "a" ) );
+
+        Properties props = index.update( "a", updates( "x.lastUpdated", "1", "x.error", "" ) );
+        assertEquals( "1", props.getProperty( "x.lastUpdated" ) );
+        index.update( "a", updates( "x.error", null ) );
+        index.update( "b", updates( "y.lastUpdated", "2" ) );
+
+        UpdateCheckIndex other = new UpdateCheckIndex( basedir, 100 );
+        props = other.read( "a" );
+        assertEquals( "1", props.getProperty( "x.lastUpdated" ) );
+        assertNull( props.getProperty( "x.error" ) );
+        assertEquals( "2", other.read( "b" ).getProperty( "y.lastUpdated" ) );
+
+        other.delete( "b" );
+        assertNull( index.read( "b" ) );
+        assertNotNull( index.read( "a" ) );
+    }
+
+    @Test
+    public void testCompaction()
+    {
+        UpdateCheckIndex index = new UpdateCheckIndex( basedir, 10 );
+        for ( int i = 0; i < 50; i++ )
+        {
+            index.update( "a", updates( "x.lastUpdated", String.valueOf( i ) ) );
+        }
+
+        File file = new File( basedir, UpdateCheckIndex.FILE_NAME );
+        assertTrue( String.valueOf( file.length() ), file.length() < 20 * 40 );
+
+        UpdateCheckIndex other = new UpdateCheckIndex( basedir, 10 );
+        assertEquals( "49", other.read( "a" ).getProperty( "x.lastUpdated" ) );
+        assertEquals( Arrays.asList( UpdateCheckIndex.FILE_NAME ), Arrays.asList( basedir.list() ) );
+    }
+
+    @Test
+    public void testInstanceSeesUpdatesAfterCompactionByOther()
+    {
+        UpdateCheckIndex index = new UpdateCheckIndex( basedir, 10 );
+        UpdateCheckIndex other = new UpdateCheckIndex( basedir, 10 );
+        other.update( "b", updates( "y.lastUpdated", "1" ) );
+        assertEquals( "1", index.read( "b" ).getProperty( "y.lastUpdated" ) );
+
+        for ( int i = 0; i < 50; i++ )
+        {
+            index.update( "a", updates( "x.lastUpdated", String.valueOf( i ) ) );
+        }
+
+        assertEquals( "49", other.read( "a" ).getProperty( "x.lastUpdated" ) );
+        other.update( "b", updates( "y.lastUpdated", "2" ) );
+        assertEquals( "2", index.read( "b" ).getProperty( "y.lastUpdated" ) );
+    }
+
+    @Test
+    public void testIncompleteRecordIsIgnored()
+        throws IOException
+    {
+        UpdateCheckIndex index = new UpdateCheckIndex( basedir, 100 );
+        index.update( "a", updates( "x.lastUpdated", "1" ) );
+
+        File file = new File( basedir, UpdateCheckIndex.FILE_NAME );
+        FileOutputStream os = new FileOutputStream( file, true );
+        os.write( new byte[] { 0, 0, 1, 0, 1 } );
+        os.close();
+
+        UpdateCheckIndex other = new UpdateCheckIndex( basedir, 100 );
+        assertEquals( "1", other.read( "a" ).getProperty( "x.lastUpdated" ) );
+        other.update( "a", updates( "x.lastUpdated", "2" ) );
+
+        assertEquals( "2", new UpdateCheckIndex( basedir, 100 ).read( "a" ).getProperty( "x.lastUpdated" ) );
+    }
+
+    @Test
+    public void testUndecodableRecordIsTruncated()
+        throws IOException
+    {
+        UpdateCheckIndex index = new UpdateCheckIndex( basedir, 100 );
+        index.update( "a", updates( "x.lastUpdated", "1" ) );
+
+        // a complete record whose key claims more bytes than there are, i.e. fails to decode
+        File file = new File( basedir, UpdateCheckIndex.FILE_NAME );
+        FileOutputStream os = new FileOutputStream( file, true );
+        os.write( new byte[] { 0, 0, 0, 4, 1, 0, 9, 'a' } );
+        os.close();
+
+        UpdateCheckIndex other = new UpdateCheckIndex( basedir, 100 );
+        assertEquals( "1", other.read( "a" ).getProperty( "x.lastUpdated" ) );
+        other.update( "b", updates( "y.lastUpdated", "2" ) );
+
+        UpdateCheckIndex third = new UpdateCheckIndex( basedir, 100 );
+        assertEquals( "1", third.read( "a" ).getProperty( "x.lastUpdated" ) );
+        assertEquals( "2", third.read( "b" ).getProperty( "y.lastUpdated" ) );
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.sonatype.aether.spi.connector;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositorySystemSession;
+
+/**
+ * The checksum algorithms that repository connectors use to produce and verify the checksum files next to the
+ * transferred resources. An algorithm is identified by its name as understood by
+ * {@link MessageDigest#getInstance(String)}, i.e. any algorithm offered by the installed security providers can be
+ * used. The algorithms and their file extensions are taken from the configuration of the repository system session,
+ * the extension of an algorithm defaults to a well-known extension or is derived from the algorithm name otherwise,
+ * e.g. "SHA-256" yields ".sha256".
+ */
+public final class ChecksumAlgorithms
+{
+
+    /**
+     * The configuration property listing the checksum algorithms to use, separated by commas. Uploads produce
+     * checksums for all listed algorithms, downloads are verified against the strongest algorithm whose checksum is
+     * available from the repository, regardless of the order in which the algorithms are listed.
+     */
+    public static final String CONFIG_PROP_ALGORITHMS = "aether.checksums.algorithms";
+
+    /**
+     * The default checksum algorithms.
+     */
+    public static final String DEFAULT_ALGORITHMS = "SHA-1,MD5";
+
+    /**
+     * The prefix of the configuration properties that override the file extension of a checksum algorithm, the full
+     * property key is formed by appending the upper-case name of the algorithm, e.g.
+     * {@code aether.checksums.extension.SHA-384}. The value must include the leading period.
+     */
+    public static final String CONFIG_PROP_EXTENSION = "aether.checksums.extension.";
+
+    private static final Map<String, String> EXTENSIONS;
+
+    static
+    {
+        Map<String, String> extensions = new HashMap<String, String>();
+        extensions.put( "SHA-512", ".sha512" );
+        extensions.put( "SHA-256", ".sha256" );
+        extensions.put( "SHA-1", ".sha1" );
+        extensions.put( "MD5", ".md5" );
+        EXTENSIONS = Collections.unmodifiableMap( extensions );
+    }
+
+    private ChecksumAlgorithms()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Gets the default file extension for the checksums of the specified algorithm.
+     * 
+     * @param algo The name of the algorithm, must not be {@code null}.
+     * @return The file extension including the leading period, never {@code null}.
+     */
+    public static String getExtension( String algo )
+    {
+        String extension = EXTENSIONS.get( algo.toUpperCase( Locale.ENGLISH ) );
+        if ( extension == null )
+        {
+            extension = "." + algo.toLowerCase( Locale.ENGLISH ).replace( "-", "" );
+        }
+        return extension;
+    }
+
+    /**
+     * Gets the checksum algorithms configured for the specified session. Algorithms that are not supported by the
+     * installed security providers are omitted.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @return The file extensions of the checksums, indexed by algorithm name with the strongest algorithm first,
+     *         never {@code null}.
+     */
+    public static Map<String, String> getAlgorithms( RepositorySystemSession session )
+    {
+        String algos = ConfigurationProperties.get( session, CONFIG_PROP_ALGORITHMS, DEFAULT_ALGORITHMS );
+
+        Map<String, String> algorithms = new LinkedHashMap<String, String>();
+        for ( Map.Entry<String, String> entry : getAlgorithms( algos ).entrySet() )
+        {
+            String key = CONFIG_PROP_EXTENSION + entry.getKey().toUpperCase( Locale.ENGLISH );
+            algorithms.put( entry.getKey(), ConfigurationProperties.get( session, key, entry.getValue() ) );
+        }
+        return algorithms;
+    }
+
+    /**
+     * Gets the specified checksum algorithms. Algorithms that are not supported by the installed security providers
+     * are omitted.
+     * 
+     * @param algos The names of the algorithms, separated by commas, must not be {@code null}.
+     * @return The default file extensions of the checksums, indexed by algorithm name with the strongest algorithm
+     *         first, never {@code null}.
+     */
+    public static Map<String, String> getAlgorithms( String algos )
+    {
+        final Map<String, Integer> lengths = new HashMap<String, Integer>();
+        List<String> names = new ArrayList<String>();
+
+        for ( String algo : algos.split( "," ) )
+        {
+            algo = algo.trim();
+            if ( algo.length() <= 0 || lengths.containsKey( algo ) )
+            {
+                continue;
+            }
+            try
+            {
+                lengths.put( algo, Integer.valueOf( MessageDigest.getInstance( algo ).getDigestLength() ) );
+                names.add( algo );
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                // unsupported, skip
+            }
+        }
+
+        // the digest length is the best indicator of strength we have, the sort is stable for equally long digests
+        Collections.sort( names, new Comparator<String>()
+        {
+            public int compare( String algo1, String algo2 )
+            {
+                return lengths.get( algo2 ).compareTo( lengths.get( algo1 ) );
+            }
+        } );
+
+        Map<String, String> algorithms = new LinkedHashMap<String, String>();
+        for ( String name : names )
+        {
+            algorithms.put( name, getExtension( name ) );
+        }
+        return algorithms;
+    }
+
+}
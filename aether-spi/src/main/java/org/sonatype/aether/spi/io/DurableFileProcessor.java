@@ -0,0 +1,76 @@
+package org.sonatype.aether.spi.io;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A file processor that can force written files to the storage device before making them visible under their final
+ * name. Components writing into the local repository check for this optional capability to honor the durability
+ * configured for the current repository system session and fall back to the plain {@link FileProcessor} methods
+ * otherwise.
+ */
+public interface DurableFileProcessor
+    extends FileProcessor
+{
+
+    /**
+     * The configuration property controlling the durability of files written into the local repository, one of
+     * {@link #DURABILITY_NONE} (default), {@link #DURABILITY_DATA} or {@link #DURABILITY_ALL}.
+     */
+    static final String CONFIG_PROP_DURABILITY = "aether.fileProcessor.durability";
+
+    /**
+     * Leaves the flushing of written files to the operating system. A crash of the machine can leave empty or
+     * incomplete files behind but a crash of the process cannot.
+     */
+    static final String DURABILITY_NONE = "none";
+
+    /**
+     * Forces the contents of written files to the storage device before making them visible.
+     */
+    static final String DURABILITY_DATA = "data";
+
+    /**
+     * Forces the contents and the metadata of written files to the storage device before making them visible.
+     */
+    static final String DURABILITY_ALL = "all";
+
+    /**
+     * Writes the given data to a file with the specified durability. Otherwise behaves like
+     * {@link FileProcessor#write(File, String)}.
+     *
+     * @param file The file to write to, must not be {@code null}. This file will be overwritten.
+     * @param data The data to write, may be {@code null}.
+     * @param durability The durability of the written file, may be {@code null} for {@link #DURABILITY_NONE}.
+     * @throws IOException If an I/O error occurs.
+     */
+    void write( File file, String data, String durability )
+        throws IOException;
+
+    /**
+     * Copies the specified source file to the given target file with the specified durability. Otherwise behaves like
+     * {@link FileProcessor#copy(File, File, FileProcessor.ProgressListener)}.
+     *
+     * @param source The file to copy from, must not be {@code null}.
+     * @param target The file to copy to, must not be {@code null}.
+     * @param listener The listener to notify about the copy progress, may be {@code null}.
+     * @param durability The durability of the written file, may be {@code null} for {@link #DURABILITY_NONE}.
+     * @return The number of copied bytes.
+     * @throws IOException If an I/O error occurs.
+     */
+    long copy( File source, File target, ProgressListener listener, String durability )
+        throws IOException;
+
+}
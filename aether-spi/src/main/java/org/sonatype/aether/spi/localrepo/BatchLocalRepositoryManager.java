@@ -0,0 +1,40 @@
+package org.sonatype.aether.spi.localrepo;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.Collection;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.LocalArtifactRegistration;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+
+/**
+ * A local repository manager that can register several artifacts at once, e.g. to update shared tracking files only
+ * once. Components registering many artifacts check for this optional capability and fall back to
+ * {@link LocalRepositoryManager#add(RepositorySystemSession, LocalArtifactRegistration)} for each artifact otherwise.
+ */
+public interface BatchLocalRepositoryManager
+    extends LocalRepositoryManager
+{
+
+    /**
+     * Registers the specified artifacts with the local repository.
+     *
+     * @param session The repository system session during which the artifacts were installed or downloaded, must not
+     *            be {@code null}.
+     * @param requests The registration requests, must not be {@code null}.
+     * @see #add(RepositorySystemSession, LocalArtifactRegistration)
+     */
+    void add( RepositorySystemSession session, Collection<LocalArtifactRegistration> requests );
+
+}
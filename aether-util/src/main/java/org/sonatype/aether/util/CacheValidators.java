@@ -0,0 +1,223 @@
+package org.sonatype.aether.util;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * The cache validators (entity tag and last-modified timestamp) reported by a remote repository for a downloaded
+ * resource. Connectors persist these validators next to the local copy of the resource such that a later refresh can
+ * be issued as a conditional request which leaves the local file untouched if the remote resource did not change.
+ */
+public final class CacheValidators
+{
+
+    private static final String EXTENSION = ".validators";
+
+    private static final String KEY_ETAG = "remote.etag";
+
+    private static final String KEY_LAST_MODIFIED = "remote.lastModified";
+
+    private static final String KEY_LOCAL_SIZE = "local.size";
+
+    private static final String KEY_LOCAL_LAST_MODIFIED = "local.lastModified";
+
+    private final String etag;
+
+    private final long lastModified;
+
+    /**
+     * Creates new cache validators.
+     *
+     * @param etag The entity tag of the remote resource, may be {@code null}.
+     * @param lastModified The last-modified timestamp of the remote resource or {@code 0} if unknown.
+     */
+    public CacheValidators( String etag, long lastModified )
+    {
+        this.etag = ( etag != null && etag.length() > 0 ) ? etag : null;
+        this.lastModified = Math.max( 0, lastModified );
+    }
+
+    /**
+     * Gets the entity tag of the remote resource.
+     *
+     * @return The entity tag or {@code null} if unknown.
+     */
+    public String getEtag()
+    {
+        return etag;
+    }
+
+    /**
+     * Gets the last-modified timestamp of the remote resource.
+     *
+     * @return The last-modified timestamp or {@code 0} if unknown.
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * Indicates whether these validators carry any information at all.
+     *
+     * @return {@code true} if an entity tag or last-modified timestamp is known, {@code false} otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return etag == null && lastModified <= 0;
+    }
+
+    /**
+     * Reads the validators previously stored for the specified local file. Validators are only returned if the local
+     * file still exists and did not change since the validators were stored.
+     *
+     * @param file The local file of the resource, may be {@code null}.
+     * @return The stored validators or {@code null} if none are available or they are outdated.
+     */
+    public static CacheValidators read( File file )
+    {
+        if ( file == null || !file.isFile() )
+        {
+            return null;
+        }
+
+        File validatorsFile = getValidatorsFile( file );
+        if ( !validatorsFile.isFile() )
+        {
+            return null;
+        }
+
+        Properties props = new Properties();
+        try
+        {
+            FileInputStream fis = new FileInputStream( validatorsFile );
+            try
+            {
+                props.load( fis );
+            }
+            finally
+            {
+                close( fis );
+            }
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+
+        if ( parse( props.getProperty( KEY_LOCAL_SIZE ) ) != file.length()
+            || parse( props.getProperty( KEY_LOCAL_LAST_MODIFIED ) ) != file.lastModified() )
+        {
+            return null;
+        }
+
+        CacheValidators validators =
+            new CacheValidators( props.getProperty( KEY_ETAG ), parse( props.getProperty( KEY_LAST_MODIFIED ) ) );
+        return validators.isEmpty() ? null : validators;
+    }
+
+    /**
+     * Stores the specified validators for the given local file, replacing any previously stored validators. This
+     * method is meant to be called after the local file has been updated from the remote resource.
+     *
+     * @param file The local file of the resource, must not be {@code null}.
+     * @param validators The validators to store, may be {@code null} to just remove existing validators.
+     */
+    public static void write( File file, CacheValidators validators )
+    {
+        File validatorsFile = getValidatorsFile( file );
+
+        if ( validators == null || validators.isEmpty() || !file.isFile() )
+        {
+            validatorsFile.delete();
+            return;
+        }
+
+        Properties props = new Properties();
+        if ( validators.etag != null )
+        {
+            props.setProperty( KEY_ETAG, validators.etag );
+        }
+        if ( validators.lastModified > 0 )
+        {
+            props.setProperty( KEY_LAST_MODIFIED, Long.toString( validators.lastModified ) );
+        }
+        props.setProperty( KEY_LOCAL_SIZE, Long.toString( file.length() ) );
+        props.setProperty( KEY_LOCAL_LAST_MODIFIED, Long.toString( file.lastModified() ) );
+
+        try
+        {
+            FileOutputStream fos = new FileOutputStream( validatorsFile );
+            try
+            {
+                props.store( fos, "NOTE: This is an internal implementation file"
+                    + ", its format can be changed without prior notice." );
+            }
+            finally
+            {
+                close( fos );
+            }
+        }
+        catch ( IOException e )
+        {
+            // a missing or broken validators file merely disables the conditional request
+            validatorsFile.delete();
+        }
+    }
+
+    private static File getValidatorsFile( File file )
+    {
+        return new File( file.getPath() + EXTENSION );
+    }
+
+    private static long parse( String value )
+    {
+        if ( value == null )
+        {
+            return -1;
+        }
+        try
+        {
+            return Long.parseLong( value.trim() );
+        }
+        catch ( NumberFormatException e )
+        {
+            return -1;
+        }
+    }
+
+    private static void close( Closeable closeable )
+    {
+        try
+        {
+            closeable.close();
+        }
+        catch ( IOException e )
+        {
+            // ignored
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "etag=" + etag + ", lastModified=" + lastModified;
+    }
+
+}
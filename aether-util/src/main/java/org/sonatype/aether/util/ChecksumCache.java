@@ -0,0 +1,200 @@
+package org.sonatype.aether.util;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache for the checksums of local files, e.g. to avoid hashing the same artifact again when it is deployed to
+ * several repositories. A file is identified by its canonical path, its size and its modification timestamp, i.e. the
+ * cached checksums become stale once the file is modified. Checksums calculated shortly after the last modification of
+ * a file are not trusted since a subsequent modification might not change the timestamp, given its limited
+ * granularity on some file systems.
+ */
+public final class ChecksumCache
+{
+
+    private static final ChecksumCache INSTANCE = new ChecksumCache( 256 );
+
+    /**
+     * The minimum time in milliseconds between the last modification of a file and the calculation of its checksums
+     * for the checksums to be reused.
+     */
+    private static final long RACY_INTERVAL = 2000;
+
+    private final Map<String, Entry> entries;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Gets the cache that is shared by all components of the JVM.
+     * 
+     * @return The shared cache, never {@code null}.
+     */
+    public static ChecksumCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates a new cache for the specified number of files. The least recently used files are evicted from the cache
+     * once the limit is reached.
+     * 
+     * @param maxEntries The maximum number of files to remember.
+     */
+    public ChecksumCache( final int maxEntries )
+    {
+        entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest )
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the checksums for the specified file, calculating only those that are not already cached.
+     * 
+     * @param dataFile The file for which to get the checksums, must not be {@code null}.
+     * @param algos The names of checksum algorithms to use, must not be {@code null}.
+     * @return The checksums, indexed by algorithm name, or the exception that occured while trying to calculate it,
+     *         never {@code null}.
+     * @throws IOException If the data file could not be read.
+     * @see ChecksumUtils#calc(File, Collection)
+     */
+    public Map<String, Object> calc( File dataFile, Collection<String> algos )
+        throws IOException
+    {
+        String key = dataFile.getCanonicalPath();
+        long size = dataFile.length();
+        long lastModified = dataFile.lastModified();
+
+        Map<String, Object> results = new LinkedHashMap<String, Object>();
+        List<String> missing = new ArrayList<String>();
+
+        synchronized ( this )
+        {
+            Entry entry = entries.get( key );
+            if ( entry != null && !entry.isValid( size, lastModified ) )
+            {
+                entries.remove( key );
+                entry = null;
+            }
+            for ( String algo : algos )
+            {
+                String checksum = ( entry != null ) ? entry.checksums.get( algo ) : null;
+                results.put( algo, checksum );
+                if ( checksum == null )
+                {
+                    missing.add( algo );
+                }
+            }
+            if ( missing.isEmpty() )
+            {
+                hits++;
+                return results;
+            }
+            misses++;
+        }
+
+        long calculated = System.currentTimeMillis();
+        Map<String, Object> checksums = ChecksumUtils.calc( dataFile, missing );
+        results.putAll( checksums );
+
+        if ( size == dataFile.length() && lastModified == dataFile.lastModified() )
+        {
+            synchronized ( this )
+            {
+                Entry entry = entries.get( key );
+                if ( entry == null || !entry.isValid( size, lastModified ) )
+                {
+                    entry = new Entry( size, lastModified, calculated );
+                    entries.put( key, entry );
+                }
+                for ( Map.Entry<String, Object> checksum : checksums.entrySet() )
+                {
+                    if ( checksum.getValue() instanceof String )
+                    {
+                        entry.checksums.put( checksum.getKey(), (String) checksum.getValue() );
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Removes all cached checksums.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of requests that could be served completely from the cache.
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Gets the number of requests that required the calculation of checksums.
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    static class Entry
+    {
+
+        final long size;
+
+        final long lastModified;
+
+        final long calculated;
+
+        final Map<String, String> checksums = new HashMap<String, String>();
+
+        Entry( long size, long lastModified, long calculated )
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.calculated = calculated;
+        }
+
+        boolean isValid( long size, long lastModified )
+        {
+            return this.size == size && this.lastModified == lastModified && lastModified != 0
+                && calculated - lastModified >= RACY_INTERVAL;
+        }
+
+    }
+
+}
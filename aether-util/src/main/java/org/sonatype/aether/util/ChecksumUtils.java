@@ -17,6 +17,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
@@ -31,6 +33,8 @@ import java.util.Map;
 public class ChecksumUtils
 {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private ChecksumUtils()
     {
         // hide constructor
@@ -128,17 +132,17 @@ public class ChecksumUtils
         FileInputStream fis = new FileInputStream( dataFile );
         try
         {
-            for ( byte[] buffer = new byte[32 * 1024];; )
+            FileChannel channel = fis.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+            while ( channel.read( buffer ) >= 0 )
             {
-                int read = fis.read( buffer );
-                if ( read < 0 )
-                {
-                    break;
-                }
+                buffer.flip();
                 for ( MessageDigest digest : digests.values() )
                 {
-                    digest.update( buffer, 0, read );
+                    buffer.rewind();
+                    digest.update( buffer );
                 }
+                buffer.clear();
             }
         }
         finally
@@ -156,7 +160,14 @@ public class ChecksumUtils
         return results;
     }
 
-    private static String toHexString( byte[] bytes )
+    /**
+     * Creates a hexadecimal representation of the specified bytes. Each byte is converted into a two-digit hex number
+     * and appended to the result with no separator between consecutive numbers.
+     * 
+     * @param bytes The bytes to represent in hex notation, must not be {@code null}.
+     * @return The hexadecimal representation of the input, never {@code null}.
+     */
+    public static String toHexString( byte[] bytes )
     {
         StringBuilder buffer = new StringBuilder( bytes.length * 2 );
 
@@ -0,0 +1,196 @@
+package org.sonatype.aether.util;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositorySystemSession;
+
+/**
+ * Controls the retry of downloads that failed due to a transient error like a connection reset or a server error. The
+ * delay between two attempts grows exponentially with the number of failed attempts and is randomized ("full jitter")
+ * such that concurrent downloads that failed together do not hit the repository again at the same time. Connectors
+ * report each retry to the transfer listener as another {@link org.sonatype.aether.transfer.TransferEvent.EventType#INITIATED
+ * INITIATED} event whose {@link org.sonatype.aether.transfer.TransferEvent#getException() exception} denotes the
+ * failure of the previous attempt.
+ */
+public final class TransferRetryPolicy
+{
+
+    /**
+     * The configuration property for the maximum number of attempts per download, defaults to {@code 1}, i.e. no
+     * retries.
+     */
+    public static final String MAX_ATTEMPTS = "aether.connector.retry.attempts";
+
+    /**
+     * The configuration property for the delay in milliseconds before the first retry, defaults to {@code 500}.
+     */
+    public static final String INITIAL_DELAY = "aether.connector.retry.initialDelay";
+
+    /**
+     * The configuration property for the upper bound of the delay in milliseconds between two attempts, defaults to
+     * {@code 30000}.
+     */
+    public static final String MAX_DELAY = "aether.connector.retry.maxDelay";
+
+    /**
+     * The configuration property for the comma-separated list of HTTP status codes that denote a transient error,
+     * defaults to {@code 408,429,500,502,503,504}.
+     */
+    public static final String STATUS_CODES = "aether.connector.retry.statusCodes";
+
+    private static final String DEFAULT_STATUS_CODES = "408,429,500,502,503,504";
+
+    private static final Random RANDOM = new Random();
+
+    private final int maxAttempts;
+
+    private final long initialDelay;
+
+    private final long maxDelay;
+
+    private final int[] statusCodes;
+
+    /**
+     * Creates a new retry policy.
+     *
+     * @param maxAttempts The maximum number of attempts per download, values less than {@code 1} are treated as
+     *            {@code 1}.
+     * @param initialDelay The delay in milliseconds before the first retry.
+     * @param maxDelay The upper bound of the delay in milliseconds between two attempts.
+     * @param statusCodes The HTTP status codes that denote a transient error, may be {@code null}.
+     */
+    public TransferRetryPolicy( int maxAttempts, long initialDelay, long maxDelay, int... statusCodes )
+    {
+        this.maxAttempts = Math.max( 1, maxAttempts );
+        this.initialDelay = Math.max( 0, initialDelay );
+        this.maxDelay = Math.max( this.initialDelay, maxDelay );
+        this.statusCodes = ( statusCodes != null ) ? statusCodes.clone() : new int[0];
+        Arrays.sort( this.statusCodes );
+    }
+
+    /**
+     * Creates a new retry policy from the configuration properties of the specified session.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     * @return The retry policy, never {@code null}.
+     */
+    public static TransferRetryPolicy newInstance( RepositorySystemSession session )
+    {
+        int maxAttempts = ConfigurationProperties.get( session, MAX_ATTEMPTS, 1 );
+        int initialDelay = ConfigurationProperties.get( session, INITIAL_DELAY, 500 );
+        int maxDelay = ConfigurationProperties.get( session, MAX_DELAY, 30 * 1000 );
+        String codes = ConfigurationProperties.get( session, STATUS_CODES, DEFAULT_STATUS_CODES );
+        return new TransferRetryPolicy( maxAttempts, initialDelay, maxDelay, parseStatusCodes( codes ) );
+    }
+
+    private static int[] parseStatusCodes( String codes )
+    {
+        String[] tokens = codes.split( "[,\\s]+" );
+        int[] result = new int[tokens.length];
+        int count = 0;
+        for ( String token : tokens )
+        {
+            try
+            {
+                result[count] = Integer.parseInt( token.trim() );
+                count++;
+            }
+            catch ( NumberFormatException e )
+            {
+                // ignored
+            }
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy( result, 0, trimmed, 0, count );
+        return trimmed;
+    }
+
+    /**
+     * Gets the maximum number of attempts per download.
+     *
+     * @return The maximum number of attempts, always positive.
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    /**
+     * Indicates whether another attempt may be made after the specified number of failed attempts.
+     *
+     * @param attempt The number of attempts made so far, starting at {@code 1}.
+     * @return {@code true} if the download may be retried, {@code false} otherwise.
+     */
+    public boolean canRetry( int attempt )
+    {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * Indicates whether the specified HTTP status code denotes a transient error.
+     *
+     * @param statusCode The HTTP status code.
+     * @return {@code true} if a request failing with the status code may be retried, {@code false} otherwise.
+     */
+    public boolean isRetryable( int statusCode )
+    {
+        return Arrays.binarySearch( statusCodes, statusCode ) >= 0;
+    }
+
+    /**
+     * Gets the delay before the next attempt.
+     *
+     * @param attempt The number of attempts made so far, starting at {@code 1}.
+     * @return The delay in milliseconds, never negative.
+     */
+    public long getDelay( int attempt )
+    {
+        long bound = initialDelay;
+        for ( int i = 1; i < attempt && bound < maxDelay; i++ )
+        {
+            bound *= 2;
+        }
+        bound = Math.min( bound, maxDelay );
+        synchronized ( RANDOM )
+        {
+            return (long) ( RANDOM.nextDouble() * ( bound + 1 ) );
+        }
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @param attempt The number of attempts made so far, starting at {@code 1}.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public void await( int attempt )
+        throws InterruptedException
+    {
+        long delay = getDelay( attempt );
+        if ( delay > 0 )
+        {
+            Thread.sleep( delay );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "maxAttempts=" + maxAttempts + ", delay=[" + initialDelay + "," + maxDelay + "]";
+    }
+
+}
@@ -0,0 +1,306 @@
+package org.sonatype.aether.util.concurrency;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.Arrays;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Limits the number of concurrent transfers to a remote repository. The limit adapts to the observed behavior of the
+ * repository using an additive-increase/multiplicative-decrease scheme: each successful transfer that was issued while
+ * the limit was (nearly) saturated raises the limit by roughly one per round of transfers, while a transfer that was
+ * rejected due to overload (e.g. HTTP 429 or 503) cuts the limit in half. Overload signals from transfers that were
+ * started before the last cut are ignored such that a burst of rejections only halves the limit once. The usage
+ * pattern looks like this:
+ *
+ * <pre>
+ * long started = limiter.acquire();
+ * boolean overloaded = false;
+ * try
+ * {
+ *     overloaded = transfer();
+ * }
+ * finally
+ * {
+ *     limiter.release( started, overloaded );
+ * }
+ * </pre>
+ *
+ * Connectors obtain the limiter for a repository via {@link #get(RepositorySystemSession, RemoteRepository)} which
+ * shares the instance among all connectors of the session that access a repository with the same identifier.
+ */
+public final class AdaptiveConcurrencyLimiter
+{
+
+    /**
+     * The configuration property to enable adaptive concurrency control for connectors, defaults to {@code false}.
+     */
+    public static final String ENABLED = "aether.connector.concurrency.adaptive";
+
+    /**
+     * The configuration property for the initial number of concurrent transfers per repository, defaults to {@code 4}.
+     */
+    public static final String INITIAL_LIMIT = "aether.connector.concurrency.initial";
+
+    /**
+     * The configuration property for the lower bound of concurrent transfers per repository, defaults to {@code 1}.
+     */
+    public static final String MIN_LIMIT = "aether.connector.concurrency.min";
+
+    /**
+     * The configuration property for the upper bound of concurrent transfers per repository, defaults to {@code 64}.
+     */
+    public static final String MAX_LIMIT = "aether.connector.concurrency.max";
+
+    private static final int SAMPLES = 256;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private double limit;
+
+    private int inFlight;
+
+    private int waiting;
+
+    private final long[] latencies = new long[SAMPLES];
+
+    private int latencyCount;
+
+    private int latencyIndex;
+
+    private long successes;
+
+    private long overloads;
+
+    private long lastDecrease = System.nanoTime();
+
+    /**
+     * Creates a new limiter with the specified bounds.
+     *
+     * @param initialLimit The initial number of concurrent transfers.
+     * @param minLimit The lower bound for the number of concurrent transfers, must be positive.
+     * @param maxLimit The upper bound for the number of concurrent transfers, must not be less than the lower bound.
+     */
+    public AdaptiveConcurrencyLimiter( int initialLimit, int minLimit, int maxLimit )
+    {
+        if ( minLimit < 1 || maxLimit < minLimit )
+        {
+            throw new IllegalArgumentException( "invalid concurrency bounds [" + minLimit + "," + maxLimit + "]" );
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max( minLimit, Math.min( maxLimit, initialLimit ) );
+    }
+
+    /**
+     * Gets the limiter for the specified repository if adaptive concurrency control is enabled for the session.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     * @param repository The remote repository, must not be {@code null}.
+     * @return The limiter shared by all connectors of the session to the repository or {@code null} if adaptive
+     *         concurrency control is disabled.
+     */
+    public static AdaptiveConcurrencyLimiter get( RepositorySystemSession session, RemoteRepository repository )
+    {
+        if ( !ConfigurationProperties.get( session, ENABLED, false ) )
+        {
+            return null;
+        }
+
+        SessionData data = session.getData();
+        Object key = AdaptiveConcurrencyLimiter.class.getName() + '/' + repository.getId();
+
+        synchronized ( data )
+        {
+            AdaptiveConcurrencyLimiter limiter = (AdaptiveConcurrencyLimiter) data.get( key );
+            if ( limiter == null )
+            {
+                int min = ConfigurationProperties.get( session, MIN_LIMIT, 1 );
+                int max = ConfigurationProperties.get( session, MAX_LIMIT, 64 );
+                int initial = ConfigurationProperties.get( session, INITIAL_LIMIT, 4 );
+                limiter = new AdaptiveConcurrencyLimiter( initial, Math.max( 1, min ), Math.max( min, max ) );
+                data.set( key, limiter );
+            }
+            return limiter;
+        }
+    }
+
+    /**
+     * Waits until another transfer may be started.
+     *
+     * @return The start time of the transfer in nanoseconds, to be passed to {@link #release(long, boolean)}.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public synchronized long acquire()
+        throws InterruptedException
+    {
+        waiting++;
+        try
+        {
+            while ( inFlight >= (int) limit )
+            {
+                wait();
+            }
+        }
+        finally
+        {
+            waiting--;
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Signals the completion of a transfer and adjusts the limit accordingly.
+     *
+     * @param started The start time of the transfer as returned by {@link #acquire()}.
+     * @param overloaded {@code true} if the repository rejected the transfer due to overload, {@code false} otherwise.
+     */
+    public synchronized void release( long started, boolean overloaded )
+    {
+        boolean saturated = inFlight >= (int) limit - 1;
+        inFlight = Math.max( 0, inFlight - 1 );
+
+        if ( overloaded )
+        {
+            overloads++;
+            if ( started - lastDecrease > 0 )
+            {
+                limit = Math.max( minLimit, limit / 2 );
+                lastDecrease = System.nanoTime();
+            }
+        }
+        else
+        {
+            successes++;
+            latencies[latencyIndex] = System.nanoTime() - started;
+            latencyIndex = ( latencyIndex + 1 ) % SAMPLES;
+            latencyCount = Math.min( SAMPLES, latencyCount + 1 );
+
+            if ( saturated )
+            {
+                limit = Math.min( maxLimit, limit + 1 / limit );
+            }
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Gets the upper bound for the number of concurrent transfers.
+     *
+     * @return The maximum limit.
+     */
+    public int getMaxLimit()
+    {
+        return maxLimit;
+    }
+
+    /**
+     * Gets the current number of concurrent transfers permitted.
+     *
+     * @return The current limit.
+     */
+    public synchronized int getLimit()
+    {
+        return (int) limit;
+    }
+
+    /**
+     * Gets the number of transfers that are currently active.
+     *
+     * @return The number of active transfers.
+     */
+    public synchronized int getInFlight()
+    {
+        return inFlight;
+    }
+
+    /**
+     * Gets the number of transfers that are waiting for a permit.
+     *
+     * @return The queue depth.
+     */
+    public synchronized int getQueueDepth()
+    {
+        return waiting;
+    }
+
+    /**
+     * Gets the number of transfers that were rejected by the repository due to overload.
+     *
+     * @return The number of overloaded transfers.
+     */
+    public synchronized long getOverloadCount()
+    {
+        return overloads;
+    }
+
+    /**
+     * Gets the number of transfers that completed without overloading the repository.
+     *
+     * @return The number of successful transfers.
+     */
+    public synchronized long getSuccessCount()
+    {
+        return successes;
+    }
+
+    /**
+     * Gets a percentile of the latencies of recently completed transfers.
+     *
+     * @param percentile The percentile to compute, in the range {@code [0,1]}.
+     * @return The latency in milliseconds or {@code -1} if no transfer completed yet.
+     */
+    public long getLatencyPercentile( double percentile )
+    {
+        long[] samples;
+        synchronized ( this )
+        {
+            if ( latencyCount <= 0 )
+            {
+                return -1;
+            }
+            samples = new long[latencyCount];
+            System.arraycopy( latencies, 0, samples, 0, latencyCount );
+        }
+        Arrays.sort( samples );
+        double p = Math.max( 0, Math.min( 1, percentile ) );
+        int index = (int) Math.ceil( p * samples.length ) - 1;
+        return samples[Math.max( 0, index )] / ( 1000 * 1000 );
+    }
+
+    /**
+     * Indicates whether the specified HTTP status code signals an overloaded repository.
+     *
+     * @param statusCode The HTTP status code.
+     * @return {@code true} if the status code denotes overload, {@code false} otherwise.
+     */
+    public static boolean isOverloaded( int statusCode )
+    {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "limit=" + (int) limit + ", inFlight=" + inFlight + ", waiting=" + waiting;
+    }
+
+}
@@ -0,0 +1,511 @@
+package org.sonatype.aether.util.repository;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.sonatype.aether.RepositorySystem;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.collection.DependencyCollectionException;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.resolution.MetadataRequest;
+import org.sonatype.aether.resolution.MetadataResult;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.util.ChecksumUtils;
+import org.sonatype.aether.util.artifact.ArtifacIdUtils;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.concurrency.RunnableErrorForwarder;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+import org.sonatype.aether.util.layout.MavenDefaultLayout;
+import org.sonatype.aether.util.layout.RepositoryLayout;
+import org.sonatype.aether.util.metadata.DefaultMetadata;
+
+/**
+ * Populates a repository for offline use with the transitive dependencies of a set of root requests, e.g. to pre-warm
+ * the local repository of a build agent without running a build. The dependency graphs of the roots are collected in
+ * parallel, the union of their artifacts (and by default the corresponding POMs and maven-metadata.xml files) is
+ * resolved in a single batch such that artifacts shared among the roots are downloaded only once and the connectors
+ * can transfer them concurrently. The files end up in the local repository of the session and optionally get copied
+ * into a directory with the Maven default layout (along with SHA-1 checksum files) that can serve as a {@code file:}
+ * repository. Each copy is written to a temporary file first and then renamed, so an interrupted build leaves no
+ * partial files behind. The build can be resumed: files already present in the local repository are not downloaded
+ * again and copies whose SHA-1 checksum file matches the source are not copied again. Finally, a
+ * {@link OfflineRepositoryManifest} is written to the base directory of the populated repository.
+ */
+public class OfflineRepositoryBuilder
+{
+
+    private static final String MAVEN_METADATA_XML = "maven-metadata.xml";
+
+    private static final RepositoryLayout LAYOUT = new MavenDefaultLayout();
+
+    private final RepositorySystem system;
+
+    private int threads = 4;
+
+    private boolean includePoms = true;
+
+    private boolean includeMetadata = true;
+
+    private File remoteLayoutDirectory;
+
+    /**
+     * Creates a new builder using the specified repository system.
+     * 
+     * @param system The repository system used to collect and resolve the dependencies, must not be {@code null}.
+     */
+    public OfflineRepositoryBuilder( RepositorySystem system )
+    {
+        if ( system == null )
+        {
+            throw new IllegalArgumentException( "repository system has not been specified" );
+        }
+        this.system = system;
+    }
+
+    /**
+     * Sets the number of threads used to collect the dependency graphs of the roots.
+     * 
+     * @param threads The number of threads, values less than 1 denote a single thread.
+     * @return This builder for chaining, never {@code null}.
+     */
+    public OfflineRepositoryBuilder setThreads( int threads )
+    {
+        this.threads = Math.max( 1, threads );
+        return this;
+    }
+
+    /**
+     * Controls whether the POMs of the artifacts are stored as well, defaults to {@code true}.
+     * 
+     * @param includePoms {@code true} to include the POMs, {@code false} otherwise.
+     * @return This builder for chaining, never {@code null}.
+     */
+    public OfflineRepositoryBuilder setIncludePoms( boolean includePoms )
+    {
+        this.includePoms = includePoms;
+        return this;
+    }
+
+    /**
+     * Controls whether the maven-metadata.xml files of the artifacts are stored as well, defaults to {@code true}.
+     * These files are required to resolve version ranges and snapshots offline.
+     * 
+     * @param includeMetadata {@code true} to include the metadata, {@code false} otherwise.
+     * @return This builder for chaining, never {@code null}.
+     */
+    public OfflineRepositoryBuilder setIncludeMetadata( boolean includeMetadata )
+    {
+        this.includeMetadata = includeMetadata;
+        return this;
+    }
+
+    /**
+     * Sets the directory to copy the files into using the Maven default layout. If no directory is set, the local
+     * repository of the session is the offline repository.
+     * 
+     * @param remoteLayoutDirectory The base directory of the repository to create, may be {@code null}.
+     * @return This builder for chaining, never {@code null}.
+     */
+    public OfflineRepositoryBuilder setRemoteLayoutDirectory( File remoteLayoutDirectory )
+    {
+        this.remoteLayoutDirectory = remoteLayoutDirectory;
+        return this;
+    }
+
+    /**
+     * Populates the offline repository with the transitive dependencies of the specified roots. Failures to collect or
+     * resolve individual dependencies do not abort the build but are recorded in the result.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param roots The collection requests whose dependencies to store, must not be {@code null}.
+     * @return The result of the build, never {@code null}.
+     * @throws IOException If the offline repository or its manifest could not be written.
+     */
+    public OfflineRepositoryResult build( RepositorySystemSession session, Collection<? extends CollectRequest> roots )
+        throws IOException
+    {
+        OfflineRepositoryResult result = new OfflineRepositoryResult();
+
+        Map<String, ArtifactRequest> requests = new LinkedHashMap<String, ArtifactRequest>();
+        for ( DependencyNode graph : collect( session, roots, result ) )
+        {
+            PreorderNodeListGenerator nodes = new PreorderNodeListGenerator();
+            graph.accept( nodes );
+            for ( DependencyNode node : nodes.getNodes() )
+            {
+                if ( node.getDependency() == null )
+                {
+                    continue;
+                }
+                Artifact artifact = node.getDependency().getArtifact();
+                addRequest( requests, artifact, node );
+                if ( includePoms && !"pom".equals( artifact.getExtension() ) )
+                {
+                    Artifact pom =
+                        new DefaultArtifact( artifact.getGroupId(), artifact.getArtifactId(), "", "pom",
+                                             artifact.getVersion() );
+                    addRequest( requests, pom, node );
+                }
+            }
+        }
+
+        List<ArtifactResult> artifactResults = resolve( session, requests.values(), result );
+
+        File basedir =
+            ( remoteLayoutDirectory != null ) ? remoteLayoutDirectory : session.getLocalRepository().getBasedir();
+        OfflineRepositoryManifest manifest = new OfflineRepositoryManifest();
+
+        for ( ArtifactResult artifactResult : artifactResults )
+        {
+            Artifact artifact = artifactResult.getArtifact();
+            if ( artifact == null || artifact.getFile() == null )
+            {
+                continue;
+            }
+            String path = getPath( basedir, LAYOUT.getPath( artifact ).getPath(), artifact.getFile() );
+            if ( path != null && store( basedir, path, artifact.getFile(), manifest, result ) )
+            {
+                result.addArtifact( artifact );
+            }
+        }
+
+        if ( includeMetadata )
+        {
+            for ( MetadataResult metadataResult : resolveMetadata( session, artifactResults, result ) )
+            {
+                Metadata metadata = metadataResult.getMetadata();
+                if ( metadata == null || metadata.getFile() == null )
+                {
+                    continue;
+                }
+                String path = getPath( basedir, LAYOUT.getPath( metadata ).getPath(), metadata.getFile() );
+                if ( path != null && manifest.getChecksum( path ) == null )
+                {
+                    // the first repository wins, metadata from several repositories is not merged
+                    store( basedir, path, metadata.getFile(), manifest, result );
+                }
+            }
+        }
+
+        File manifestFile = new File( basedir, OfflineRepositoryManifest.NAME );
+        manifestFile.getAbsoluteFile().getParentFile().mkdirs();
+        File tmp = newTempFile( manifestFile );
+        try
+        {
+            manifest.write( tmp );
+            commit( tmp, manifestFile );
+        }
+        finally
+        {
+            tmp.delete();
+        }
+        result.setManifest( manifest );
+
+        return result;
+    }
+
+    private List<DependencyNode> collect( final RepositorySystemSession session,
+                                          Collection<? extends CollectRequest> roots,
+                                          final OfflineRepositoryResult result )
+    {
+        final DependencyNode[] graphs = new DependencyNode[roots.size()];
+
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, roots.size() ) ) );
+        try
+        {
+            RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+
+            int index = 0;
+            for ( final CollectRequest root : roots )
+            {
+                final int i = index++;
+                executor.execute( errorForwarder.wrap( new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            graphs[i] = system.collectDependencies( session, root ).getRoot();
+                        }
+                        catch ( DependencyCollectionException e )
+                        {
+                            result.addException( e );
+                            graphs[i] = ( e.getResult() != null ) ? e.getResult().getRoot() : null;
+                        }
+                    }
+                } ) );
+            }
+
+            errorForwarder.await();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        List<DependencyNode> nodes = new ArrayList<DependencyNode>( Arrays.asList( graphs ) );
+        nodes.removeAll( Collections.singleton( null ) );
+        return nodes;
+    }
+
+    private void addRequest( Map<String, ArtifactRequest> requests, Artifact artifact, DependencyNode node )
+    {
+        String id = ArtifacIdUtils.toId( artifact );
+        if ( !requests.containsKey( id ) )
+        {
+            requests.put( id, new ArtifactRequest( artifact, node.getRepositories(), node.getRequestContext() ) );
+        }
+    }
+
+    private List<ArtifactResult> resolve( RepositorySystemSession session, Collection<ArtifactRequest> requests,
+                                          OfflineRepositoryResult result )
+    {
+        try
+        {
+            return system.resolveArtifacts( session, requests );
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            for ( ArtifactResult artifactResult : e.getResults() )
+            {
+                for ( Exception exception : artifactResult.getExceptions() )
+                {
+                    result.addException( exception );
+                }
+            }
+            return e.getResults();
+        }
+    }
+
+    private List<MetadataResult> resolveMetadata( RepositorySystemSession session,
+                                                  List<ArtifactResult> artifactResults, OfflineRepositoryResult result )
+    {
+        Map<String, MetadataRequest> requests = new LinkedHashMap<String, MetadataRequest>();
+
+        for ( ArtifactResult artifactResult : artifactResults )
+        {
+            Artifact artifact = artifactResult.getArtifact();
+            if ( artifact == null || artifact.getFile() == null )
+            {
+                continue;
+            }
+
+            ArtifactRequest request = artifactResult.getRequest();
+            for ( RemoteRepository repository : request.getRepositories() )
+            {
+                Metadata metadata =
+                    new DefaultMetadata( artifact.getGroupId(), artifact.getArtifactId(), MAVEN_METADATA_XML,
+                                         Metadata.Nature.RELEASE_OR_SNAPSHOT );
+                addRequest( requests, metadata, repository, request.getRequestContext() );
+
+                if ( artifact.isSnapshot() )
+                {
+                    metadata =
+                        new DefaultMetadata( artifact.getGroupId(), artifact.getArtifactId(),
+                                             artifact.getBaseVersion(), MAVEN_METADATA_XML, Metadata.Nature.SNAPSHOT );
+                    addRequest( requests, metadata, repository, request.getRequestContext() );
+                }
+            }
+        }
+
+        List<MetadataResult> metadataResults = system.resolveMetadata( session, requests.values() );
+
+        for ( MetadataResult metadataResult : metadataResults )
+        {
+            Exception exception = metadataResult.getException();
+            if ( exception != null && !( exception instanceof MetadataNotFoundException ) )
+            {
+                result.addException( exception );
+            }
+        }
+
+        return metadataResults;
+    }
+
+    private void addRequest( Map<String, MetadataRequest> requests, Metadata metadata, RemoteRepository repository,
+                             String context )
+    {
+        String key = LAYOUT.getPath( metadata ).getPath() + ' ' + repository.getId() + ' ' + repository.getUrl();
+        if ( !requests.containsKey( key ) )
+        {
+            requests.put( key, new MetadataRequest( metadata, repository, context ) );
+        }
+    }
+
+    /**
+     * Gets the path of the specified file within the offline repository, or {@code null} if the file is not located
+     * within the local repository.
+     */
+    private String getPath( File basedir, String layoutPath, File file )
+    {
+        if ( remoteLayoutDirectory != null )
+        {
+            return layoutPath;
+        }
+
+        String prefix = basedir.getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        if ( !path.startsWith( prefix ) )
+        {
+            return null;
+        }
+        return path.substring( prefix.length() ).replace( File.separatorChar, '/' );
+    }
+
+    private boolean store( File basedir, String path, File file, OfflineRepositoryManifest manifest,
+                           OfflineRepositoryResult result )
+        throws IOException
+    {
+        String checksum = OfflineRepositoryManifest.calc( file );
+        if ( checksum == null )
+        {
+            result.addException( new IOException( "Could not calculate checksum of " + file ) );
+            return false;
+        }
+
+        if ( remoteLayoutDirectory != null )
+        {
+            File target = new File( basedir, path );
+            File checksumFile = new File( target.getPath() + ".sha1" );
+            if ( !isCopied( file, checksum, target, checksumFile ) )
+            {
+                copy( file, target );
+                write( checksum, checksumFile );
+            }
+        }
+
+        manifest.add( path, checksum );
+        return true;
+    }
+
+    /**
+     * Determines whether a previous (possibly interrupted) build already copied the specified file. The checksum file
+     * is written after its data file, so a matching checksum file implies a complete copy of the current source.
+     */
+    private static boolean isCopied( File source, String checksum, File target, File checksumFile )
+    {
+        if ( !target.isFile() || target.length() != source.length() || !checksumFile.isFile() )
+        {
+            return false;
+        }
+        try
+        {
+            return checksum.equalsIgnoreCase( ChecksumUtils.read( checksumFile ) );
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+    }
+
+    private static void copy( File source, File target )
+        throws IOException
+    {
+        target.getAbsoluteFile().getParentFile().mkdirs();
+
+        File tmp = newTempFile( target );
+        try
+        {
+            InputStream in = new FileInputStream( source );
+            try
+            {
+                OutputStream out = new FileOutputStream( tmp );
+                try
+                {
+                    byte[] buffer = new byte[32 * 1024];
+                    for ( int n = in.read( buffer ); n >= 0; n = in.read( buffer ) )
+                    {
+                        out.write( buffer, 0, n );
+                    }
+                }
+                finally
+                {
+                    out.close();
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+
+            commit( tmp, target );
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    private static void write( String content, File target )
+        throws IOException
+    {
+        File tmp = newTempFile( target );
+        try
+        {
+            OutputStream out = new FileOutputStream( tmp );
+            try
+            {
+                out.write( content.getBytes( "UTF-8" ) );
+            }
+            finally
+            {
+                out.close();
+            }
+
+            commit( tmp, target );
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    private static File newTempFile( File target )
+        throws IOException
+    {
+        return File.createTempFile( target.getName() + ".part", ".tmp", target.getAbsoluteFile().getParentFile() );
+    }
+
+    private static void commit( File tmp, File target )
+        throws IOException
+    {
+        // File.renameTo() does not replace an existing file on all platforms
+        if ( !tmp.renameTo( target ) && !( target.delete() && tmp.renameTo( target ) ) )
+        {
+            throw new IOException( "Could not move " + tmp + " to " + target );
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.sonatype.aether.util.repository;
+
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.sonatype.aether.util.ChecksumUtils;
+
+/**
+ * The listing of the files in an offline repository along with their SHA-1 checksums as produced by the
+ * {@link OfflineRepositoryBuilder}. The manifest is a text file where each line holds the path of a file relative to
+ * the repository base directory and its checksum, separated by a space. It allows to validate the completeness of the
+ * repository without network access.
+ */
+public class OfflineRepositoryManifest
+{
+
+    /**
+     * The name of the manifest file in the base directory of the repository.
+     */
+    public static final String NAME = "offline-manifest.txt";
+
+    private static final String HEADER = "# aether offline repository manifest";
+
+    private static final String SHA1 = "SHA-1";
+
+    private final Map<String, String> entries = new TreeMap<String, String>();
+
+    /**
+     * Reads the manifest from the specified file.
+     * 
+     * @param file The manifest file to read, must not be {@code null}.
+     * @return The manifest, never {@code null}.
+     * @throws IOException If the file could not be read.
+     */
+    public static OfflineRepositoryManifest read( File file )
+        throws IOException
+    {
+        OfflineRepositoryManifest manifest = new OfflineRepositoryManifest();
+
+        BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+        try
+        {
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+            {
+                line = line.trim();
+                if ( line.length() <= 0 || line.startsWith( "#" ) )
+                {
+                    continue;
+                }
+                int space = line.lastIndexOf( ' ' );
+                if ( space > 0 )
+                {
+                    manifest.add( line.substring( 0, space ), line.substring( space + 1 ) );
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Writes this manifest to the specified file.
+     * 
+     * @param file The file to write the manifest to, must not be {@code null}.
+     * @throws IOException If the file could not be written.
+     */
+    public void write( File file )
+        throws IOException
+    {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        try
+        {
+            writer.write( HEADER );
+            writer.write( '\n' );
+            for ( Map.Entry<String, String> entry : entries.entrySet() )
+            {
+                writer.write( entry.getKey() );
+                writer.write( ' ' );
+                writer.write( entry.getValue() );
+                writer.write( '\n' );
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Adds the specified file to this manifest.
+     * 
+     * @param path The path of the file relative to the repository base directory, must not be {@code null}.
+     * @param checksum The SHA-1 checksum of the file, must not be {@code null}.
+     * @return This manifest for chaining, never {@code null}.
+     */
+    public OfflineRepositoryManifest add( String path, String checksum )
+    {
+        entries.put( path.replace( File.separatorChar, '/' ), checksum );
+        return this;
+    }
+
+    /**
+     * Gets the checksum of the specified file.
+     * 
+     * @param path The path of the file relative to the repository base directory, must not be {@code null}.
+     * @return The SHA-1 checksum or {@code null} if the file is not listed.
+     */
+    public String getChecksum( String path )
+    {
+        return entries.get( path.replace( File.separatorChar, '/' ) );
+    }
+
+    /**
+     * Gets the paths of the files listed by this manifest.
+     * 
+     * @return The (read-only) paths in ascending order, never {@code null}.
+     */
+    public Set<String> getPaths()
+    {
+        return Collections.unmodifiableSet( entries.keySet() );
+    }
+
+    /**
+     * Verifies that the repository in the specified directory holds all files of this manifest with the expected
+     * checksums.
+     * 
+     * @param basedir The base directory of the repository, must not be {@code null}.
+     * @return The paths of the files that are missing or whose checksum does not match, never {@code null}.
+     */
+    public List<String> verify( File basedir )
+    {
+        List<String> problems = new ArrayList<String>();
+
+        for ( Map.Entry<String, String> entry : entries.entrySet() )
+        {
+            File file = new File( basedir, entry.getKey() );
+            if ( !file.isFile() || !entry.getValue().equalsIgnoreCase( calc( file ) ) )
+            {
+                problems.add( entry.getKey() );
+            }
+        }
+
+        return problems;
+    }
+
+    /**
+     * Calculates the SHA-1 checksum of the specified file.
+     * 
+     * @param file The file to calculate the checksum of, must not be {@code null}.
+     * @return The checksum or {@code null} if the file could not be read.
+     */
+    static String calc( File file )
+    {
+        try
+        {
+            Object checksum = ChecksumUtils.calc( file, Collections.singleton( SHA1 ) ).get( SHA1 );
+            return ( checksum instanceof String ) ? (String) checksum : null;
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return entries.size() + " files";
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.sonatype.aether.util.repository;
+
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.aether.artifact.Artifact;
+
+/**
+ * The result of building an offline repository.
+ * 
+ * @see OfflineRepositoryBuilder#build(org.sonatype.aether.RepositorySystemSession, java.util.Collection)
+ */
+public class OfflineRepositoryResult
+{
+
+    private final List<Artifact> artifacts = new ArrayList<Artifact>();
+
+    private final List<Exception> exceptions = new ArrayList<Exception>();
+
+    private OfflineRepositoryManifest manifest;
+
+    /**
+     * Gets the artifacts that have been stored in the offline repository.
+     * 
+     * @return The (read-only) artifacts, never {@code null}.
+     */
+    public List<Artifact> getArtifacts()
+    {
+        return Collections.unmodifiableList( artifacts );
+    }
+
+    OfflineRepositoryResult addArtifact( Artifact artifact )
+    {
+        artifacts.add( artifact );
+        return this;
+    }
+
+    /**
+     * Gets the exceptions that occurred while collecting or resolving the contents of the offline repository. Missing
+     * metadata is not reported.
+     * 
+     * @return The (read-only) exceptions, never {@code null}.
+     */
+    public List<Exception> getExceptions()
+    {
+        return Collections.unmodifiableList( exceptions );
+    }
+
+    synchronized OfflineRepositoryResult addException( Exception exception )
+    {
+        exceptions.add( exception );
+        return this;
+    }
+
+    /**
+     * Gets the manifest listing the files of the offline repository.
+     * 
+     * @return The manifest, never {@code null} after the build finished.
+     */
+    public OfflineRepositoryManifest getManifest()
+    {
+        return manifest;
+    }
+
+    OfflineRepositoryResult setManifest( OfflineRepositoryManifest manifest )
+    {
+        this.manifest = manifest;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return artifacts.size() + " artifacts, " + exceptions.size() + " problems, manifest " + manifest;
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.sonatype.aether.util;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.test.util.TestFileUtils;
+
+public class CacheValidatorsTest
+{
+
+    private File file;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        file = TestFileUtils.createTempFile( "metadata" );
+    }
+
+    @After
+    public void teardown()
+        throws IOException
+    {
+        new File( file.getPath() + ".validators" ).delete();
+        TestFileUtils.delete( file );
+    }
+
+    @Test
+    public void testReadWithoutValidators()
+    {
+        assertNull( CacheValidators.read( file ) );
+        assertNull( CacheValidators.read( null ) );
+    }
+
+    @Test
+    public void testWriteAndRead()
+    {
+        CacheValidators.write( file, new CacheValidators( "\"abc\"", 1234567890000L ) );
+
+        CacheValidators validators = CacheValidators.read( file );
+        assertNotNull( validators );
+        assertEquals( "\"abc\"", validators.getEtag() );
+        assertEquals( 1234567890000L, validators.getLastModified() );
+    }
+
+    @Test
+    public void testWriteEmptyRemovesValidators()
+    {
+        CacheValidators.write( file, new CacheValidators( "\"abc\"", 0 ) );
+        assertNotNull( CacheValidators.read( file ) );
+
+        CacheValidators.write( file, new CacheValidators( null, 0 ) );
+        assertNull( CacheValidators.read( file ) );
+        assertFalse( new File( file.getPath() + ".validators" ).exists() );
+    }
+
+    @Test
+    public void testValidatorsOutdatedByLocalChange()
+        throws IOException
+    {
+        CacheValidators.write( file, new CacheValidators( "\"abc\"", 0 ) );
+
+        TestFileUtils.write( "modified metadata", file );
+
+        assertNull( CacheValidators.read( file ) );
+    }
+
+    @Test
+    public void testValidatorsIgnoredForMissingFile()
+        throws IOException
+    {
+        CacheValidators.write( file, new CacheValidators( "\"abc\"", 0 ) );
+
+        file.delete();
+
+        assertNull( CacheValidators.read( file ) );
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.sonatype.aether.util;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.test.util.TestFileUtils;
+
+public class ChecksumCacheTest
+{
+
+    private File file;
+
+    private ChecksumCache cache;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        file = TestFileUtils.createTempFile( "checksummed content" );
+        file.setLastModified( System.currentTimeMillis() - 60 * 1000 );
+        cache = new ChecksumCache( 16 );
+    }
+
+    @After
+    public void cleanup()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void testReuseChecksums()
+        throws Exception
+    {
+        Map<String, Object> expected = ChecksumUtils.calc( file, Arrays.asList( "SHA-1", "MD5" ) );
+
+        assertEquals( expected, cache.calc( file, Arrays.asList( "SHA-1", "MD5" ) ) );
+        assertEquals( expected, cache.calc( file, Arrays.asList( "SHA-1", "MD5" ) ) );
+        assertEquals( expected.get( "MD5" ), cache.calc( file, Collections.singleton( "MD5" ) ).get( "MD5" ) );
+
+        assertEquals( 1, cache.getMisses() );
+        assertEquals( 2, cache.getHits() );
+    }
+
+    @Test
+    public void testCalculateMissingAlgorithms()
+        throws Exception
+    {
+        cache.calc( file, Collections.singleton( "SHA-1" ) );
+        Map<String, Object> checksums = cache.calc( file, Arrays.asList( "SHA-1", "MD5" ) );
+
+        assertEquals( ChecksumUtils.calc( file, Arrays.asList( "SHA-1", "MD5" ) ), checksums );
+        assertEquals( 2, cache.getMisses() );
+    }
+
+    @Test
+    public void testModifiedFile()
+        throws Exception
+    {
+        cache.calc( file, Collections.singleton( "SHA-1" ) );
+
+        TestFileUtils.write( "modified content!!!", file );
+        file.setLastModified( System.currentTimeMillis() - 30 * 1000 );
+
+        assertEquals( ChecksumUtils.calc( file, Collections.singleton( "SHA-1" ) ),
+                      cache.calc( file, Collections.singleton( "SHA-1" ) ) );
+        assertEquals( 2, cache.getMisses() );
+    }
+
+    @Test
+    public void testRecentlyModifiedFileNotReused()
+        throws Exception
+    {
+        file.setLastModified( System.currentTimeMillis() );
+
+        cache.calc( file, Collections.singleton( "SHA-1" ) );
+        cache.calc( file, Collections.singleton( "SHA-1" ) );
+
+        assertEquals( 2, cache.getMisses() );
+        assertEquals( 0, cache.getHits() );
+    }
+
+}
@@ -16,9 +16,12 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 import java.util.Map.Entry;
 
 import org.junit.Before;
@@ -101,6 +104,24 @@ public class ChecksumUtilTest
         }
     }
 
+    @Test
+    public void testLargeFile()
+        throws Exception
+    {
+        byte[] data = new byte[5 * 1024 * 1024 + 17];
+        new Random( 0 ).nextBytes( data );
+        File file = TestFileUtils.createTempFile( data, 1 );
+
+        Map<String, Object> checksums = ChecksumUtils.calc( file, Arrays.asList( "SHA-1", "MD5", "unknown" ) );
+
+        assertEquals( ChecksumUtils.toHexString( MessageDigest.getInstance( "SHA-1" ).digest( data ) ),
+                      checksums.get( "SHA-1" ) );
+        assertEquals( ChecksumUtils.toHexString( MessageDigest.getInstance( "MD5" ).digest( data ) ),
+                      checksums.get( "MD5" ) );
+        assertTrue( checksums.get( "unknown" ) instanceof NoSuchAlgorithmException );
+        assertTrue( "Could not delete file", file.delete() );
+    }
+
     @Test
     public void testFileHandleLeakage()
         throws IOException
@@ -0,0 +1,73 @@
+package org.sonatype.aether.util;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TransferRetryPolicyTest
+{
+
+    @Test
+    public void testDefaultsDisableRetries()
+    {
+        TransferRetryPolicy policy = TransferRetryPolicy.newInstance( new DefaultRepositorySystemSession() );
+        assertEquals( 1, policy.getMaxAttempts() );
+        assertFalse( policy.canRetry( 1 ) );
+        assertTrue( policy.isRetryable( 503 ) );
+        assertFalse( policy.isRetryable( 404 ) );
+    }
+
+    @Test
+    public void testConfiguration()
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setConfigProperty( TransferRetryPolicy.MAX_ATTEMPTS, "3" );
+        session.setConfigProperty( TransferRetryPolicy.STATUS_CODES, "502, 503,oops" );
+
+        TransferRetryPolicy policy = TransferRetryPolicy.newInstance( session );
+        assertEquals( 3, policy.getMaxAttempts() );
+        assertTrue( policy.canRetry( 2 ) );
+        assertFalse( policy.canRetry( 3 ) );
+        assertTrue( policy.isRetryable( 502 ) );
+        assertTrue( policy.isRetryable( 503 ) );
+        assertFalse( policy.isRetryable( 500 ) );
+    }
+
+    @Test
+    public void testDelayGrowsExponentiallyUpToBound()
+    {
+        TransferRetryPolicy policy = new TransferRetryPolicy( 10, 100, 1000 );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            long delay = policy.getDelay( 1 );
+            assertTrue( String.valueOf( delay ), delay >= 0 && delay <= 100 );
+            delay = policy.getDelay( 3 );
+            assertTrue( String.valueOf( delay ), delay >= 0 && delay <= 400 );
+            delay = policy.getDelay( 9 );
+            assertTrue( String.valueOf( delay ), delay >= 0 && delay <= 1000 );
+        }
+    }
+
+    @Test
+    public void testZeroDelay()
+        throws Exception
+    {
+        TransferRetryPolicy policy = new TransferRetryPolicy( 2, 0, 0 );
+        assertEquals( 0, policy.getDelay( 5 ) );
+        policy.await( 5 );
+    }
+
+}
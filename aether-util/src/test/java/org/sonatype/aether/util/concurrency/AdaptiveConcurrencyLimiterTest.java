@@ -0,0 +1,127 @@
+package org.sonatype.aether.util.concurrency;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+
+public class AdaptiveConcurrencyLimiterTest
+{
+
+    @Test
+    public void testIncreaseWhileSaturated()
+        throws Exception
+    {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter( 2, 1, 8 );
+
+        for ( int round = 0; round < 20; round++ )
+        {
+            int limit = limiter.getLimit();
+            long[] started = new long[limit];
+            for ( int i = 0; i < limit; i++ )
+            {
+                started[i] = limiter.acquire();
+            }
+            assertEquals( limit, limiter.getInFlight() );
+            for ( int i = 0; i < limit; i++ )
+            {
+                limiter.release( started[i], false );
+            }
+        }
+
+        assertEquals( 8, limiter.getLimit() );
+        assertEquals( 0, limiter.getInFlight() );
+        assertTrue( limiter.getLatencyPercentile( 0.99 ) >= 0 );
+    }
+
+    @Test
+    public void testBurstOfOverloadHalvesLimitOnce()
+        throws Exception
+    {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter( 8, 1, 8 );
+
+        long[] started = new long[8];
+        for ( int i = 0; i < started.length; i++ )
+        {
+            started[i] = limiter.acquire();
+        }
+        for ( int i = 0; i < started.length; i++ )
+        {
+            limiter.release( started[i], true );
+        }
+
+        assertEquals( 4, limiter.getLimit() );
+        assertEquals( 8, limiter.getOverloadCount() );
+
+        limiter.release( limiter.acquire(), true );
+        assertEquals( 2, limiter.getLimit() );
+    }
+
+    @Test
+    public void testAcquireBlocksAtLimit()
+        throws Exception
+    {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter( 1, 1, 1 );
+
+        final long started = limiter.acquire();
+
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    limiter.release( limiter.acquire(), false );
+                }
+                catch ( InterruptedException e )
+                {
+                    // ignored
+                }
+            }
+        };
+        thread.start();
+
+        for ( int i = 0; i < 100 && limiter.getQueueDepth() <= 0; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( 1, limiter.getQueueDepth() );
+
+        limiter.release( started, false );
+        thread.join( 5000 );
+
+        assertFalse( thread.isAlive() );
+        assertEquals( 0, limiter.getQueueDepth() );
+        assertEquals( 2, limiter.getSuccessCount() );
+    }
+
+    @Test
+    public void testSharedPerRepositoryId()
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        RemoteRepository repo = new RemoteRepository( "central", "default", "http://localhost/repo" );
+
+        assertNull( AdaptiveConcurrencyLimiter.get( session, repo ) );
+
+        session.setConfigProperty( AdaptiveConcurrencyLimiter.ENABLED, "true" );
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.get( session, repo );
+        assertNotNull( limiter );
+        assertSame( limiter, AdaptiveConcurrencyLimiter.get( session, repo.setUrl( "http://localhost/mirror" ) ) );
+        assertNotSame( limiter, AdaptiveConcurrencyLimiter.get( session, repo.setId( "other" ) ) );
+    }
+
+}
@@ -0,0 +1,242 @@
+package org.sonatype.aether.util.repository;
+
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * The Apache License v2.0 is available at
+ *   http://www.apache.org/licenses/LICENSE-2.0.html
+ * You may elect to redistribute this code under either of these licenses.
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.RepositorySystem;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.collection.CollectResult;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.resolution.MetadataRequest;
+import org.sonatype.aether.resolution.MetadataResult;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+
+public class OfflineRepositoryBuilderTest
+{
+
+    private TestRepositorySystemSession session;
+
+    private File localRepo;
+
+    private List<RemoteRepository> repos;
+
+    private final Map<String, DependencyNode> graphs = new HashMap<String, DependencyNode>();
+
+    private final List<String> downloads = Collections.synchronizedList( new ArrayList<String>() );
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        session = new TestRepositorySystemSession();
+        localRepo = session.getLocalRepository().getBasedir();
+        repos = Collections.singletonList( new RemoteRepository( "central", "default", "file:///" ) );
+
+        DependencyNode shared = newNode( "gid:shared:1.0" );
+        graphs.put( "gid:a:jar:1.0", newNode( "gid:a:1.0", shared ) );
+        graphs.put( "gid:b:jar:1.0", newNode( "gid:b:1.0", shared ) );
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.delete( localRepo );
+    }
+
+    private DependencyNode newNode( String coords, DependencyNode... children )
+    {
+        DefaultDependencyNode node = new DefaultDependencyNode( new Dependency( new DefaultArtifact( coords ), "" ) );
+        node.setRepositories( repos );
+        node.getChildren().addAll( Arrays.asList( children ) );
+        return node;
+    }
+
+    private List<CollectRequest> newRoots( String... coords )
+    {
+        List<CollectRequest> roots = new ArrayList<CollectRequest>();
+        for ( String coord : coords )
+        {
+            roots.add( new CollectRequest( new Dependency( new DefaultArtifact( coord ), "" ), repos ) );
+        }
+        return roots;
+    }
+
+    class SystemHandler
+        implements InvocationHandler
+    {
+
+        public Object invoke( Object proxy, Method method, Object[] args )
+            throws Exception
+        {
+            if ( "collectDependencies".equals( method.getName() ) )
+            {
+                return collect( (CollectRequest) args[1] );
+            }
+            else if ( "resolveArtifacts".equals( method.getName() ) )
+            {
+                return resolve( (Collection<?>) args[1] );
+            }
+            else if ( "resolveMetadata".equals( method.getName() ) )
+            {
+                return resolveMetadata( (Collection<?>) args[1] );
+            }
+            throw new UnsupportedOperationException( method.getName() );
+        }
+
+    }
+
+    private RepositorySystem newSystem()
+    {
+        return (RepositorySystem) Proxy.newProxyInstance( getClass().getClassLoader(),
+                                                          new Class<?>[] { RepositorySystem.class },
+                                                          new SystemHandler() );
+    }
+
+    private CollectResult collect( CollectRequest request )
+    {
+        Artifact root = request.getRoot().getArtifact();
+        return new CollectResult( request ).setRoot( graphs.get( root.toString() ) );
+    }
+
+    private List<ArtifactResult> resolve( Collection<?> requests )
+        throws IOException
+    {
+        List<ArtifactResult> results = new ArrayList<ArtifactResult>();
+        for ( Object request : requests )
+        {
+            Artifact artifact = ( (ArtifactRequest) request ).getArtifact();
+            downloads.add( artifact.toString() );
+            File file = new File( localRepo, session.getLocalRepositoryManager().getPathForLocalArtifact( artifact ) );
+            TestFileUtils.write( artifact.toString(), file );
+            results.add( new ArtifactResult( (ArtifactRequest) request ).setArtifact( artifact.setFile( file ) ) );
+        }
+        return results;
+    }
+
+    private List<MetadataResult> resolveMetadata( Collection<?> requests )
+        throws IOException
+    {
+        List<MetadataResult> results = new ArrayList<MetadataResult>();
+        for ( Object request : requests )
+        {
+            MetadataResult result = new MetadataResult( (MetadataRequest) request );
+            Metadata metadata = result.getRequest().getMetadata();
+            if ( "shared".equals( metadata.getArtifactId() ) )
+            {
+                File file = new File( localRepo, "gid/shared/maven-metadata-central.xml" );
+                TestFileUtils.write( "versions", file );
+                result.setMetadata( metadata.setFile( file ) );
+            }
+            else
+            {
+                result.setException( new MetadataNotFoundException( metadata, result.getRequest().getRepository() ) );
+            }
+            results.add( result );
+        }
+        return results;
+    }
+
+    @Test
+    public void testUnionOfRootsIntoLocalRepository()
+        throws Exception
+    {
+        OfflineRepositoryResult result =
+            new OfflineRepositoryBuilder( newSystem() ).build( session, newRoots( "gid:a:1.0", "gid:b:1.0" ) );
+
+        assertEquals( 6, downloads.size() );
+        assertTrue( downloads.contains( "gid:shared:pom:1.0" ) && downloads.contains( "gid:shared:jar:1.0" ) );
+        assertEquals( 6, result.getArtifacts().size() );
+        assertTrue( result.getExceptions().isEmpty() );
+
+        OfflineRepositoryManifest manifest =
+            OfflineRepositoryManifest.read( new File( localRepo, OfflineRepositoryManifest.NAME ) );
+        assertEquals( 7, manifest.size() );
+        assertTrue( manifest.getPaths().contains( "gid/shared/maven-metadata-central.xml" ) );
+        assertEquals( Collections.emptyList(), manifest.verify( localRepo ) );
+
+        String path = manifest.getPaths().iterator().next();
+        TestFileUtils.write( "corrupted", new File( localRepo, path ) );
+        assertEquals( Collections.singletonList( path ), manifest.verify( localRepo ) );
+    }
+
+    @Test
+    public void testRemoteLayoutIsResumable()
+        throws Exception
+    {
+        File remote = TestFileUtils.createTempDir();
+        try
+        {
+            OfflineRepositoryBuilder builder = new OfflineRepositoryBuilder( newSystem() );
+            builder.setRemoteLayoutDirectory( remote ).setIncludePoms( false );
+            OfflineRepositoryResult result = builder.build( session, newRoots( "gid:a:1.0" ) );
+
+            assertEquals( 3, result.getManifest().size() );
+            File jar = new File( remote, "gid/shared/1.0/shared-1.0.jar" );
+            assertTrue( jar.isFile() );
+            assertTrue( new File( remote, "gid/shared/1.0/shared-1.0.jar.sha1" ).isFile() );
+            assertTrue( new File( remote, "gid/shared/maven-metadata.xml" ).isFile() );
+            assertEquals( Collections.emptyList(), result.getManifest().verify( remote ) );
+
+            // an interrupted build has no manifest yet, the checksum files tell which copies are complete
+            assertTrue( new File( remote, OfflineRepositoryManifest.NAME ).delete() );
+            jar.setLastModified( 0 );
+            builder.build( session, newRoots( "gid:a:1.0" ) );
+            assertEquals( 0, jar.lastModified() );
+
+            TestFileUtils.write( "0000000000000000000000000000000000000000",
+                                 new File( remote, "gid/shared/1.0/shared-1.0.jar.sha1" ) );
+            builder.build( session, newRoots( "gid:a:1.0" ) );
+            assertTrue( jar.lastModified() != 0 );
+            assertEquals( Collections.emptyList(), result.getManifest().verify( remote ) );
+
+            // no temporary files are left behind
+            String[] names = jar.getParentFile().list();
+            Arrays.sort( names );
+            assertEquals( Arrays.asList( "shared-1.0.jar", "shared-1.0.jar.sha1" ), Arrays.asList( names ) );
+        }
+        finally
+        {
+            TestFileUtils.delete( remote );
+        }
+    }
+
+}